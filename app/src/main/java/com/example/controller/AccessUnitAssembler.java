@@ -0,0 +1,170 @@
+package com.example.controller;
+
+/**
+ * H.264 / H.265 访问单元 (Access Unit) 聚合器
+ * 把 RTP 时间戳相同的所有 NALU（SEI、多个 slice 等）拼接到同一个池化缓冲区，
+ * 以 RTP Marker 位作为访问单元结束标志；Marker 包丢失时以时间戳变化兜底。
+ * 每个访问单元只需一次 queueInputBuffer，解码器收齐一帧即可立即输出。
+ * 访问单元的 PTS 取自 RTP 时间戳，并记录首包到达/组装完成时间供延迟统计。
+ *
+ * 纯 Java 实现，非线程安全，只能在 RTP 接收线程中使用。
+ */
+public final class AccessUnitAssembler {
+
+    /**
+     * 访问单元输出回调
+     */
+    public interface Listener {
+        /**
+         * 一个访问单元已完成，缓冲区所有权转移给接收方（用完需归还到池）
+         */
+        void onAccessUnit(NaluBuffer accessUnit);
+    }
+
+    private final NaluBufferPool pool;
+    private final Listener listener;
+    private final H264BitReader sliceReader = new H264BitReader();
+    private VideoCodec codec = VideoCodec.H264;
+
+    // ========== 组装状态 ==========
+    private NaluBuffer current = null;
+    private long currentRtpTimestamp = -1;
+    private boolean discarding = false; // 当前访问单元已损坏，丢弃直到时间戳变化
+
+    // ========== 统计 ==========
+    private long accessUnits = 0;
+    private long nalus = 0;
+    private long droppedNalus = 0;
+    private long incompleteAccessUnits = 0;
+    private long corruptedAccessUnits = 0;
+
+    public AccessUnitAssembler(NaluBufferPool pool, Listener listener) {
+        if (pool == null || listener == null) throw new IllegalArgumentException("pool/listener == null");
+        this.pool = pool;
+        this.listener = listener;
+    }
+
+    /**
+     * 输入一个 NALU（不含起始码）
+     * @param rtpTimestamp 展开后的 RTP 时间戳 (90kHz)
+     * @param marker       RTP Marker 位（访问单元最后一个包）
+     * @param arrivalNanos 该帧首个数据包的到达时间 (System.nanoTime)
+     */
+    public void onNalu(byte[] data, int offset, int length, long rtpTimestamp, boolean marker, long arrivalNanos) {
+        nalus++;
+
+        // 时间戳变化但上一帧没有收到 Marker：提前结束上一个访问单元
+        if (rtpTimestamp != currentRtpTimestamp) {
+            if (current != null) {
+                incompleteAccessUnits++;
+                emit();
+            }
+            discarding = false;
+            currentRtpTimestamp = rtpTimestamp;
+        }
+
+        if (discarding) {
+            droppedNalus++;
+        } else {
+            if (current == null) {
+                current = pool.acquire();
+                if (current != null) {
+                    current.rtpTimestamp = rtpTimestamp;
+                    current.timestamp = RtpTimestampUnwrapper.toMicros(rtpTimestamp);
+                    current.arrivalNanos = arrivalNanos;
+                }
+            }
+            if (current != null && current.append(data, offset, length, codec)) {
+                // slice_type 只用于统计，H.265 的 slice header 依赖 PPS，不解析
+                if (current.sliceType < 0 && codec == VideoCodec.H264
+                        && codec.isVcl(codec.nalType(data, offset))) {
+                    current.sliceType = sliceReader.readSliceType(data, offset, length);
+                }
+            } else {
+                // 缓冲池耗尽或访问单元过大：整帧丢弃
+                droppedNalus += 1 + (current != null ? current.naluCount : 0);
+                pool.release(current);
+                current = null;
+                discarding = true;
+            }
+        }
+
+        if (marker) {
+            if (current != null) {
+                emit();
+            }
+            discarding = false;
+            currentRtpTimestamp = -1;
+        }
+    }
+
+    /**
+     * 检测到丢包：当前访问单元缺数据，整帧丢弃（同一时间戳的后续 NALU 也丢弃）
+     */
+    public void discardCurrent() {
+        if (current == null) return;
+        droppedNalus += current.naluCount;
+        corruptedAccessUnits++;
+        pool.release(current);
+        current = null;
+        discarding = true;
+    }
+
+    /**
+     * 切换编码格式（丢弃未完成的访问单元）
+     */
+    public void setCodec(VideoCodec codec) {
+        if (codec == this.codec) return;
+        reset();
+        this.codec = codec;
+    }
+
+    public VideoCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * 丢弃未完成的访问单元并重置状态
+     */
+    public void reset() {
+        pool.release(current);
+        current = null;
+        currentRtpTimestamp = -1;
+        discarding = false;
+    }
+
+    private void emit() {
+        NaluBuffer accessUnit = current;
+        current = null;
+        accessUnit.completeNanos = System.nanoTime();
+        accessUnits++;
+        listener.onAccessUnit(accessUnit);
+    }
+
+    // ========== 统计 ==========
+
+    /** 已输出的访问单元数 */
+    public long getAccessUnits() {
+        return accessUnits;
+    }
+
+    /** 已输入的 NALU 数 */
+    public long getNalus() {
+        return nalus;
+    }
+
+    /** 因缓冲池耗尽或超长被丢弃的 NALU 数 */
+    public long getDroppedNalus() {
+        return droppedNalus;
+    }
+
+    /** 未收到 Marker、由时间戳变化结束的访问单元数 */
+    public long getIncompleteAccessUnits() {
+        return incompleteAccessUnits;
+    }
+
+    /** 因丢包被整帧丢弃的访问单元数 */
+    public long getCorruptedAccessUnits() {
+        return corruptedAccessUnits;
+    }
+}
@@ -6,6 +6,9 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.media.MediaCodec;
 import android.media.MediaFormat;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.Surface;
@@ -13,18 +16,16 @@ import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * H.264/RTP 低延迟视频流控件 (生产级优化版)
- * 适配树莓派 GStreamer: 320x240 @ 20fps H.264 RTP over UDP
+ * H.264/H.265 RTP 低延迟视频流控件 (生产级优化版)
+ * 适配树莓派 GStreamer: H.264 (RFC 6184) / H.265 (RFC 7798) RTP over UDP，分辨率/帧率由 SPS 自动识别
+ * 编码格式由 {@link #setVideoCodec} 设置，或按 {@link #setH265PayloadType} 登记的 Payload Type 自动选择
  * 
  * @author h4rvey626
  * @version 2.0 (2025-10-28)
@@ -33,52 +34,156 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
     private static final String TAG = "CameraStreamView";
     
     // ========== 配置参数 ==========
-    private static final int VIDEO_WIDTH = 320;
-    private static final int VIDEO_HEIGHT = 240;
     private static final int UDP_PORT = 5000;
+    private static final int RTCP_PORT = UDP_PORT + 1; // 发送端 RTCP 端口
     private static final int MAX_PACKET_SIZE = 2048;
-    private static final int RTP_HEADER_SIZE = 12;
+    private static final int MAX_NALU_SIZE = 1024 * 1024; // 单个 NALU / 访问单元上限 1MB
+    private static final int DEFAULT_ACCESS_UNIT_SIZE = 200000; // 收到 SPS 之前的缓冲区容量
+    private static final int MIN_ACCESS_UNIT_SIZE = 64 * 1024;
+    private static final int UDP_RECEIVE_BUFFER_SIZE = 500000; // 500KB 缓冲
     
     // ⭐ 低延迟配置
-    private static final int NALU_QUEUE_SIZE = 3;  // 3 帧缓冲 (150ms @ 20fps)
     private static final int I_FRAME_TIMEOUT_MS = 5000; // I 帧超时
-    private static final int DECODER_TIMEOUT_US = 10000; // 10ms
+    private static final long THREAD_JOIN_TIMEOUT_MS = 1000; // stopStream 等待接收 / 解码线程退出
+    private static final long DECODER_RETRY_DELAY_MS = 100; // 解码器重建失败后的重试间隔
+    private static final PlayoutMode DEFAULT_PLAYOUT_MODE = PlayoutMode.BALANCED; // 队列 3 帧、乱序等待 20ms
+    private static final int REORDER_CAPACITY = 64; // 重排窗口 64 个包
+    private static final int MAX_CODEC_INPUT_BUFFERS = 64;
+    private static final int DEFAULT_H265_PAYLOAD_TYPE = 97; // start_h264_stream.sh 的 H.265 方案使用 PT 97
+    
+    /**
+     * 解码驱动方式
+     */
+    public enum DecodeMode {
+        /** 同步轮询 dequeueInputBuffer / dequeueOutputBuffer（兼容回退） */
+        SYNC,
+        /** MediaCodec.setCallback 异步回调：有 NALU 即送入，输出即渲染 */
+        ASYNC
+    }
+    
+    /**
+     * 参数集变化时解码器的更新方式，代价依次递增
+     */
+    private enum ConfigChange {
+        NONE,
+        /** 解码参数不变：新 SPS/PPS 作为 BUFFER_FLAG_CODEC_CONFIG 输入送入 */
+        IN_BAND,
+        /** 分辨率不变、Profile 等变化：同一实例 stop → configure → start */
+        RESTART,
+        /** 分辨率变化：释放并重建解码器 */
+        RECREATE
+    }
     
     // ========== 状态标志 ==========
     private volatile boolean isStreaming = false;
     private volatile boolean decoderConfigured = false;
-    private volatile boolean needReconfigure = false;
+    private volatile boolean needReconfigure = false; // 释放并重建解码器（模式切换、不可恢复错误、分辨率变化）
+    private volatile DecodeMode decodeMode = DecodeMode.ASYNC;
+    private volatile PlayoutMode playoutMode = DEFAULT_PLAYOUT_MODE;
+    private volatile boolean dropStaleFrames = DEFAULT_PLAYOUT_MODE.dropStaleFrames;
+    private volatile int decoderTimeoutUs = DEFAULT_PLAYOUT_MODE.decoderTimeoutUs;
+    private volatile boolean nackEnabled = true;
+    private volatile boolean waitingForKeyFrame = true; // 参考帧丢失/解码出错后，只放行 IDR
+    private volatile int fecPayloadType = UlpfecReceiver.DEFAULT_PAYLOAD_TYPE;
+    private volatile VideoCodec videoCodec = VideoCodec.H264; // 未按 Payload Type 识别时使用的编码格式
+    private volatile int h265PayloadType = DEFAULT_H265_PAYLOAD_TYPE; // 该 PT 的包按 H.265 解包，负数关闭
+    private volatile VideoCodec streamCodec = VideoCodec.H264; // 当前流实际使用的编码格式（接收线程写）
+    private VideoCodec decoderCodec = null;                    // 当前解码器实例的编码格式（持有 codecLock）
+    private DecodeMode activeDecodeMode = DecodeMode.ASYNC; // 当前解码器实例实际使用的模式
     
     private String serverIp = null;
     
     // ========== 线程和组件 ==========
     private Thread receiveThread;
     private Thread decodeThread;
-    private DatagramSocket udpSocket;
-    private MediaCodec decoder;
+    private volatile RtpUdpReceiver udpReceiver;
+    private volatile MediaCodec decoder;
     private Surface decodeSurface;
+    private HandlerThread codecCallbackThread;
+    private Handler codecCallbackHandler;
     
     // ========== 数据结构 ==========
-    private final BlockingQueue<byte[]> naluQueue = new LinkedBlockingQueue<>(NALU_QUEUE_SIZE);
-    private final ByteBuffer rtpBuffer = ByteBuffer.allocate(200000); // 200KB
+    // ⭐ 池化访问单元缓冲区：最大队列深度 + 接收线程填充中 1 个 + 解码线程持有 1 个
+    // ⭐ 单个缓冲区容量在收到 SPS 后按分辨率调整
+    private final NaluBufferPool naluPool = new NaluBufferPool(PlayoutMode.MAX_QUEUE_DEPTH + 2, DEFAULT_ACCESS_UNIT_SIZE);
+    // ⭐ 接收线程 → 解码线程：无锁 SPSC 环形队列，有效深度由播放模式决定
+    private final SpscRingBuffer<NaluBuffer> naluQueue = new SpscRingBuffer<>(PlayoutMode.MAX_QUEUE_DEPTH);
+    // ⭐ 异步模式：回调线程提供的空闲输入缓冲区索引 (索引 < 128 走 Integer 缓存，无分配)
+    private final SpscRingBuffer<Integer> freeInputBuffers = new SpscRingBuffer<>(MAX_CODEC_INPUT_BUFFERS);
+    // ⭐ 解码器会话：每次 configure 递增并清空空闲索引（持有 inputIndexLock），
+    // 原地重配置复用同一 MediaCodec 实例，只能靠会话号丢弃上一会话排队中的回调
+    private final Object inputIndexLock = new Object();
+    private volatile int decoderSession = 0;
     
-    // ========== RTP 状态 ==========
-    private int lastSequence = -1;
-    private boolean isAssemblingFUA = false;
-    private int currentFUAType = -1;
+    // ========== RTP 重排 + 解包 ==========
+    private final RtpDepacketizer.NaluListener naluListener = new RtpDepacketizer.NaluListener() {
+        @Override public void onNalu(byte[] data, int offset, int length, long rtpTimestamp, boolean marker) {
+            CameraStreamView.this.onNalu(data, offset, length, rtpTimestamp, marker);
+        }
+        @Override public void onPacketLoss(int expectedSeq, int receivedSeq, int lost) {
+            CameraStreamView.this.onPacketLoss(expectedSeq, receivedSeq, lost);
+        }
+    };
+    private final RtpH264Depacketizer h264Depacketizer = new RtpH264Depacketizer(naluListener, MAX_NALU_SIZE);
+    private final RtpH265Depacketizer h265Depacketizer = new RtpH265Depacketizer(naluListener, MAX_NALU_SIZE);
+    // ⭐ 当前编码格式的解包器，只在接收线程切换和使用
+    private RtpDepacketizer depacketizer = h264Depacketizer;
+    // ⭐ 乱序包先在重排缓冲区中等待缺口补齐，再按序送入解包器
+    private final RtpReorderBuffer reorderBuffer = new RtpReorderBuffer(
+        (packet, arrivalNanos) -> {
+            markPacketArrival(packet, arrivalNanos);
+            depacketizer.process(packet);
+        }, REORDER_CAPACITY, MAX_PACKET_SIZE, DEFAULT_PLAYOUT_MODE.reorderHoldMs);
+    // ⭐ RFC 3550 接收统计（丢包率 / 抖动），定期以 RTCP RR 发回发送端
+    private final RtpReceptionStats receptionStats = new RtpReceptionStats();
+    private volatile RtcpReporter rtcpReporter;
+    // ⭐ 缺口检测 → Generic NACK 请求重传；放弃时间按实测 RTT 延长，有待重传项时重排缓冲区同步延长等待
+    private final NackGenerator nackGenerator = new NackGenerator(DEFAULT_PLAYOUT_MODE.reorderHoldMs);
+    // 播放模式的乱序等待时间（无待重传项时重排缓冲区使用）
+    private volatile int reorderHoldMs = DEFAULT_PLAYOUT_MODE.reorderHoldMs;
+    // ⭐ XOR 奇偶校验 FEC：在重排之前还原丢失的媒体包
+    private final UlpfecReceiver fecReceiver = new UlpfecReceiver(this::onRecoveredPacket, MAX_PACKET_SIZE);
+    // ⭐ 按 RTP 时间戳 + Marker 位把 NALU 聚合为访问单元，一帧只送一次解码器
+    private final AccessUnitAssembler accessUnitAssembler = new AccessUnitAssembler(naluPool, this::enqueueNALU);
     
-    // ========== SPS/PPS 缓存 ==========
+    // ========== VPS/SPS/PPS 缓存 ==========
+    private byte[] vps = null; // 仅 H.265
     private byte[] sps = null;
     private byte[] pps = null;
+    private SequenceParameterSet spsInfo = null; // 解析后的 SPS（分辨率、Profile、帧率）
+    // ⭐ 参数集变化后，随下一个 IDR 生效的解码器更新方式（接收线程登记，解码线程执行）
+    private final AtomicReference<ConfigChange> pendingConfigChange = new AtomicReference<>(ConfigChange.NONE);
     private final Object codecLock = new Object();
     
     // ========== 性能统计 ==========
     private long totalBytes = 0;
     private long lastStatsTime = System.currentTimeMillis();
-    private int decodedFrames = 0;
-    private int droppedPackets = 0;
+    // 解码线程（同步模式）和回调线程（异步模式）写，接收线程 printStats 读取并清零
+    private final AtomicInteger decodedFrames = new AtomicInteger();
+    private long lastAccessUnits = 0;
+    private long lastAssembledNalus = 0;
+    private long lastDroppedNalus = 0;
+    private long lastMalformedPackets = 0;
+    private long lastOversizedPackets = 0;
+    private int consecutiveErrors = 0;
+    private int inputStarvedDrops = 0;
+    private int staleFramesDropped = 0;
+    private int framesSkippedForKeyFrame = 0;
+    private int nonReferenceFramesDropped = 0;
+    private int referenceFramesDropped = 0;
     private long lastIFrameTime = System.currentTimeMillis();
     
+    // ========== 显示排期 ==========
+    // ⭐ 巡检等平滑模式按 PTS 均匀显示；只在输出线程（同步模式解码线程 / 异步回调线程）访问
+    private final PlayoutClock playoutClock = new PlayoutClock(0);
+    private PlayoutMode clockMode = null;
+    
+    // ========== 延迟统计 ==========
+    // ⭐ 网络到达 → 组帧 → 排队 → 解码 → 渲染，各阶段直方图
+    private final FrameLatencyTracker latencyTracker = new FrameLatencyTracker();
+    private long frameArrivalNanos = 0;       // 当前帧首包到达时间
+    private int lastPacketRtpTimestamp = 0;   // 上一个包的原始 RTP 时间戳
+    
     // ========== UI ==========
     private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
     private volatile String statusMessage = "未连接";
@@ -101,6 +206,8 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
         textPaint.setTextSize(40f);
         textPaint.setStyle(Paint.Style.FILL);
         textPaint.setShadowLayer(5f, 2f, 2f, Color.BLACK);
+        
+        naluQueue.setLimit(DEFAULT_PLAYOUT_MODE.queueDepth);
     }
 
     // ========== 公共接口 ==========
@@ -116,6 +223,117 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
         }
     }
 
+    /**
+     * 设置解码线程等待 NALU 的策略
+     * 低延迟模式可使用 YIELDING / BUSY_SPIN，代价是额外的 CPU 占用
+     */
+    public void setQueueWaitStrategy(SpscRingBuffer.WaitStrategy strategy) {
+        naluQueue.setWaitStrategy(strategy);
+        Log.i(TAG, "队列等待策略: " + strategy);
+    }
+
+    /**
+     * 切换解码驱动方式（同步轮询 / 异步回调）
+     * 播放中调用时，解码线程会在下一轮用新模式重建解码器
+     */
+    public void setDecodeMode(DecodeMode mode) {
+        if (mode == null || mode == decodeMode) return;
+        decodeMode = mode;
+        Log.i(TAG, "解码模式切换为: " + mode);
+        if (decoderConfigured && activeDecodeMode != mode) {
+            needReconfigure = true;
+        }
+    }
+
+    public DecodeMode getDecodeMode() {
+        return decodeMode;
+    }
+
+    /**
+     * 启用/关闭丢包重传请求 (RTCP Generic NACK)
+     * 需要发送端在 RTCP 端口上响应 NACK（见 rtp_nack_relay.py），否则请求会被忽略
+     */
+    public void setNackEnabled(boolean enabled) {
+        this.nackEnabled = enabled;
+        Log.i(TAG, "NACK 重传请求: " + (enabled ? "开启" : "关闭"));
+    }
+
+    /**
+     * 设置 FEC 包的 RTP Payload Type（需与发送端一致），负数关闭 FEC 解码
+     */
+    public void setFecPayloadType(int payloadType) {
+        this.fecPayloadType = payloadType;
+        Log.i(TAG, "FEC Payload Type: " + (payloadType < 0 ? "关闭" : payloadType));
+    }
+
+    /**
+     * 设置视频编码格式（需与发送端一致），播放中切换会在下一个包到达时重置解包并重建解码器
+     */
+    public void setVideoCodec(VideoCodec codec) {
+        if (codec == null) return;
+        this.videoCodec = codec;
+        Log.i(TAG, "视频编码: " + codec.displayName);
+    }
+
+    public VideoCodec getVideoCodec() {
+        return streamCodec;
+    }
+
+    /**
+     * 登记 H.265 流的 RTP Payload Type：该 PT 的包按 H.265 解包，其余按 {@link #setVideoCodec} 的设置
+     * gstreamer rtph264pay / rtph265pay 默认都是 96，自动识别要求发送端使用不同的 PT（默认 97）；负数关闭
+     */
+    public void setH265PayloadType(int payloadType) {
+        this.h265PayloadType = payloadType;
+        Log.i(TAG, "H.265 Payload Type: " + (payloadType < 0 ? "不识别" : payloadType));
+    }
+
+    /**
+     * 设置乱序缺口的最长等待时间 (0 ~ 40ms 为宜)
+     * 0 表示关闭重排，任何序号不连续都立即视为丢包
+     */
+    public void setReorderHoldMillis(int millis) {
+        reorderHoldMs = millis;
+        reorderBuffer.setMaxHoldMillis(millis);
+        nackGenerator.setMaxAgeMillis(millis);
+        Log.i(TAG, "乱序等待时间: " + millis + "ms");
+    }
+
+    /**
+     * 逐帧分阶段延迟统计（网络到达 → 访问单元完成 → 送入解码器 → 解码输出 → 渲染）
+     */
+    public FrameLatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
+    /**
+     * 同步模式下多帧同时就绪时是否只渲染最新一帧（默认开启）
+     * 关闭后按顺序渲染全部帧，画面更平滑但延迟会累积
+     */
+    public void setDropStaleFrames(boolean drop) {
+        this.dropStaleFrames = drop;
+    }
+    
+    /**
+     * 切换播放模式（任意线程，播放中立即生效，无需重启视频流）
+     * 同时设置队列深度、乱序等待时间、过期帧丢弃、显示排期和解码器等待时间
+     */
+    public void setPlayoutMode(PlayoutMode mode) {
+        if (mode == null) return;
+        playoutMode = mode;
+        naluQueue.setLimit(mode.queueDepth);
+        setReorderHoldMillis(mode.reorderHoldMs);
+        dropStaleFrames = mode.dropStaleFrames;
+        decoderTimeoutUs = mode.decoderTimeoutUs;
+        Log.i(TAG, String.format("🎛️ 播放模式: %s (队列 %d 帧, 乱序等待 %dms, %s, 排期延迟 %dms)",
+            mode.displayName, mode.queueDepth, mode.reorderHoldMs,
+            mode.dropStaleFrames ? "丢弃过期帧" : "显示全部帧", mode.playoutDelayMs));
+    }
+    
+    public PlayoutMode getPlayoutMode() {
+        return playoutMode;
+    }
+
     /**
      * 开始接收流
      */
@@ -127,10 +345,13 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
         }
         
         isStreaming = true;
+        waitingForKeyFrame = true; // 解码必须从 IDR 开始
+        clockMode = null;          // 显示排期重新对齐
+        latencyTracker.reset();
         statusMessage = "连接中...";
         postInvalidate();
         
-        Log.i(TAG, String.format("🚀 启动 H.264/RTP 流: %s:%d (320x240@20fps)", serverIp, UDP_PORT));
+        Log.i(TAG, String.format("🚀 启动 %s/RTP 流: %s:%d (%s)", videoCodec.displayName, serverIp, UDP_PORT, decodeMode));
         
         receiveThread = new Thread(this::receiveLoop, "RTP-Receiver");
         decodeThread = new Thread(this::decodeLoop, "H264-Decoder");
@@ -148,26 +369,53 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
         
         isStreaming = false;
         statusMessage = "已停止";
-        Log.i(TAG, "⏹️ 停止 H.264 流");
+        Log.i(TAG, "⏹️ 停止视频流");
         
-        // 中断线程
+        // 中断线程，关闭 UDP 通道让接收线程从 receive 返回
         if (receiveThread != null) receiveThread.interrupt();
         if (decodeThread != null) decodeThread.interrupt();
+        closeReceiver(udpReceiver);
+        
+        // ⭐ 先等接收 / 解码线程退出再清理：naluQueue / freeInputBuffers 是 SPSC 队列，
+        //    主线程只能在原消费者（解码线程）结束之后接手出队；
+        //    重排缓冲、解包器和聚合器同样只属于接收线程。不能持有 codecLock 等待
+        boolean quiesced = joinThread(receiveThread) & joinThread(decodeThread);
+        receiveThread = null;
+        decodeThread = null;
         
-        // 清理资源
+        // 清理资源（解码线程已退出，主线程是 freeInputBuffers 唯一的消费者）
         synchronized (codecLock) {
             releaseDecoder();
         }
+        stopCodecCallbackThread();
         
-        if (udpSocket != null && !udpSocket.isClosed()) {
-            udpSocket.close();
+        if (quiesced) {
+            clearNaluQueue();
+            reorderBuffer.reset();
+            h264Depacketizer.reset();
+            h265Depacketizer.reset();
+            accessUnitAssembler.reset();
+        } else {
+            // 线程仍在运行时不能碰它们的队列；残留缓冲区留在队列中，不影响正确性
+            Log.w(TAG, "⚠️ 接收/解码线程未在 " + THREAD_JOIN_TIMEOUT_MS + "ms 内退出，跳过队列清理");
         }
         
-        naluQueue.clear();
-        rtpBuffer.clear();
-        
         postInvalidate();
     }
+    
+    /**
+     * 等待线程退出（主线程调用，带超时）
+     * @return 线程已结束
+     */
+    private static boolean joinThread(Thread thread) {
+        if (thread == null) return true;
+        try {
+            thread.join(THREAD_JOIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !thread.isAlive();
+    }
 
     // ========== Surface 回调 ==========
     
@@ -200,52 +448,21 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
     private boolean initDecoder() {
         synchronized (codecLock) {
             try {
-                // 验证 SPS/PPS
-                if (sps == null || pps == null) {
+                // 验证参数集
+                if (!parameterSetsReady()) {
                     Log.w(TAG, "SPS/PPS 未就绪，无法初始化解码器");
                     return false;
                 }
                 
                 // 释放旧解码器
                 releaseDecoder();
+                pendingConfigChange.set(ConfigChange.NONE); // 新实例直接使用最新的 SPS/PPS
                 
-                Log.i(TAG, String.format("初始化解码器: SPS=%d bytes, PPS=%d bytes", sps.length, pps.length));
-                
-                // 创建 H.264 解码器
-                decoder = MediaCodec.createDecoderByType(MediaFormat.MIMETYPE_VIDEO_AVC);
-                
-                // 配置解码格式
-                MediaFormat format = MediaFormat.createVideoFormat(
-                    MediaFormat.MIMETYPE_VIDEO_AVC, 
-                    VIDEO_WIDTH, 
-                    VIDEO_HEIGHT
-                );
+                Log.i(TAG, String.format("初始化解码器: %s, SPS=%d bytes, PPS=%d bytes", spsInfo, sps.length, pps.length));
                 
-                // ⭐ 关键配置
-                format.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, 150000);
-                format.setInteger(MediaFormat.KEY_PRIORITY, 0); // 最高优先级
-                
-                // 设置 SPS/PPS (CSD - Codec Specific Data)
-                format.setByteBuffer("csd-0", ByteBuffer.wrap(sps));
-                format.setByteBuffer("csd-1", ByteBuffer.wrap(pps));
-                
-                // ⭐ 厂商特定低延迟优化 (可选)
-                try {
-                    format.setInteger("vendor.qti-ext-dec-low-latency.enable", 1);
-                } catch (Exception e) {
-                    Log.d(TAG, "厂商扩展不支持: " + e.getMessage());
-                }
-                
-                // 配置并启动解码器
-                decoder.configure(format, decodeSurface, null, 0);
-                decoder.start();
-                
-                decoderConfigured = true;
-                needReconfigure = false;
-                statusMessage = "播放中";
-                postInvalidate();
-                
-                Log.i(TAG, "✅ 解码器已启动 (320x240 @ 20fps)");
+                // 按当前流的编码格式创建解码器
+                MediaCodec codec = MediaCodec.createDecoderByType(streamCodec.mimeType);
+                configureDecoder(codec);
                 return true;
                 
             } catch (IOException e) {
@@ -257,6 +474,94 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
         }
     }
     
+    /**
+     * 不释放 MediaCodec，在同一实例上 stop → configure → start（省去组件创建的数百毫秒）
+     * 失败时回退到完整重建
+     */
+    private boolean restartDecoder() {
+        synchronized (codecLock) {
+            MediaCodec codec = decoder;
+            if (codec == null || !parameterSetsReady() || decodeMode != activeDecodeMode
+                    || decoderCodec != streamCodec) {
+                return initDecoder();
+            }
+            long start = System.nanoTime();
+            try {
+                codec.stop();
+                decoderConfigured = false;
+                configureDecoder(codec); // 换会话并清空旧会话的空闲索引
+                Log.i(TAG, String.format("♻️ 解码器原地重配置完成 (%.1f ms)", (System.nanoTime() - start) / 1e6));
+                return true;
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                Log.w(TAG, "原地重配置失败，重建解码器", e);
+                return initDecoder();
+            }
+        }
+    }
+    
+    /**
+     * 按当前 SPS/PPS 配置并启动解码器（持有 codecLock，codec 处于 Uninitialized 状态）
+     */
+    private void configureDecoder(MediaCodec codec) {
+        SequenceParameterSet info = spsInfo;
+        VideoCodec videoFormat = streamCodec;
+        DecodeMode mode = decodeMode;
+        
+        // 配置解码格式
+        MediaFormat format = MediaFormat.createVideoFormat(
+            videoFormat.mimeType, 
+            info.getWidth(), 
+            info.getHeight()
+        );
+        
+        // ⭐ 关键配置：输入缓冲区与访问单元缓冲池同样大小
+        format.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, naluPool.bufferCapacity());
+        format.setInteger(MediaFormat.KEY_PRIORITY, 0); // 最高优先级
+        
+        // 设置参数集 (CSD - Codec Specific Data)
+        if (videoFormat == VideoCodec.H265) {
+            // H.265：VPS + SPS + PPS 全部放在 csd-0
+            format.setByteBuffer("csd-0", parameterSets());
+        } else {
+            format.setByteBuffer("csd-0", ByteBuffer.wrap(sps));
+            format.setByteBuffer("csd-1", ByteBuffer.wrap(pps));
+        }
+        
+        // ⭐ 厂商特定低延迟优化 (可选)
+        try {
+            format.setInteger("vendor.qti-ext-dec-low-latency.enable", 1);
+        } catch (Exception e) {
+            Log.d(TAG, "厂商扩展不支持: " + e.getMessage());
+        }
+        
+        // ⭐ 新会话：此后上一会话（含同一实例 stop 之前）的回调全部作废
+        int session = newDecoderSession();
+        
+        // ⭐ 异步模式：必须在 configure 之前注册回调
+        if (mode == DecodeMode.ASYNC) {
+            codec.setCallback(new AsyncCallback(session), startCodecCallbackThread());
+        }
+        
+        // ⭐ 实际显示时间回调，用于渲染阶段延迟统计
+        codec.setOnFrameRenderedListener(
+            (c, presentationTimeUs, nanoTime) -> latencyTracker.onRendered(presentationTimeUs, nanoTime),
+            startCodecCallbackThread());
+        
+        // 配置并启动解码器
+        decoder = codec;
+        decoderCodec = videoFormat;
+        activeDecodeMode = mode;
+        codec.configure(format, decodeSurface, null, 0);
+        codec.start();
+        
+        decoderConfigured = true;
+        needReconfigure = false;
+        statusMessage = "播放中";
+        postInvalidate();
+        
+        Log.i(TAG, "✅ 解码器已启动 (" + info + ", " + mode + ")");
+    }
+    
     /**
      * 释放解码器资源
      */
@@ -272,43 +577,121 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
             decoder = null;
         }
         decoderConfigured = false;
+        newDecoderSession();
+    }
+    
+    /**
+     * 启动 MediaCodec 回调线程（异步模式）
+     */
+    private Handler startCodecCallbackThread() {
+        if (codecCallbackThread == null) {
+            codecCallbackThread = new HandlerThread("H264-Codec-Callback", Process.THREAD_PRIORITY_DISPLAY);
+            codecCallbackThread.start();
+            codecCallbackHandler = new Handler(codecCallbackThread.getLooper());
+        }
+        return codecCallbackHandler;
+    }
+    
+    private void stopCodecCallbackThread() {
+        if (codecCallbackThread != null) {
+            codecCallbackThread.quitSafely();
+            codecCallbackThread = null;
+            codecCallbackHandler = null;
+        }
+    }
+    
+    /**
+     * 作废当前会话的回调并清空空闲输入索引（消费者线程调用：解码线程，或解码线程退出后的主线程）
+     */
+    private int newDecoderSession() {
+        synchronized (inputIndexLock) {
+            drainFreeInputBuffers();
+            return ++decoderSession;
+        }
+    }
+    
+    private void drainFreeInputBuffers() {
+        while (freeInputBuffers.poll() != null) {
+            // 丢弃旧解码器实例的输入索引
+        }
+    }
+    
+    /**
+     * 异步模式回调（运行在 H264-Codec-Callback 线程），只处理所属会话的事件
+     */
+    private final class AsyncCallback extends MediaCodec.Callback {
+        private final int session;
+        
+        AsyncCallback(int session) {
+            this.session = session;
+        }
+        
+        @Override
+        public void onInputBufferAvailable(MediaCodec codec, int index) {
+            // 检查与入队必须和 configureDecoder 的换会话 + 清空互斥，否则旧索引可能在清空之后入队
+            synchronized (inputIndexLock) {
+                if (session != decoderSession) return; // 旧会话的残留回调
+                if (!freeInputBuffers.offer(index)) {
+                    Log.w(TAG, "空闲输入缓冲区索引溢出: " + index);
+                }
+            }
+        }
+        
+        @Override
+        public void onOutputBufferAvailable(MediaCodec codec, int index, MediaCodec.BufferInfo info) {
+            if (session != decoderSession) return;
+            latencyTracker.onDecoded(info.presentationTimeUs, System.nanoTime());
+            try {
+                renderOutput(codec, index, info.presentationTimeUs); // 输出即渲染（或按 PTS 排期）
+                decodedFrames.incrementAndGet();
+            } catch (IllegalStateException e) {
+                // 解码器正在停止/释放
+            }
+        }
+        
+        @Override
+        public void onError(MediaCodec codec, MediaCodec.CodecException e) {
+            Log.e(TAG, "❌ 异步解码错误: " + e.getDiagnosticInfo(), e);
+            if (session != decoderSession) return;
+            if (!e.isTransient()) {
+                needReconfigure = true;
+            }
+            enterKeyFrameWait("解码错误", true);
+        }
+        
+        @Override
+        public void onOutputFormatChanged(MediaCodec codec, MediaFormat format) {
+            Log.i(TAG, "输出格式变化: " + format);
+        }
     }
 
     // ========== RTP 接收线程 ==========
     
     private void receiveLoop() {
+        RtpUdpReceiver receiver = null;
         try {
-            // 绑定 UDP Socket
-            udpSocket = new DatagramSocket(null);
-            udpSocket.setReuseAddress(true);
-            udpSocket.bind(new InetSocketAddress(UDP_PORT));
-            udpSocket.setReceiveBufferSize(500000); // 500KB 缓冲
-            udpSocket.setSoTimeout(100); // 100ms 超时，用于检查停止标志
+            // 绑定 UDP 通道（直接缓冲区 + Selector，无数据时不再周期性唤醒）
+            receiver = new RtpUdpReceiver(new InetSocketAddress(UDP_PORT), MAX_PACKET_SIZE, UDP_RECEIVE_BUFFER_SIZE);
+            udpReceiver = receiver;
+            if (!isStreaming) return; // 绑定期间已被停止
             
-            byte[] buffer = new byte[MAX_PACKET_SIZE];
-            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            receptionStats.reset();
+            nackGenerator.reset();
+            fecReceiver.reset();
+            rtcpReporter = new RtcpReporter(receptionStats, new InetSocketAddress(serverIp, RTCP_PORT),
+                    RtcpReporter.DEFAULT_INTERVAL_MS, "controller@android");
+            rtcpReporter.setNackGenerator(nackGenerator);
+            rtcpReporter.requestKeyFrame(true); // 尽快拿到第一个 IDR
             
-            Log.i(TAG, "📡 UDP 监听: 0.0.0.0:" + UDP_PORT);
+            Log.i(TAG, "📡 UDP 监听: 0.0.0.0:" + UDP_PORT + " | RTCP → " + serverIp + ":" + RTCP_PORT);
             statusMessage = "等待数据...";
             postInvalidate();
             
-            int consecutiveErrors = 0;
-            
-            while (isStreaming) {
+            while (isStreaming && !receiver.isClosed()) {
                 try {
-                    udpSocket.receive(packet);
-                    consecutiveErrors = 0; // 重置错误计数
-                    
-                    totalBytes += packet.getLength();
-                    
-                    // 处理 RTP 包
-                    processRtpPacket(packet.getData(), packet.getLength());
-                    
-                    printStats();
-                    
-                } catch (java.net.SocketTimeoutException e) {
-                    // 超时是正常的，用于检查 isStreaming 标志
-                } catch (Exception e) {
+                    receiver.run(packetHandler);
+                } catch (RuntimeException e) {
+                    // 单包处理异常不终止接收，连续出错才退出
                     consecutiveErrors++;
                     if (consecutiveErrors > 10) {
                         Log.e(TAG, "连续 10 次接收错误，退出接收循环", e);
@@ -319,222 +702,448 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
             }
             
         } catch (Exception e) {
-            Log.e(TAG, "❌ UDP 接收错误", e);
-            statusMessage = "网络错误";
-            postInvalidate();
+            if (isStreaming) {
+                Log.e(TAG, "❌ UDP 接收错误", e);
+                statusMessage = "网络错误";
+                postInvalidate();
+            }
         } finally {
-            if (udpSocket != null && !udpSocket.isClosed()) {
-                udpSocket.close();
-                Log.d(TAG, "UDP Socket 已关闭");
+            if (receiver != null) {
+                closeReceiver(receiver);
+                Log.d(TAG, "UDP 通道已关闭");
+            }
+            if (rtcpReporter != null) {
+                try {
+                    rtcpReporter.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "关闭 RTCP 通道失败", e);
+                }
+                rtcpReporter = null;
             }
         }
     }
     
     /**
-     * 处理单个 RTP 包
+     * 接收线程回调：按序交给重排缓冲区，空闲时处理缺口超时
      */
-    private void processRtpPacket(byte[] data, int length) {
-        if (length < RTP_HEADER_SIZE) {
-            droppedPackets++;
-            return;
+    private final RtpUdpReceiver.PacketHandler packetHandler = new RtpUdpReceiver.PacketHandler() {
+        @Override public void onPacket(ByteBuffer packet, long arrivalNanos) {
+            totalBytes += packet.remaining();
+            if (packet.remaining() < RtpH264Depacketizer.RTP_HEADER_SIZE) {
+                reorderBuffer.push(packet, arrivalNanos); // 交给解包器统计无效包
+                return;
+            }
+            
+            // FEC 包单独处理，不进入媒体统计和解包
+            int payloadType = packet.get(packet.position() + 1) & 0x7F;
+            if (payloadType == fecPayloadType) {
+                fecReceiver.onFecPacket(packet, arrivalNanos);
+                return;
+            }
+            
+            // ⭐ 按 Payload Type / 设置选择解包器
+            VideoCodec codec = payloadType == h265PayloadType ? VideoCodec.H265 : videoCodec;
+            if (codec != streamCodec) {
+                switchCodec(codec, payloadType);
+            }
+            
+            receptionStats.onPacket(packet, arrivalNanos); // 按实际到达顺序统计抖动（FEC 恢复前）
+            if (nackEnabled) {
+                nackGenerator.onPacket(packet.getShort(packet.position() + 2) & 0xFFFF, arrivalNanos);
+                updateReorderHold();
+            }
+            if (fecPayloadType >= 0) {
+                fecReceiver.onMediaPacket(packet, arrivalNanos); // 可能先还原出更早的丢失包
+            }
+            
+            // 处理 RTP 包（经重排缓冲区按序送入解包器）
+            reorderBuffer.push(packet, arrivalNanos);
+            consecutiveErrors = 0;
+            
+            printStats();
         }
         
-        // ========== 解析 RTP Header (RFC 3550) ==========
-
-        boolean padding = (data[0] & 0x20) != 0;
-        boolean hasExtension = (data[0] & 0x10) != 0;
-        int csrcCount = data[0] & 0x0F;
-        int sequence = ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
-        
-        // 检测丢包
-        if (lastSequence != -1) {
-            int expectedSeq = (lastSequence + 1) & 0xFFFF;
-            if (sequence != expectedSeq) {
-                int lost = (sequence - expectedSeq) & 0xFFFF;
-                Log.w(TAG, String.format("⚠️ 丢包 %d 个 (期望 %d, 收到 %d)", lost, expectedSeq, sequence));
-                droppedPackets += lost;
-                
-                // 重置 FU-A 组装状态
-                rtpBuffer.clear();
-                isAssemblingFUA = false;
+        @Override public long onWakeup(long nowNanos) {
+            // ⭐ 缺口等待超时则判定丢包；有暂存包时只等到下一个截止时间
+            updateReorderHold();
+            reorderBuffer.flushExpired(nowNanos);
+            long waitNanos = reorderBuffer.nanosUntilNextDeadline(nowNanos);
+            
+            // ⭐ 等待 IDR 期间持续请求关键帧（限速，防止 PLI 本身丢失）
+            if (waitingForKeyFrame) {
+                rtcpReporter.requestKeyFrame(false);
             }
+            
+            // ⭐ 到期发送 RTCP 接收报告 / NACK / PLI / FIR
+            long reportWait = rtcpReporter.poll(nowNanos);
+            return waitNanos < 0 ? reportWait : Math.min(waitNanos, reportWait);
         }
-        lastSequence = sequence;
-        
-        // 计算 Payload 偏移
-        int headerSize = RTP_HEADER_SIZE + (csrcCount * 4);
-        if (hasExtension && length > headerSize + 4) {
-            int extLen = ((data[headerSize + 2] & 0xFF) << 8) | (data[headerSize + 3] & 0xFF);
-            headerSize += 4 + (extLen * 4);
+    };
+    
+    /**
+     * 切换编码格式（接收线程）：丢弃旧格式的暂存包和半成品访问单元，
+     * 清空参数集缓存，收到新格式的参数集后随第一个关键帧重建解码器
+     */
+    private void switchCodec(VideoCodec codec, int payloadType) {
+        Log.i(TAG, String.format("🎞️ 视频编码切换: %s → %s (PT %d)",
+            streamCodec.displayName, codec.displayName, payloadType));
+        reorderBuffer.reset();
+        depacketizer.reset();
+        depacketizer = codec == VideoCodec.H265 ? h265Depacketizer : h264Depacketizer;
+        accessUnitAssembler.setCodec(codec);
+        synchronized (codecLock) {
+            vps = null;
+            sps = null;
+            pps = null;
+            spsInfo = null;
+            streamCodec = codec;
         }
-        
-        if (padding && length > headerSize) {
-            int paddingLen = data[length - 1] & 0xFF;
-            length -= paddingLen;
+        waitingForKeyFrame = true;
+    }
+    
+    /**
+     * 接收线程：有待重传的序号时，重排缓冲区至少等到 NACK 放弃时间（按 RTT 计算），
+     * 否则 RTT 超过播放模式的等待时间时重传包总是迟到；没有待重传项时恢复原等待时间
+     */
+    private void updateReorderHold() {
+        int hold = reorderHoldMs;
+        if (nackEnabled && hold > 0 && nackGenerator.getPendingCount() > 0) {
+            hold = Math.max(hold, nackGenerator.getMaxAgeMillis());
         }
-        
-        if (headerSize >= length) {
-            droppedPackets++;
-            return;
+        if (hold != reorderBuffer.getMaxHoldMillis()) {
+            reorderBuffer.setMaxHoldMillis(hold);
         }
-        
-        int payloadSize = length - headerSize;
-        
-        // ========== 处理 H.264 Payload (RFC 6184) ==========
-        
-        int nalUnitType = data[headerSize] & 0x1F;
-        
-        if (nalUnitType == 28) {
-            // FU-A 分片包
-            processFUAPacket(data, headerSize, payloadSize);
-        } else if (nalUnitType >= 1 && nalUnitType <= 23) {
-            // 单个 NAL 单元
-            processSingleNALU(data, headerSize, payloadSize);
-        } else {
-            Log.w(TAG, "不支持的 NAL 类型: " + nalUnitType);
+    }
+    
+    /**
+     * FEC 还原出的媒体包：和正常到达的包一样进入重排缓冲区
+     */
+    private void onRecoveredPacket(ByteBuffer packet, long arrivalNanos) {
+        if (nackEnabled) {
+            nackGenerator.onPacket(packet.getShort(packet.position() + 2) & 0xFFFF, arrivalNanos);
+        }
+        reorderBuffer.push(packet, arrivalNanos);
+    }
+    
+    private void closeReceiver(RtpUdpReceiver receiver) {
+        if (receiver == null) return;
+        try {
+            receiver.close();
+        } catch (IOException e) {
+            Log.w(TAG, "关闭 UDP 通道失败", e);
         }
     }
     
     /**
-     * 处理 FU-A 分片包
+     * 记录每帧首个数据包的到达时间（RTP 时间戳变化即新的一帧）
      */
-    private void processFUAPacket(byte[] data, int offset, int length) {
-        if (length < 2) return;
-        
-        byte fuIndicator = data[offset];
-        byte fuHeader = data[offset + 1];
-        
-        boolean isStart = (fuHeader & 0x80) != 0;
-        boolean isEnd = (fuHeader & 0x40) != 0;
-        int nalType = fuHeader & 0x1F;
-        
-        if (isStart) {
-            // FU-A 开始
-            rtpBuffer.clear();
-            
-            // 添加起始码
-            rtpBuffer.put(new byte[]{0x00, 0x00, 0x00, 0x01});
-            
-            // 重建 NAL Header
-            byte nalHeader = (byte) ((fuIndicator & 0xE0) | nalType);
-            rtpBuffer.put(nalHeader);
-            
-            // 添加 Payload
-            if (rtpBuffer.remaining() >= length - 2) {
-                rtpBuffer.put(data, offset + 2, length - 2);
-                isAssemblingFUA = true;
-                currentFUAType = nalType;
-            } else {
-                Log.w(TAG, "FU-A 起始片段过大，丢弃");
-                rtpBuffer.clear();
-                isAssemblingFUA = false;
-            }
-            
-        } else if (isAssemblingFUA && currentFUAType == nalType) {
-            // FU-A 中间或结束片段
-            if (rtpBuffer.remaining() >= length - 2) {
-                rtpBuffer.put(data, offset + 2, length - 2);
-            } else {
-                Log.w(TAG, "FU-A 缓冲区溢出，丢弃整个 NALU");
-                rtpBuffer.clear();
-                isAssemblingFUA = false;
-                return;
-            }
-            
-            if (isEnd) {
-                // FU-A 结束，提取完整 NALU
-                byte[] nalu = new byte[rtpBuffer.position()];
-                rtpBuffer.flip();
-                rtpBuffer.get(nalu);
-                rtpBuffer.clear();
-                isAssemblingFUA = false;
-                
-                enqueueNALU(nalu);
-            }
-        } else {
-            // 状态不匹配，重置
-            if (isAssemblingFUA) {
-                Log.w(TAG, "FU-A 序列中断，重置缓冲区");
-            }
-            rtpBuffer.clear();
-            isAssemblingFUA = false;
+    private void markPacketArrival(ByteBuffer packet, long arrivalNanos) {
+        if (packet.remaining() < 8) return;
+        int rtpTimestamp = packet.getInt(packet.position() + 4);
+        if (rtpTimestamp != lastPacketRtpTimestamp || frameArrivalNanos == 0) {
+            lastPacketRtpTimestamp = rtpTimestamp;
+            frameArrivalNanos = arrivalNanos;
         }
     }
     
     /**
-     * 处理单个 NAL 单元
+     * 解包器回调：检测到丢包
      */
-    private void processSingleNALU(byte[] data, int offset, int length) {
-        // 创建带起始码的 NALU
-        byte[] nalu = new byte[length + 4];
-        nalu[0] = 0x00;
-        nalu[1] = 0x00;
-        nalu[2] = 0x00;
-        nalu[3] = 0x01;
-        System.arraycopy(data, offset, nalu, 4, length);
-        
-        enqueueNALU(nalu);
+    private void onPacketLoss(int expectedSeq, int receivedSeq, int lost) {
+        Log.w(TAG, String.format("⚠️ 丢包 %d 个 (期望 %d, 收到 %d)", lost, expectedSeq, receivedSeq));
+        // 重传/FEC 都未能补回：当前帧不完整，后续 P 帧的参考数据也已缺失
+        accessUnitAssembler.discardCurrent();
+        enterKeyFrameWait("丢包", false);
+    }
+    
+    /**
+     * 进入"等待 IDR"状态：停止送入 P 帧，并向发送端请求关键帧（任意线程）
+     * @param fullIntra true 发送 FIR（解码器重置），false 发送 PLI
+     */
+    private void enterKeyFrameWait(String reason, boolean fullIntra) {
+        if (!waitingForKeyFrame) {
+            waitingForKeyFrame = true;
+            Log.w(TAG, "⚠️ " + reason + "，暂停送入 P 帧，请求关键帧 (" + (fullIntra ? "FIR" : "PLI") + ")");
+        }
+        requestKeyFrame(fullIntra);
     }
     
     /**
-     * 将 NALU 加入解码队列
+     * 请求关键帧并唤醒接收线程发送 RTCP（限速在 RtcpReporter 中完成）
      */
-    private void enqueueNALU(byte[] nalu) {
-        if (nalu == null || nalu.length < 5) return;
+    private void requestKeyFrame(boolean fullIntra) {
+        RtcpReporter reporter = rtcpReporter;
+        if (reporter == null) return;
+        reporter.requestKeyFrame(fullIntra);
+        RtpUdpReceiver receiver = udpReceiver;
+        if (receiver != null) receiver.wakeup();
+    }
+    
+    /**
+     * 解包器回调：收到完整 NALU（不含起始码，数据仅在回调期间有效）
+     */
+    private void onNalu(byte[] data, int offset, int length, long rtpTimestamp, boolean marker) {
+        VideoCodec codec = streamCodec;
+        if (length < (codec == VideoCodec.H265 ? 2 : 1)) return;
         
-        int nalType = nalu[4] & 0x1F;
+        int nalType = codec.nalType(data, offset);
         
-        // ========== 处理 SPS (7) ==========
-        if (nalType == 7) {
-            synchronized (codecLock) {
-                byte[] newSps = Arrays.copyOf(nalu, nalu.length);
-                if (sps == null || !Arrays.equals(sps, newSps)) {
-                    Log.i(TAG, "📝 收到 SPS 参数集 (" + nalu.length + " bytes)");
-                    sps = newSps;
-                    
-                    if (decoderConfigured) {
-                        Log.w(TAG, "SPS 参数变化，需要重新配置解码器");
-                        needReconfigure = true;
-                    }
+        // ========== 处理 VPS (H.265: 32) ==========
+        if (nalType == codec.vpsType) {
+            if (!sameAsCached(vps, data, offset, length)) {
+                synchronized (codecLock) {
+                    Log.i(TAG, "📝 收到 VPS 参数集 (" + (length + 4) + " bytes)");
+                    vps = withStartCode(data, offset, length);
+                }
+                scheduleConfigChange(ConfigChange.IN_BAND);
+            }
+            return; // VPS 随 csd / 参数集输入送入解码器
+        }
+        
+        // ========== 处理 SPS (H.264: 7 / H.265: 33) ==========
+        // ⭐ config-interval=1 时每个 IDR 前都有 SPS/PPS：sps/pps 只由本线程写入，
+        //    先无锁比较，字节未变直接返回，不与解码线程争用 codecLock
+        if (nalType == codec.spsType) {
+            if (!sameAsCached(sps, data, offset, length)) {
+                synchronized (codecLock) {
+                    onSpsChanged(data, offset, length);
                 }
             }
             return; // SPS 不送入解码器
         }
         
-        // ========== 处理 PPS (8) ==========
-        if (nalType == 8) {
-            synchronized (codecLock) {
-                byte[] newPps = Arrays.copyOf(nalu, nalu.length);
-                if (pps == null || !Arrays.equals(pps, newPps)) {
-                    Log.i(TAG, "📝 收到 PPS 参数集 (" + nalu.length + " bytes)");
-                    pps = newPps;
-                    
-                    if (decoderConfigured) {
-                        Log.w(TAG, "PPS 参数变化，需要重新配置解码器");
-                        needReconfigure = true;
-                    }
+        // ========== 处理 PPS (H.264: 8 / H.265: 34) ==========
+        if (nalType == codec.ppsType) {
+            if (!sameAsCached(pps, data, offset, length)) {
+                synchronized (codecLock) {
+                    Log.i(TAG, "📝 收到 PPS 参数集 (" + (length + 4) + " bytes)");
+                    pps = withStartCode(data, offset, length);
                 }
+                scheduleConfigChange(ConfigChange.IN_BAND);
             }
             return; // PPS 不送入解码器
         }
         
-        // ========== 检测 I 帧 (IDR - 5) ==========
-        if (nalType == 5) {
+        // ========== 检测关键帧 (H.264 IDR / H.265 IRAP) ==========
+        if (codec.isRandomAccessPoint(nalType)) {
             lastIFrameTime = System.currentTimeMillis();
-            Log.d(TAG, "🔑 收到 I 帧 (IDR)");
+            Log.d(TAG, "🔑 收到 I 帧 (" + (codec == VideoCodec.H264 ? "IDR" : "IRAP " + nalType) + ")");
+        }
+        
+        // ========== 聚合为访问单元（拷贝到池化缓冲区） ==========
+        accessUnitAssembler.onNalu(data, offset, length, rtpTimestamp, marker, frameArrivalNanos);
+    }
+    
+    /**
+     * SPS 字节变化：解析并按需调整缓冲区 / 登记解码器更新（持有 codecLock）
+     * - 解码参数不变（VUI 等字段变化）：参数集随码流送入
+     * - 分辨率不变：同一实例原地重配置
+     * - 分辨率变化：重建解码器
+     */
+    private void onSpsChanged(byte[] data, int offset, int length) {
+        SequenceParameterSet parsed = streamCodec.parseSps(data, offset, length);
+        if (parsed == null) {
+            Log.w(TAG, "⚠️ SPS 解析失败，忽略 (" + length + " bytes)");
+            return;
         }
+        Log.i(TAG, "📝 收到 SPS 参数集: " + parsed + " (" + (length + 4) + " bytes)");
+        sps = withStartCode(data, offset, length);
         
-        // ========== 加入解码队列 ==========
-        if (!naluQueue.offer(nalu)) {
-            // 队列满，移除最旧的帧
-            naluQueue.poll();
-            if (!naluQueue.offer(nalu)) {
-                // 如果仍然失败，记录警告
-                Log.w(TAG, "队列仍然满，丢弃当前帧");
+        SequenceParameterSet previous = spsInfo;
+        spsInfo = parsed;
+        if (parsed.sameDecodingParameters(previous)) {
+            scheduleConfigChange(ConfigChange.IN_BAND);
+            return;
+        }
+        
+        // ⭐ 访问单元缓冲区按分辨率估算，限制在 [64KB, 1MB]
+        int capacity = Math.max(MIN_ACCESS_UNIT_SIZE, Math.min(MAX_NALU_SIZE, parsed.maxAccessUnitSize()))
+            + NaluBuffer.START_CODE_SIZE;
+        if (capacity != naluPool.bufferCapacity()) {
+            naluPool.setBufferCapacity(capacity);
+            Log.i(TAG, "访问单元缓冲区调整为 " + capacity / 1024 + " KB");
+        }
+        
+        if (previous != null) {
+            Log.w(TAG, "SPS 解码参数变化 (" + previous + " → " + parsed + ")");
+            scheduleConfigChange(parsed.sameResolution(previous) ? ConfigChange.RESTART : ConfigChange.RECREATE);
+        } else if (decoderCodec != streamCodec) {
+            // 编码格式切换后的第一个 SPS：现有解码器的 MIME 类型不对，必须重建
+            scheduleConfigChange(ConfigChange.RECREATE);
+        }
+    }
+    
+    /**
+     * 登记解码器更新，由解码线程在下一个 IDR 送入前执行（多次变化取代价最高的方式）
+     */
+    private void scheduleConfigChange(ConfigChange change) {
+        if (!decoderConfigured) return; // 尚未创建的解码器会直接使用最新参数集
+        ConfigChange merged = pendingConfigChange.accumulateAndGet(change,
+            (current, requested) -> current.compareTo(requested) >= 0 ? current : requested);
+        Log.i(TAG, "参数集变化，下一个 IDR 前更新解码器: " + merged);
+    }
+    
+    /**
+     * 执行登记的解码器更新（解码线程，在带新参数集的 IDR 送入前调用）
+     * @return 解码器不可用时返回 false
+     */
+    private boolean applyConfigChange() throws InterruptedException {
+        if (!parameterSetsReady()) {
+            return true; // 编码格式切换中：保留登记，等新格式的参数集到达后随关键帧更新
+        }
+        ConfigChange change = pendingConfigChange.getAndSet(ConfigChange.NONE);
+        switch (change) {
+            case IN_BAND:
+                if (queueParameterSets()) {
+                    Log.i(TAG, "📝 新参数集已随码流送入解码器");
+                    return true;
+                }
+                Log.w(TAG, "无空闲输入缓冲区送入参数集，改为原地重配置");
+                return restartDecoder();
+            case RESTART:
+                return restartDecoder();
+            case RECREATE:
+                return initDecoder();
+            case NONE:
+            default:
+                return true;
+        }
+    }
+    
+    /**
+     * 以 BUFFER_FLAG_CODEC_CONFIG 送入 (VPS +) SPS + PPS，解码器无需停止
+     */
+    private boolean queueParameterSets() throws InterruptedException {
+        Integer asyncIndex = null;
+        if (activeDecodeMode == DecodeMode.ASYNC) {
+            asyncIndex = freeInputBuffers.poll(decoderTimeoutUs, TimeUnit.MICROSECONDS);
+            if (asyncIndex == null) return false;
+        }
+        synchronized (codecLock) {
+            if (decoder == null || !decoderConfigured) return false;
+            int inputIndex = asyncIndex != null ? asyncIndex : decoder.dequeueInputBuffer(decoderTimeoutUs);
+            if (inputIndex < 0) return false;
+            
+            ByteBuffer parameterSets = parameterSets();
+            int size = parameterSets.remaining();
+            ByteBuffer inputBuffer = decoder.getInputBuffer(inputIndex);
+            inputBuffer.clear();
+            inputBuffer.put(parameterSets);
+            decoder.queueInputBuffer(inputIndex, 0, size, 0, MediaCodec.BUFFER_FLAG_CODEC_CONFIG);
+            return true;
+        }
+    }
+    
+    /**
+     * 当前编码格式需要的参数集是否都已收到
+     */
+    private boolean parameterSetsReady() {
+        return sps != null && pps != null && spsInfo != null
+            && (streamCodec != VideoCodec.H265 || vps != null);
+    }
+    
+    /**
+     * 拼接全部参数集 (Annex-B)：H.264 为 SPS + PPS，H.265 为 VPS + SPS + PPS（持有 codecLock）
+     */
+    private ByteBuffer parameterSets() {
+        byte[] first = streamCodec == VideoCodec.H265 ? vps : null;
+        int size = (first != null ? first.length : 0) + sps.length + pps.length;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        if (first != null) buffer.put(first);
+        buffer.put(sps);
+        buffer.put(pps);
+        buffer.flip();
+        return buffer;
+    }
+    
+    /**
+     * 将完整访问单元加入解码队列
+     */
+    private void enqueueNALU(NaluBuffer nalu) {
+        // ⭐ 有待生效的参数集变化：标记在其后的关键帧上，解码线程送入该帧前更新解码器
+        if (nalu.isKeyFrame() && pendingConfigChange.get() != ConfigChange.NONE) {
+            nalu.parameterSetsChanged = true;
+        }
+        
+        // ⭐ 参考数据缺失时，P 帧只会解出花屏：丢弃直到 IDR 到达
+        if (waitingForKeyFrame) {
+            if (!nalu.isKeyFrame()) {
+                naluPool.release(nalu);
+                framesSkippedForKeyFrame++;
                 return;
             }
-            Log.d(TAG, "队列满，丢弃旧帧");
+            if (nalu.isRandomAccessPoint()) {
+                waitingForKeyFrame = false;
+                Log.i(TAG, "🔑 收到关键帧，恢复解码");
+            }
+        }
+        
+        // ⭐ 切换到更浅的播放模式后，先回收超出新深度的旧帧
+        NaluBuffer excess;
+        while ((excess = naluQueue.pollOverLimit()) != null) {
+            onFrameDropped(excess, nalu);
+        }
+        
+        // ⭐ 队列满时按帧类型取舍：优先丢非参考帧，IDR 不让位给 P 帧
+        NaluBuffer dropped = naluQueue.offerEvictOldest(nalu, CameraStreamView::canEvict);
+        if (dropped != null) {
+            onFrameDropped(dropped, nalu);
+        }
+    }
+    
+    /**
+     * 统计并回收未能送入解码器的帧；丢失参考帧时等待 IDR
+     * @param incoming 本次入队的帧（dropped == incoming 表示新帧被拒绝）
+     */
+    private void onFrameDropped(NaluBuffer dropped, NaluBuffer incoming) {
+        if (!dropped.isReference()) {
+            nonReferenceFramesDropped++;
+        } else {
+            referenceFramesDropped++;
+            // 被丢的帧之后的 P 帧都缺参考，入队的是 IDR 时解码链重新开始
+            if (dropped == incoming || !incoming.isKeyFrame()) {
+                enterKeyFrameWait("队列满，丢弃参考帧", false);
+            }
         }
+        naluPool.release(dropped);
+    }
+    
+    /**
+     * 队列满时是否淘汰最旧的帧：
+     * - 最旧帧不被参考（nal_ref_idc == 0）：直接淘汰
+     * - 新帧是 IDR：之前的帧都不再需要，淘汰
+     * - 其余情况拒绝新帧，保持已排队帧的参考链完整
+     */
+    private static boolean canEvict(NaluBuffer oldest, NaluBuffer incoming) {
+        return !oldest.isReference() || incoming.isKeyFrame();
+    }
+    
+    /**
+     * 清空解码队列并归还全部缓冲区
+     */
+    private void clearNaluQueue() {
+        NaluBuffer nalu;
+        while ((nalu = naluQueue.poll()) != null) {
+            naluPool.release(nalu);
+        }
+    }
+    
+    /**
+     * 原地比较参数集，避免每个关键帧都复制一次 SPS/PPS
+     */
+    private static boolean sameAsCached(byte[] cached, byte[] data, int offset, int length) {
+        if (cached == null || cached.length != length + 4) return false;
+        for (int i = 0; i < length; i++) {
+            if (cached[i + 4] != data[offset + i]) return false;
+        }
+        return true;
+    }
+    
+    private static byte[] withStartCode(byte[] data, int offset, int length) {
+        byte[] nalu = new byte[length + 4];
+        nalu[3] = 0x01;
+        System.arraycopy(data, offset, nalu, 4, length);
+        return nalu;
     }
 
     // ========== 解码线程 ==========
@@ -545,7 +1154,7 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
         
         // ⭐ 等待 SPS/PPS
         Log.d(TAG, "等待 SPS/PPS 参数集...");
-        while (isStreaming && (sps == null || pps == null)) {
+        while (isStreaming && !parameterSetsReady()) {
             try {
                 Thread.sleep(500);
                 if (System.currentTimeMillis() - lastStatsTime > 3000) {
@@ -579,65 +1188,54 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
                 // 检查是否需要重新配置解码器
                 if (needReconfigure) {
                     Log.i(TAG, "重新配置解码器...");
+                    boolean ready;
                     synchronized (codecLock) {
-                        if (!initDecoder()) {
-                            Log.e(TAG, "重新配置失败");
-                            break;
-                        }
+                        ready = initDecoder();
+                    }
+                    if (!ready) {
+                        // 解码线程不退出：等关键帧并稍后重试，否则画面停在"播放中"直到手动重启
+                        Log.e(TAG, "重新配置失败，稍后重试");
+                        enterKeyFrameWait("解码器重建失败", true);
+                        Thread.sleep(DECODER_RETRY_DELAY_MS);
+                        continue;
                     }
                 }
                 
-                // ⭐ 检测 I 帧超时
+                // ⭐ 检测 I 帧超时：请求关键帧（限速），照常等待队列，不再空转
                 long timeSinceLastIFrame = System.currentTimeMillis() - lastIFrameTime;
                 if (timeSinceLastIFrame > I_FRAME_TIMEOUT_MS) {
                     iFrameWarningCount++;
                     if (iFrameWarningCount % 10 == 1) {
-                        Log.w(TAG, String.format("⚠️ %d 秒未收到 I 帧，清空队列", timeSinceLastIFrame / 1000));
+                        Log.w(TAG, String.format("⚠️ %d 秒未收到 I 帧，请求关键帧", timeSinceLastIFrame / 1000));
                     }
-                    naluQueue.clear();
-                    continue;
+                    requestKeyFrame(false);
                 } else {
                     iFrameWarningCount = 0;
                 }
                 
                 // 获取 NALU
-                byte[] nalu = naluQueue.poll(200, TimeUnit.MILLISECONDS);
+                NaluBuffer nalu = naluQueue.poll(200, TimeUnit.MILLISECONDS);
                 if (nalu == null) {
                     continue;
                 }
                 
                 // ⭐ 送入解码器
-                synchronized (codecLock) {
-                    if (decoder == null || !decoderConfigured) {
+                try {
+                    if (nalu.parameterSetsChanged && !applyConfigChange()) {
+                        // 丢弃这一帧，下一轮完整重建解码器并等待新的关键帧
+                        Log.e(TAG, "更新解码器配置失败，重建解码器");
+                        needReconfigure = true;
+                        enterKeyFrameWait("解码器配置更新失败", true);
                         continue;
                     }
-                    
-                    int inputIndex = decoder.dequeueInputBuffer(DECODER_TIMEOUT_US);
-                    if (inputIndex >= 0) {
-                        ByteBuffer inputBuffer = decoder.getInputBuffer(inputIndex);
-                        inputBuffer.clear();
-                        inputBuffer.put(nalu);
-                        
-                        decoder.queueInputBuffer(
-                            inputIndex, 
-                            0, 
-                            nalu.length, 
-                            System.nanoTime() / 1000, 
-                            0
-                        );
-                    }
-                    
-                    // ⭐ 获取解码输出（渲染到 Surface）
-                    int outputIndex = decoder.dequeueOutputBuffer(bufferInfo, 0);
-                    
-                    if (outputIndex >= 0) {
-                        decoder.releaseOutputBuffer(outputIndex, true); // 直接渲染
-                        decodedFrames++;
-                        
-                    } else if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
-                        MediaFormat newFormat = decoder.getOutputFormat();
-                        Log.i(TAG, "输出格式变化: " + newFormat);
+                    if (activeDecodeMode == DecodeMode.ASYNC) {
+                        feedAsync(nalu);
+                    } else {
+                        decodeSync(nalu, bufferInfo);
                     }
+                } finally {
+                    // 数据已拷入 MediaCodec，立即归还缓冲区
+                    naluPool.release(nalu);
                 }
                 
             } catch (InterruptedException e) {
@@ -645,6 +1243,7 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
                 break;
             } catch (Exception e) {
                 Log.e(TAG, "解码异常", e);
+                enterKeyFrameWait("解码异常", true);
                 if (isStreaming) {
                     // 尝试恢复
                     try {
@@ -659,17 +1258,211 @@ public class CameraStreamView extends SurfaceView implements SurfaceHolder.Callb
         Log.i(TAG, "解码循环已退出");
     }
 
+    /**
+     * 同步模式：送入一个 NALU，然后排空全部已就绪的输出
+     */
+    private void decodeSync(NaluBuffer nalu, MediaCodec.BufferInfo bufferInfo) {
+        synchronized (codecLock) {
+            if (decoder == null || !decoderConfigured) {
+                return;
+            }
+            
+            int inputIndex = decoder.dequeueInputBuffer(decoderTimeoutUs);
+            if (inputIndex >= 0) {
+                queueNalu(inputIndex, nalu);
+            } else {
+                onInputStarved(nalu);
+            }
+            
+            // ⭐ 获取解码输出（渲染到 Surface）
+            drainOutput(bufferInfo);
+        }
+    }
+    
+    /**
+     * 解码器没有空闲输入缓冲区，NALU 未送入：参考帧丢失后需等待 IDR
+     */
+    private void onInputStarved(NaluBuffer nalu) {
+        inputStarvedDrops++;
+        if (nalu.isReference()) {
+            enterKeyFrameWait("解码器输入阻塞，丢弃参考帧", false);
+        }
+    }
+    
+    /**
+     * 排空解码器输出直到 INFO_TRY_AGAIN_LATER
+     * 多帧同时就绪时只渲染最新一帧，较旧的帧 render=false 直接释放，
+     * 网络抖动后画面立即回到"直播边缘"，而不是逐帧慢慢追赶
+     */
+    private void drainOutput(MediaCodec.BufferInfo bufferInfo) {
+        int latestIndex = -1;
+        long latestPts = 0;
+        
+        while (true) {
+            int outputIndex = decoder.dequeueOutputBuffer(bufferInfo, 0);
+            
+            if (outputIndex >= 0) {
+                latencyTracker.onDecoded(bufferInfo.presentationTimeUs, System.nanoTime());
+                if (latestIndex >= 0) {
+                    if (dropStaleFrames) {
+                        decoder.releaseOutputBuffer(latestIndex, false); // 过期帧不渲染
+                        latencyTracker.onDropped(latestPts);
+                        staleFramesDropped++;
+                    } else {
+                        renderOutput(decoder, latestIndex, latestPts);
+                        decodedFrames.incrementAndGet();
+                    }
+                }
+                latestIndex = outputIndex;
+                latestPts = bufferInfo.presentationTimeUs;
+                
+            } else if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                MediaFormat newFormat = decoder.getOutputFormat();
+                Log.i(TAG, "输出格式变化: " + newFormat);
+                
+            } else if (outputIndex == MediaCodec.INFO_TRY_AGAIN_LATER) {
+                break;
+            }
+            // INFO_OUTPUT_BUFFERS_CHANGED: API 21+ 无需处理，继续排空
+        }
+        
+        if (latestIndex >= 0) {
+            renderOutput(decoder, latestIndex, latestPts); // 渲染最新帧
+            decodedFrames.incrementAndGet();
+        }
+    }
+    
+    /**
+     * 渲染一个输出缓冲区（输出线程）：低延迟模式立即显示，平滑模式按 PTS 排期显示
+     */
+    private void renderOutput(MediaCodec codec, int index, long ptsUs) {
+        PlayoutMode mode = playoutMode;
+        if (mode != clockMode) {
+            playoutClock.setDelayMillis(mode.playoutDelayMs);
+            playoutClock.reset();
+            clockMode = mode;
+        }
+        if (mode.playoutDelayMs == 0) {
+            codec.releaseOutputBuffer(index, true);
+        } else {
+            codec.releaseOutputBuffer(index, playoutClock.renderTimeNanos(ptsUs, System.nanoTime()));
+        }
+    }
+    
+    /**
+     * 异步模式：等待回调线程提供的空闲输入缓冲区后立即送入，输出由回调渲染
+     */
+    private void feedAsync(NaluBuffer nalu) throws InterruptedException {
+        Integer inputIndex = freeInputBuffers.poll(decoderTimeoutUs, TimeUnit.MICROSECONDS);
+        if (inputIndex == null) {
+            onInputStarved(nalu);
+            return;
+        }
+        synchronized (codecLock) {
+            if (decoder == null || !decoderConfigured || activeDecodeMode != DecodeMode.ASYNC) {
+                return;
+            }
+            queueNalu(inputIndex, nalu);
+        }
+    }
+    
+    private void queueNalu(int inputIndex, NaluBuffer nalu) {
+        ByteBuffer inputBuffer = decoder.getInputBuffer(inputIndex);
+        inputBuffer.clear();
+        inputBuffer.put(nalu.data, 0, nalu.length);
+        
+        decoder.queueInputBuffer(
+            inputIndex, 
+            0, 
+            nalu.length, 
+            nalu.timestamp, 
+            0
+        );
+        latencyTracker.onQueued(nalu.timestamp, nalu.arrivalNanos, nalu.completeNanos, System.nanoTime());
+    }
+
     // ========== 性能统计 ==========
     
     private void printStats() {
         long now = System.currentTimeMillis();
         if (now - lastStatsTime >= 1000) {
             float kbps = totalBytes / 1024f;
-            Log.i(TAG, String.format("📊 %.1f KB/s | %d fps | 丢包: %d | 队列: %d", 
-                kbps, decodedFrames, droppedPackets, naluQueue.size()));
+            int fps = decodedFrames.getAndSet(0);
+            Log.i(TAG, String.format("📊 %.1f KB/s | %d fps | 丢包: %d | 乱序恢复: %d | 迟到: %d | 不支持: %d | 队列: %d | 空闲缓冲: %d/%d", 
+                kbps, fps, depacketizer.getDroppedPackets(),
+                reorderBuffer.getReorderedPackets(), reorderBuffer.getLatePackets(),
+                depacketizer.getUnsupportedPackets(), naluQueue.size(),
+                naluPool.available(), naluPool.size()));
+            if (staleFramesDropped > 0) {
+                Log.d(TAG, "跳过过期帧 " + staleFramesDropped + " 个");
+                staleFramesDropped = 0;
+            }
+            if (framesSkippedForKeyFrame > 0) {
+                RtcpReporter reporter = rtcpReporter;
+                Log.d(TAG, String.format("🔑 等待 IDR，跳过 %d 帧 | 已发 PLI %d / FIR %d", 
+                    framesSkippedForKeyFrame,
+                    reporter != null ? reporter.getSentPli() : 0, reporter != null ? reporter.getSentFir() : 0));
+                framesSkippedForKeyFrame = 0;
+            }
+            if (nonReferenceFramesDropped > 0 || referenceFramesDropped > 0) {
+                Log.d(TAG, String.format("🗑️ 队列满丢帧: 非参考帧 %d | 参考帧 %d", 
+                    nonReferenceFramesDropped, referenceFramesDropped));
+                nonReferenceFramesDropped = 0;
+                referenceFramesDropped = 0;
+            }
+            if (inputStarvedDrops > 0) {
+                Log.w(TAG, "解码器无空闲输入缓冲区，丢弃 NALU " + inputStarvedDrops + " 个");
+                inputStarvedDrops = 0;
+            }
+            
+            // 访问单元聚合效果：每秒 queueInputBuffer 次数 vs NALU 个数
+            long accessUnits = accessUnitAssembler.getAccessUnits();
+            long nalus = accessUnitAssembler.getNalus();
+            long droppedNalus = accessUnitAssembler.getDroppedNalus();
+            Log.d(TAG, String.format("访问单元: %d/s (NALU %d/s)", 
+                accessUnits - lastAccessUnits, nalus - lastAssembledNalus));
+            if (droppedNalus > lastDroppedNalus) {
+                Log.w(TAG, "缓冲池耗尽或帧过大，丢弃 NALU " + (droppedNalus - lastDroppedNalus) + " 个");
+            }
+            if (latencyTracker.count(FrameLatencyTracker.Stage.TOTAL) > 0) {
+                Log.d(TAG, "⏱️ 延迟 p50/p95: " + latencyTracker.summary());
+            }
+            lastAccessUnits = accessUnits;
+            lastAssembledNalus = nalus;
+            lastDroppedNalus = droppedNalus;
+            
+            if (receptionStats.hasSource()) {
+                Log.d(TAG, String.format("📶 RTCP: 抖动 %.1fms | 区间丢包率 %.1f%% | 累计丢失 %d | 已发 RR %d", 
+                    receptionStats.getJitterMs(), receptionStats.getLastFractionLost() * 100f / 256,
+                    receptionStats.getCumulativeLost(), rtcpReporter != null ? rtcpReporter.getSentReports() : 0));
+            }
+            
+            if (nackGenerator.getRequestedPackets() > 0) {
+                Log.d(TAG, String.format("🔁 NACK: 请求 %d | 恢复 %d | 放弃 %d | RTT %.1fms | 等待 %dms", 
+                    nackGenerator.getRequestedPackets(), nackGenerator.getRecoveredPackets(),
+                    nackGenerator.getAbandonedPackets(), nackGenerator.getRttMillis(),
+                    nackGenerator.getMaxAgeMillis()));
+            }
+            
+            if (fecReceiver.getFecPackets() > 0) {
+                Log.d(TAG, String.format("🛡️ FEC: 恢复 %d | 无法恢复组 %d | 最终丢失 %d", 
+                    fecReceiver.getRecoveredPackets(), fecReceiver.getUnrecoverableGroups(),
+                    reorderBuffer.getLostPackets()));
+            }
+            
+            long malformed = depacketizer.getMalformedPackets();
+            if (malformed > lastMalformedPackets) {
+                Log.w(TAG, "STAP-A 长度字段非法，丢弃 " + (malformed - lastMalformedPackets) + " 包");
+                lastMalformedPackets = malformed;
+            }
+            
+            long oversized = reorderBuffer.getOversizedPackets();
+            if (oversized > lastOversizedPackets) {
+                Log.w(TAG, "乱序包超过重排槽位大小，丢弃 " + (oversized - lastOversizedPackets) + " 包");
+                lastOversizedPackets = oversized;
+            }
             
             totalBytes = 0;
-            decodedFrames = 0;
             lastStatsTime = now;
         }
     }
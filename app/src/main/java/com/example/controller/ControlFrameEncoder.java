@@ -0,0 +1,155 @@
+package com.example.controller;
+
+/**
+ * 二进制控制帧编码器：替代 JoystickMsg + gson.toJson 的摇杆 JSON 文本帧
+ *
+ * 帧格式（网络字节序 / 大端，与 drone_server.py 中 decode_control_frame 对应）：
+ * <pre>
+ *  0        1        3                 7
+ *  +--------+--------+-----------------+---------------------------------+
+ *  |  type  |  seq   |  timestamp(ms)  |  vx | vy | vz | yaw_rate       |
+ *  +--------+--------+-----------------+---------------------------------+
+ *   uint8    uint16   uint32            4 × float16 (15 字节) / float32 (23 字节)
+ * </pre>
+ * - type：{@link #TYPE_JOYSTICK_F16} / {@link #TYPE_JOYSTICK_F32}
+ * - seq：每帧加 1，16 位回绕（比较方式同 RTP 序号）
+ * - timestamp：发送端单调时钟毫秒数的低 32 位，接收端用于计算指令年龄 / 抖动
+ *
+ * float16 在 ±0.5 m/s、±0.79 rad/s 量程内精度约 0.0002，远小于摇杆本身的噪声。
+ *
+ * 缓冲区复用，编码过程不分配对象；非线程安全，由发送线程独占。
+ */
+public final class ControlFrameEncoder {
+
+    /** WebSocket 子协议：连接时协商，服务器选中后控制通道才发送二进制摇杆帧 */
+    public static final String SUBPROTOCOL = "drone-control.bin.v1";
+
+    public static final int TYPE_JOYSTICK_F32 = 0x10;
+    public static final int TYPE_JOYSTICK_F16 = 0x11;
+
+    public static final int HEADER_SIZE = 7;
+    public static final int JOYSTICK_F16_SIZE = HEADER_SIZE + 4 * 2;
+    public static final int JOYSTICK_F32_SIZE = HEADER_SIZE + 4 * 4;
+
+    private final byte[] buffer = new byte[JOYSTICK_F32_SIZE];
+    private final boolean halfPrecision;
+    private int sequence;
+
+    /**
+     * @param halfPrecision true 使用 float16 轴值（15 字节），false 使用 float32（23 字节）
+     */
+    public ControlFrameEncoder(boolean halfPrecision) {
+        this.halfPrecision = halfPrecision;
+    }
+
+    /**
+     * 编码一帧摇杆指令到内部缓冲区，序号自增
+     * @return 帧长度，帧数据见 {@link #buffer()}
+     */
+    public int encodeJoystick(float vx, float vy, float vz, float yawRate, long timestampMs) {
+        byte[] b = buffer;
+        b[0] = (byte) (halfPrecision ? TYPE_JOYSTICK_F16 : TYPE_JOYSTICK_F32);
+        int seq = sequence;
+        sequence = (seq + 1) & 0xFFFF;
+        b[1] = (byte) (seq >> 8);
+        b[2] = (byte) seq;
+        int ts = (int) timestampMs;
+        b[3] = (byte) (ts >> 24);
+        b[4] = (byte) (ts >> 16);
+        b[5] = (byte) (ts >> 8);
+        b[6] = (byte) ts;
+
+        if (halfPrecision) {
+            putShort(b, 7, floatToHalf(vx));
+            putShort(b, 9, floatToHalf(vy));
+            putShort(b, 11, floatToHalf(vz));
+            putShort(b, 13, floatToHalf(yawRate));
+            return JOYSTICK_F16_SIZE;
+        }
+        putInt(b, 7, Float.floatToRawIntBits(vx));
+        putInt(b, 11, Float.floatToRawIntBits(vy));
+        putInt(b, 15, Float.floatToRawIntBits(vz));
+        putInt(b, 19, Float.floatToRawIntBits(yawRate));
+        return JOYSTICK_F32_SIZE;
+    }
+
+    /**
+     * 最近一次编码结果（下次编码会被覆盖）
+     */
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * 下一帧将使用的序号
+     */
+    public int nextSequence() {
+        return sequence;
+    }
+
+    public boolean isHalfPrecision() {
+        return halfPrecision;
+    }
+
+    // ========== float16 (IEEE 754 binary16) ==========
+    // minSdk 24 没有 android.util.Half（API 26），Float.floatToFloat16 需要 JDK 20
+
+    /**
+     * float → binary16，就近舍入；溢出为 ±Inf，过小为次正规数 / ±0，保留 NaN
+     */
+    static int floatToHalf(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exp = (bits >>> 23) & 0xFF;
+        int mant = bits & 0x7FFFFF;
+
+        if (exp == 0xFF) {
+            return sign | 0x7C00 | (mant != 0 ? 0x200 : 0);
+        }
+        int e = exp - 127 + 15;
+        if (e >= 0x1F) {
+            return sign | 0x7C00;
+        }
+        if (e <= 0) {
+            if (e < -10) return sign;
+            // 次正规数：补上隐含位后右移，就近舍入（平局取偶）
+            mant |= 0x800000;
+            int shift = 14 - e;
+            int half = mant >> shift;
+            int rest = mant & ((1 << shift) - 1);
+            int midpoint = 1 << (shift - 1);
+            if (rest > midpoint || (rest == midpoint && (half & 1) != 0)) half++;
+            return sign | half;
+        }
+        int half = (e << 10) | (mant >> 13);
+        int rest = mant & 0x1FFF;
+        if (rest > 0x1000 || (rest == 0x1000 && (half & 1) != 0)) half++; // 进位可能溢出到 Inf，结果仍正确
+        return sign | half;
+    }
+
+    static float halfToFloat(int half) {
+        int sign = (half & 0x8000) << 16;
+        int exp = (half >>> 10) & 0x1F;
+        int mant = half & 0x3FF;
+        if (exp == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mant << 13));
+        }
+        if (exp == 0) {
+            float v = mant / 16777216f; // mant × 2^-24
+            return sign != 0 ? -v : v;
+        }
+        return Float.intBitsToFloat(sign | ((exp - 15 + 127) << 23) | (mant << 13));
+    }
+
+    private static void putShort(byte[] b, int offset, int value) {
+        b[offset] = (byte) (value >> 8);
+        b[offset + 1] = (byte) value;
+    }
+
+    private static void putInt(byte[] b, int offset, int value) {
+        b[offset] = (byte) (value >> 24);
+        b[offset + 1] = (byte) (value >> 16);
+        b[offset + 2] = (byte) (value >> 8);
+        b[offset + 3] = (byte) value;
+    }
+}
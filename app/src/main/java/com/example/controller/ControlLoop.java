@@ -0,0 +1,211 @@
+package com.example.controller;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 摇杆控制线程：独占摇杆采样与发送，不受主线程布局 / Toast / 遥测 UI 刷新影响
+ *
+ * - 专用单线程 ScheduledThreadPoolExecutor，线程优先级 THREAD_PRIORITY_URGENT_DISPLAY
+ * - scheduleAtFixedRate 按绝对时刻 (start + n × period) 采样，单次延迟不会累积漂移；
+ *   超时的 tick 会被立即补跑，不会被跳过
+ * - 每个 tick 采样摇杆并交给 ControlSendScheduler 决定是否发送（变化即发 / 心跳）
+ * - 输入变化时 {@link #wake()} 立即额外评估一次，延迟不必等到下一个 tick；
+ *   落在合并窗口内的变化由窗口结束后的第一个 tick 发出
+ * - tick 间隔抖动 |实际间隔 - 周期| 记入直方图，每 {@link #STATS_INTERVAL_NANOS} 打印一次，
+ *   UI 繁忙时应保持平稳
+ */
+public final class ControlLoop implements Closeable {
+
+    private static final String TAG = "CONTROL_LOOP";
+
+    /** 采样周期：100Hz，输入延迟不超过 10ms（变化时还有 wake 立即评估） */
+    public static final int DEFAULT_TICK_MS = 10;
+    private static final long STATS_INTERVAL_NANOS = 10_000_000_000L;
+
+    /** 摇杆采样：按 throttle, yaw, pitch, roll 顺序写入 out（归一化 -1~1） */
+    public interface StickSource {
+        void sample(float[] out);
+    }
+
+    /** 发送归一化摇杆值（在控制线程中调用） */
+    public interface JoystickSink {
+        void send(float throttle, float yaw, float pitch, float roll);
+    }
+
+    private final StickSource source;
+    private final JoystickSink sink;
+    private final ControlSendScheduler scheduler;
+    private final long periodNanos;
+    private final ScheduledThreadPoolExecutor executor;
+    private final float[] sticks = new float[4];
+    private final AtomicBoolean wakePending = new AtomicBoolean(false);
+    private final Runnable wakeTask = this::onWake;
+    private volatile ScheduledFuture<?> tickFuture;
+
+    // ========== 抖动统计（jitter 加锁，其余只在控制线程读写） ==========
+    private final LatencyHistogram jitter = new LatencyHistogram();
+    private long lastTickNanos = 0;
+    private long nextStatsNanos = 0;
+    private volatile long ticks = 0;
+    private volatile long overruns = 0;
+    private volatile long sends = 0;
+
+    public ControlLoop(StickSource source, JoystickSink sink, ControlSendScheduler scheduler, int tickMs) {
+        this.source = source;
+        this.sink = sink;
+        this.scheduler = scheduler;
+        this.periodNanos = Math.max(1, tickMs) * 1_000_000L;
+        executor = new ScheduledThreadPoolExecutor(1, r -> new Thread(() -> {
+            try {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_DISPLAY);
+            } catch (RuntimeException e) {
+                // 提权失败不能让控制线程退出，按默认优先级继续采样
+                Log.w(TAG, "⚠️ 无法提升线程优先级: " + e.getMessage());
+            }
+            r.run();
+        }, "Control-Scheduler"));
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 开始固定频率采样（第一次 tick 立即发送当前值）
+     */
+    public synchronized void start() {
+        if (tickFuture != null) return;
+        executor.execute(() -> {
+            scheduler.reset();
+            lastTickNanos = 0;
+            nextStatsNanos = System.nanoTime() + STATS_INTERVAL_NANOS;
+        });
+        tickFuture = executor.scheduleAtFixedRate(this::tick, 0, periodNanos, TimeUnit.NANOSECONDS);
+        Log.i(TAG, "🎮 控制线程启动: " + (1_000_000_000L / periodNanos) + "Hz 采样");
+    }
+
+    /**
+     * 停止采样（可再次 start）
+     */
+    public synchronized void stop() {
+        if (tickFuture == null) return;
+        tickFuture.cancel(false);
+        tickFuture = null;
+    }
+
+    /**
+     * 摇杆输入变化（任意线程）：在控制线程立即评估一次，多次唤醒合并
+     */
+    public void wake() {
+        if (wakePending.compareAndSet(false, true)) {
+            try {
+                executor.execute(wakeTask);
+            } catch (RejectedExecutionException e) {
+                wakePending.set(false); // 已关闭
+            }
+        }
+    }
+
+    private void onWake() {
+        wakePending.set(false);
+        if (tickFuture == null) return;
+        evaluate(System.nanoTime());
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        try {
+            if (lastTickNanos != 0) {
+                long interval = now - lastTickNanos;
+                if (interval > 2 * periodNanos) overruns++;
+                synchronized (jitter) {
+                    jitter.record(Math.abs(interval - periodNanos));
+                }
+            }
+            lastTickNanos = now;
+            ticks++;
+            evaluate(now);
+
+            if (now - nextStatsNanos >= 0) {
+                nextStatsNanos = now + STATS_INTERVAL_NANOS;
+                Log.i(TAG, "📊 " + jitterSummary());
+            }
+        } catch (RuntimeException e) {
+            // scheduleAtFixedRate 遇到异常会停止后续执行，这里吞掉保证控制不中断
+            Log.e(TAG, "❌ 控制 tick 异常: " + e.getMessage(), e);
+        }
+    }
+
+    private void evaluate(long now) {
+        source.sample(sticks);
+        if (scheduler.update(now, sticks[0], sticks[1], sticks[2], sticks[3])) {
+            sink.send(sticks[0], sticks[1], sticks[2], sticks[3]);
+            sends++;
+        }
+    }
+
+    // ========== 统计 ==========
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    /** 间隔超过两个周期的 tick（控制线程被阻塞或被抢占） */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    public long getSends() {
+        return sends;
+    }
+
+    /** tick 间隔抖动均值 (ms)，无数据时 -1 */
+    public double getJitterMeanMs() {
+        synchronized (jitter) {
+            return jitter.meanMs();
+        }
+    }
+
+    /** tick 间隔抖动分位 (ms，1ms 分辨率)，无数据时 -1 */
+    public int getJitterPercentileMs(double percentile) {
+        synchronized (jitter) {
+            return jitter.percentileMs(percentile);
+        }
+    }
+
+    public double getJitterMaxMs() {
+        synchronized (jitter) {
+            return jitter.maxMs();
+        }
+    }
+
+    public String jitterSummary() {
+        synchronized (jitter) {
+            return String.format(Locale.US,
+                "tick=%dms ticks=%d sends=%d overruns=%d jitter mean=%.3fms p99=%dms max=%.3fms",
+                periodNanos / 1_000_000L, ticks, sends, overruns,
+                jitter.meanMs(), jitter.percentileMs(99), jitter.maxMs());
+        }
+    }
+
+    /**
+     * 停止并结束控制线程
+     */
+    @Override
+    public void close() {
+        stop();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(200, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Log.i(TAG, "控制线程已停止: " + jitterSummary());
+    }
+}
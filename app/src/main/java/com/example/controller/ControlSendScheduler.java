@@ -0,0 +1,140 @@
+package com.example.controller;
+
+/**
+ * 摇杆发送调度：变化即发 + 突发合并 + 低频心跳，替代固定 20Hz 发送
+ *
+ * - 变化即发：任一轴相对上次发送值的变化超过死区（或回到 0）立即发送，输入延迟不受发送周期限制
+ * - 突发合并：两次发送至少间隔 {@link #minIntervalNanos}，期间的连续变化合并为一次，发送最新值
+ * - 心跳：没有变化时按心跳间隔重发当前值；摇杆非零时心跳必须短于服务器的
+ *   VELOCITY_TIMEOUT (0.5s)，否则悬停中的速度指令会被清零；全部归零时只需保活
+ *
+ * 摇杆值为归一化输入 (-1~1)；纯 Java 实现，非线程安全，由发送线程独占。
+ */
+public final class ControlSendScheduler {
+
+    public static final float DEFAULT_DEADBAND = 0.02f;
+    public static final int DEFAULT_MIN_INTERVAL_MS = 20;        // 最高 50Hz
+    public static final int DEFAULT_ACTIVE_HEARTBEAT_MS = 200;   // 摇杆非零
+    public static final int DEFAULT_IDLE_HEARTBEAT_MS = 1000;    // 摇杆全部归零
+
+    private static final int AXES = 4;
+
+    private final float deadband;
+    private final long minIntervalNanos;
+    private final long activeHeartbeatNanos;
+    private final long idleHeartbeatNanos;
+
+    private final float[] lastSent = new float[AXES];
+    private long lastSendNanos;
+    private boolean hasSent = false;
+    /** 合并窗口内有未发送的变化 */
+    private boolean pending = false;
+
+    // ========== 统计 ==========
+    private long changeSends = 0;
+    private long heartbeatSends = 0;
+    private long coalescedChanges = 0;
+
+    public ControlSendScheduler() {
+        this(DEFAULT_DEADBAND, DEFAULT_MIN_INTERVAL_MS, DEFAULT_ACTIVE_HEARTBEAT_MS, DEFAULT_IDLE_HEARTBEAT_MS);
+    }
+
+    public ControlSendScheduler(float deadband, int minIntervalMs, int activeHeartbeatMs, int idleHeartbeatMs) {
+        this.deadband = deadband;
+        this.minIntervalNanos = minIntervalMs * 1_000_000L;
+        this.activeHeartbeatNanos = activeHeartbeatMs * 1_000_000L;
+        this.idleHeartbeatNanos = idleHeartbeatMs * 1_000_000L;
+    }
+
+    /**
+     * 用当前摇杆值判断是否需要发送；返回 true 时调用方必须立即发送这组值
+     */
+    public boolean update(long nowNanos, float throttle, float yaw, float pitch, float roll) {
+        if (!hasSent) {
+            return record(nowNanos, throttle, yaw, pitch, roll, true);
+        }
+        long elapsed = nowNanos - lastSendNanos;
+        if (changed(throttle, yaw, pitch, roll)) {
+            if (elapsed >= minIntervalNanos) {
+                return record(nowNanos, throttle, yaw, pitch, roll, true);
+            }
+            if (!pending) {
+                pending = true;
+            } else {
+                coalescedChanges++;
+            }
+            return false;
+        }
+        // 合并窗口内的变化又回到了上次发送值：无需再发
+        pending = false;
+        if (elapsed >= heartbeatNanos()) {
+            return record(nowNanos, throttle, yaw, pitch, roll, false);
+        }
+        return false;
+    }
+
+    /**
+     * 距下一次需要调用 update 的时间：合并窗口结束或心跳到期（输入变化时应立即调用，不必等待）
+     */
+    public long nanosUntilDue(long nowNanos) {
+        if (!hasSent) return 0;
+        long interval = pending ? minIntervalNanos : heartbeatNanos();
+        return Math.max(0, lastSendNanos + interval - nowNanos);
+    }
+
+    /**
+     * 重新开始（重连后第一次 update 立即发送）
+     */
+    public void reset() {
+        hasSent = false;
+        pending = false;
+    }
+
+    private long heartbeatNanos() {
+        for (float v : lastSent) {
+            if (v != 0f) return activeHeartbeatNanos;
+        }
+        return idleHeartbeatNanos;
+    }
+
+    private boolean changed(float throttle, float yaw, float pitch, float roll) {
+        return changed(lastSent[0], throttle) || changed(lastSent[1], yaw)
+            || changed(lastSent[2], pitch) || changed(lastSent[3], roll);
+    }
+
+    /**
+     * 超出死区，或在零与非零之间切换（松手归零必须精确送达，不能停在死区内的残值）
+     */
+    private boolean changed(float sent, float value) {
+        return Math.abs(value - sent) > deadband || ((sent == 0f) != (value == 0f));
+    }
+
+    private boolean record(long nowNanos, float throttle, float yaw, float pitch, float roll, boolean change) {
+        lastSent[0] = throttle;
+        lastSent[1] = yaw;
+        lastSent[2] = pitch;
+        lastSent[3] = roll;
+        lastSendNanos = nowNanos;
+        hasSent = true;
+        pending = false;
+        if (change) {
+            changeSends++;
+        } else {
+            heartbeatSends++;
+        }
+        return true;
+    }
+
+    public long getChangeSends() {
+        return changeSends;
+    }
+
+    public long getHeartbeatSends() {
+        return heartbeatSends;
+    }
+
+    /** 合并窗口内被后续变化覆盖、没有单独发送的变化次数 */
+    public long getCoalescedChanges() {
+        return coalescedChanges;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.controller;
+
+import java.util.Arrays;
+
+/**
+ * 逐帧流水线延迟统计
+ * 以呈现时间 (PTS，由 RTP 时间戳换算) 为键，把解码输出与该帧的网络到达时间对应起来，
+ * 分阶段记录直方图：
+ *
+ *   网络到达 → 访问单元完成 (ASSEMBLE)
+ *   访问单元完成 → 送入解码器 (QUEUE)
+ *   送入解码器 → 解码输出 (DECODE)
+ *   解码输出 → 实际渲染 (RENDER)
+ *   网络到达 → 实际渲染 (TOTAL)
+ *
+ * 所有时间均为 System.nanoTime() 基准。记录路径不分配内存。
+ * 线程安全：解码线程、MediaCodec 回调线程和统计线程会同时访问。
+ */
+public final class FrameLatencyTracker {
+
+    public enum Stage {
+        ASSEMBLE,
+        QUEUE,
+        DECODE,
+        RENDER,
+        TOTAL
+    }
+
+    private static final int MAX_IN_FLIGHT = 32;
+
+    // ========== 在途帧（环形覆盖最旧） ==========
+    private final long[] pts = new long[MAX_IN_FLIGHT];
+    private final long[] arrivalNanos = new long[MAX_IN_FLIGHT];
+    private final long[] decodedNanos = new long[MAX_IN_FLIGHT];
+    private final boolean[] inFlight = new boolean[MAX_IN_FLIGHT];
+    private int nextSlot = 0;
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+
+    public FrameLatencyTracker() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 帧已送入解码器
+     */
+    public synchronized void onQueued(long ptsUs, long arrivalNs, long completeNs, long queuedNs) {
+        histograms[Stage.ASSEMBLE.ordinal()].record(completeNs - arrivalNs);
+        histograms[Stage.QUEUE.ordinal()].record(queuedNs - completeNs);
+
+        int slot = nextSlot;
+        nextSlot = (nextSlot + 1) % MAX_IN_FLIGHT;
+        pts[slot] = ptsUs;
+        arrivalNanos[slot] = arrivalNs;
+        decodedNanos[slot] = queuedNs; // 解码前暂存送入时间
+        inFlight[slot] = true;
+    }
+
+    /**
+     * 解码器输出了该帧
+     */
+    public synchronized void onDecoded(long ptsUs, long decodedNs) {
+        int slot = find(ptsUs);
+        if (slot < 0) return;
+        histograms[Stage.DECODE.ordinal()].record(decodedNs - decodedNanos[slot]);
+        decodedNanos[slot] = decodedNs;
+    }
+
+    /**
+     * 该帧已显示到 Surface（OnFrameRenderedListener 回调）
+     */
+    public synchronized void onRendered(long ptsUs, long renderedNs) {
+        int slot = find(ptsUs);
+        if (slot < 0) return;
+        histograms[Stage.RENDER.ordinal()].record(renderedNs - decodedNanos[slot]);
+        histograms[Stage.TOTAL.ordinal()].record(renderedNs - arrivalNanos[slot]);
+        inFlight[slot] = false;
+    }
+
+    /**
+     * 该帧被丢弃（不渲染）
+     */
+    public synchronized void onDropped(long ptsUs) {
+        int slot = find(ptsUs);
+        if (slot >= 0) inFlight[slot] = false;
+    }
+
+    private int find(long ptsUs) {
+        for (int i = 0; i < MAX_IN_FLIGHT; i++) {
+            if (inFlight[i] && pts[i] == ptsUs) return i;
+        }
+        return -1;
+    }
+
+    // ========== 查询 ==========
+
+    public synchronized int percentileMs(Stage stage, double percentile) {
+        return histograms[stage.ordinal()].percentileMs(percentile);
+    }
+
+    public synchronized double meanMs(Stage stage) {
+        return histograms[stage.ordinal()].meanMs();
+    }
+
+    public synchronized long count(Stage stage) {
+        return histograms[stage.ordinal()].count();
+    }
+
+    /**
+     * 各阶段 p50/p95 摘要，用于日志
+     */
+    public synchronized String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram h = histograms[stage.ordinal()];
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append(stage.name()).append(' ')
+              .append(h.percentileMs(50)).append('/')
+              .append(h.percentileMs(95)).append("ms");
+        }
+        return sb.toString();
+    }
+
+    public synchronized void reset() {
+        for (LatencyHistogram h : histograms) {
+            h.reset();
+        }
+        Arrays.fill(inFlight, false);
+        nextSlot = 0;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.controller;
+
+/**
+ * H.264 RBSP 位读取器 (ITU-T H.264 7.2 / 9.1)
+ * 直接在 NALU 字节上读取，自动跳过防竞争字节 (00 00 03)，不复制、不分配。
+ * 支持 u(n)、ue(v)、se(v)；读越界时抛出 IllegalStateException，由调用方当作码流损坏处理。
+ *
+ * 可通过 reset() 复用，非线程安全。
+ */
+public final class H264BitReader {
+
+    // ========== slice_type (归一化到 0~4) ==========
+    public static final int SLICE_P = 0;
+    public static final int SLICE_B = 1;
+    public static final int SLICE_I = 2;
+    public static final int SLICE_SP = 3;
+    public static final int SLICE_SI = 4;
+
+    private byte[] data;
+    private int end;
+    private int bytePos;
+    private int bitPos;     // 当前字节内已读位数 (0~7)
+    private int zeroCount;  // 连续 0x00 字节数，用于识别防竞争字节
+
+    /**
+     * @param offset NALU 起始位置（含 1 字节 NAL Header，读取从 Header 之后开始）
+     * @param length NALU 长度
+     */
+    public H264BitReader reset(byte[] data, int offset, int length) {
+        this.data = data;
+        this.end = offset + length;
+        this.bytePos = offset + 1;
+        this.bitPos = 0;
+        this.zeroCount = 0;
+        skipEmulationPrevention();
+        return this;
+    }
+
+    /**
+     * 读 1 位
+     */
+    public int readBit() {
+        if (bytePos >= end) {
+            throw new IllegalStateException("RBSP 越界");
+        }
+        int bit = (data[bytePos] >> (7 - bitPos)) & 1;
+        if (++bitPos == 8) {
+            bitPos = 0;
+            zeroCount = data[bytePos] == 0 ? zeroCount + 1 : 0;
+            bytePos++;
+            skipEmulationPrevention();
+        }
+        return bit;
+    }
+
+    /**
+     * 读 n 位无符号数 u(n)，n <= 32
+     */
+    public int readBits(int n) {
+        int value = 0;
+        for (int i = 0; i < n; i++) {
+            value = (value << 1) | readBit();
+        }
+        return value;
+    }
+
+    /**
+     * 无符号 Exp-Golomb ue(v)
+     */
+    public int readUE() {
+        int leadingZeros = 0;
+        while (readBit() == 0) {
+            if (++leadingZeros > 30) {
+                throw new IllegalStateException("ue(v) 超出范围");
+            }
+        }
+        if (leadingZeros == 0) return 0;
+        return (1 << leadingZeros) - 1 + readBits(leadingZeros);
+    }
+
+    /**
+     * 有符号 Exp-Golomb se(v)
+     */
+    public int readSE() {
+        int k = readUE();
+        return (k & 1) != 0 ? (k + 1) >>> 1 : -(k >>> 1);
+    }
+
+    public void skipBits(int n) {
+        for (int i = 0; i < n; i++) {
+            readBit();
+        }
+    }
+
+    /**
+     * 是否还有未读的数据位
+     */
+    public boolean hasMoreData() {
+        return bytePos < end;
+    }
+
+    private void skipEmulationPrevention() {
+        if (zeroCount >= 2 && bytePos < end && data[bytePos] == 0x03) {
+            bytePos++;
+            zeroCount = 0;
+        }
+    }
+
+    // ========== Slice Header ==========
+
+    /**
+     * 解析 slice_type（first_mb_in_slice 之后的 ue(v)），按 0~4 归一化
+     * @return {@link #SLICE_P} 等取值，码流损坏时返回 -1
+     */
+    public int readSliceType(byte[] nal, int offset, int length) {
+        try {
+            reset(nal, offset, length);
+            readUE(); // first_mb_in_slice
+            int sliceType = readUE();
+            return sliceType <= 9 ? sliceType % 5 : -1;
+        } catch (IllegalStateException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.controller;
+
+/**
+ * H.264 序列参数集 (SPS) 解析结果 (ITU-T H.264 7.3.2.1.1 / E.1.1)
+ * 从码流中得到分辨率（已扣除裁剪）、Profile/Level、色度格式与 VUI 帧率，
+ * 用于配置 MediaCodec 和确定访问单元缓冲区大小，不再依赖写死的 320x240。
+ *
+ * 不可变对象；解析只在收到新的 SPS 字节时进行。
+ */
+public final class H264Sps implements SequenceParameterSet {
+
+    public final int profileIdc;
+    public final int constraintFlags;
+    public final int levelIdc;
+    public final int chromaFormatIdc;   // 0 单色, 1 = 4:2:0, 2 = 4:2:2, 3 = 4:4:4
+    public final int bitDepthLuma;
+    public final int bitDepthChroma;
+    public final int log2MaxFrameNum;
+    public final int picOrderCntType;
+    public final int maxNumRefFrames;
+    public final boolean frameMbsOnly;
+    /** 编码宽高（宏块对齐） */
+    public final int codedWidth;
+    public final int codedHeight;
+    /** 显示宽高（扣除 frame_cropping） */
+    public final int width;
+    public final int height;
+    /** VUI timing_info 给出的帧率，未携带时为 0 */
+    public final float frameRate;
+
+    private H264Sps(int profileIdc, int constraintFlags, int levelIdc, int chromaFormatIdc,
+                    int bitDepthLuma, int bitDepthChroma, int log2MaxFrameNum, int picOrderCntType,
+                    int maxNumRefFrames, boolean frameMbsOnly, int codedWidth, int codedHeight,
+                    int width, int height, float frameRate) {
+        this.profileIdc = profileIdc;
+        this.constraintFlags = constraintFlags;
+        this.levelIdc = levelIdc;
+        this.chromaFormatIdc = chromaFormatIdc;
+        this.bitDepthLuma = bitDepthLuma;
+        this.bitDepthChroma = bitDepthChroma;
+        this.log2MaxFrameNum = log2MaxFrameNum;
+        this.picOrderCntType = picOrderCntType;
+        this.maxNumRefFrames = maxNumRefFrames;
+        this.frameMbsOnly = frameMbsOnly;
+        this.codedWidth = codedWidth;
+        this.codedHeight = codedHeight;
+        this.width = width;
+        this.height = height;
+        this.frameRate = frameRate;
+    }
+
+    /**
+     * 解析 SPS NALU（不含起始码，含 1 字节 NAL Header）
+     * @return 码流损坏或不是 SPS 时返回 null
+     */
+    public static H264Sps parse(byte[] nal, int offset, int length) {
+        if (length < 4 || (nal[offset] & 0x1F) != 7) return null;
+        try {
+            return parse(new H264BitReader().reset(nal, offset, length));
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private static H264Sps parse(H264BitReader r) {
+        int profileIdc = r.readBits(8);
+        int constraintFlags = r.readBits(8);
+        int levelIdc = r.readBits(8);
+        r.readUE(); // seq_parameter_set_id
+
+        int chromaFormatIdc = 1;
+        boolean separateColourPlane = false;
+        int bitDepthLuma = 8;
+        int bitDepthChroma = 8;
+        if (hasChromaInfo(profileIdc)) {
+            chromaFormatIdc = r.readUE();
+            if (chromaFormatIdc == 3) {
+                separateColourPlane = r.readBit() == 1;
+            }
+            bitDepthLuma = 8 + r.readUE();
+            bitDepthChroma = 8 + r.readUE();
+            r.readBit(); // qpprime_y_zero_transform_bypass_flag
+            if (r.readBit() == 1) { // seq_scaling_matrix_present_flag
+                int lists = chromaFormatIdc != 3 ? 8 : 12;
+                for (int i = 0; i < lists; i++) {
+                    if (r.readBit() == 1) {
+                        skipScalingList(r, i < 6 ? 16 : 64);
+                    }
+                }
+            }
+        }
+        if (chromaFormatIdc > 3) throw new IllegalStateException("chroma_format_idc");
+
+        int log2MaxFrameNum = 4 + r.readUE();
+        int picOrderCntType = r.readUE();
+        if (picOrderCntType == 0) {
+            r.readUE(); // log2_max_pic_order_cnt_lsb_minus4
+        } else if (picOrderCntType == 1) {
+            r.readBit(); // delta_pic_order_always_zero_flag
+            r.readSE();  // offset_for_non_ref_pic
+            r.readSE();  // offset_for_top_to_bottom_field
+            int cycle = r.readUE();
+            for (int i = 0; i < cycle; i++) {
+                r.readSE(); // offset_for_ref_frame
+            }
+        }
+        int maxNumRefFrames = r.readUE();
+        r.readBit(); // gaps_in_frame_num_value_allowed_flag
+
+        int widthInMbs = r.readUE() + 1;
+        int heightInMapUnits = r.readUE() + 1;
+        boolean frameMbsOnly = r.readBit() == 1;
+        if (!frameMbsOnly) {
+            r.readBit(); // mb_adaptive_frame_field_flag
+        }
+        r.readBit(); // direct_8x8_inference_flag
+
+        int codedWidth = widthInMbs * 16;
+        int codedHeight = (frameMbsOnly ? 1 : 2) * heightInMapUnits * 16;
+        int width = codedWidth;
+        int height = codedHeight;
+        if (r.readBit() == 1) { // frame_cropping_flag
+            int left = r.readUE(), right = r.readUE(), top = r.readUE(), bottom = r.readUE();
+            // 裁剪单位 (7-19 ~ 7-22)
+            int arrayType = separateColourPlane ? 0 : chromaFormatIdc;
+            int cropUnitX = arrayType == 0 ? 1 : (arrayType == 3 ? 1 : 2);
+            int cropUnitY = (arrayType == 0 ? 1 : (arrayType == 1 ? 2 : 1)) * (frameMbsOnly ? 1 : 2);
+            width -= (left + right) * cropUnitX;
+            height -= (top + bottom) * cropUnitY;
+            if (width <= 0 || height <= 0) throw new IllegalStateException("frame_cropping");
+        }
+
+        float frameRate = 0;
+        if (r.readBit() == 1) { // vui_parameters_present_flag
+            frameRate = parseVuiFrameRate(r);
+        }
+
+        return new H264Sps(profileIdc, constraintFlags, levelIdc, chromaFormatIdc,
+            bitDepthLuma, bitDepthChroma, log2MaxFrameNum, picOrderCntType,
+            maxNumRefFrames, frameMbsOnly, codedWidth, codedHeight, width, height, frameRate);
+    }
+
+    /**
+     * High 及以上 Profile 才携带 chroma_format_idc / bit_depth / 缩放矩阵
+     */
+    private static boolean hasChromaInfo(int profileIdc) {
+        switch (profileIdc) {
+            case 100: case 110: case 122: case 244: case 44:
+            case 83: case 86: case 118: case 128: case 138:
+            case 139: case 134: case 135:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void skipScalingList(H264BitReader r, int size) {
+        int lastScale = 8;
+        int nextScale = 8;
+        for (int j = 0; j < size; j++) {
+            if (nextScale != 0) {
+                nextScale = (lastScale + r.readSE() + 256) % 256;
+            }
+            lastScale = nextScale == 0 ? lastScale : nextScale;
+        }
+    }
+
+    /**
+     * VUI 中只关心 timing_info，之前的字段按语法跳过 (E.1.1)
+     */
+    private static float parseVuiFrameRate(H264BitReader r) {
+        if (r.readBit() == 1) { // aspect_ratio_info_present_flag
+            if (r.readBits(8) == 255) { // Extended_SAR
+                r.skipBits(32);
+            }
+        }
+        if (r.readBit() == 1) { // overscan_info_present_flag
+            r.readBit();
+        }
+        if (r.readBit() == 1) { // video_signal_type_present_flag
+            r.skipBits(4); // video_format + video_full_range_flag
+            if (r.readBit() == 1) { // colour_description_present_flag
+                r.skipBits(24);
+            }
+        }
+        if (r.readBit() == 1) { // chroma_loc_info_present_flag
+            r.readUE();
+            r.readUE();
+        }
+        if (r.readBit() == 1) { // timing_info_present_flag
+            long numUnitsInTick = r.readBits(32) & 0xFFFFFFFFL;
+            long timeScale = r.readBits(32) & 0xFFFFFFFFL;
+            if (numUnitsInTick > 0) {
+                return (float) (timeScale / (2.0 * numUnitsInTick)); // 一帧 = 两个 field tick
+            }
+        }
+        return 0;
+    }
+
+    // ========== 派生值 ==========
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 解码参数是否相同：不同则需要重新配置解码器。
+     * VUI（帧率、色彩描述等）和 SPS id 不参与比较，仅这些字段变化时无需重建。
+     */
+    @Override
+    public boolean sameDecodingParameters(SequenceParameterSet other) {
+        if (!(other instanceof H264Sps)) return false;
+        H264Sps o = (H264Sps) other;
+        return profileIdc == o.profileIdc
+            && levelIdc == o.levelIdc
+            && chromaFormatIdc == o.chromaFormatIdc
+            && bitDepthLuma == o.bitDepthLuma
+            && bitDepthChroma == o.bitDepthChroma
+            && log2MaxFrameNum == o.log2MaxFrameNum
+            && picOrderCntType == o.picOrderCntType
+            && maxNumRefFrames == o.maxNumRefFrames
+            && frameMbsOnly == o.frameMbsOnly
+            && sameResolution(o);
+    }
+
+    @Override
+    public boolean sameResolution(SequenceParameterSet other) {
+        if (!(other instanceof H264Sps)) return false;
+        H264Sps o = (H264Sps) other;
+        return codedWidth == o.codedWidth
+            && codedHeight == o.codedHeight
+            && width == o.width
+            && height == o.height;
+    }
+
+    /**
+     * 单个访问单元的最大字节数估计：未压缩帧大小的一半（最低压缩比 2:1），
+     * 用于 KEY_MAX_INPUT_SIZE 和缓冲池容量
+     */
+    @Override
+    public int maxAccessUnitSize() {
+        return SequenceParameterSet.halfRawFrameSize(codedWidth, codedHeight, chromaFormatIdc,
+            bitDepthLuma, bitDepthChroma);
+    }
+
+    public String profileName() {
+        switch (profileIdc) {
+            case 66: return (constraintFlags & 0x40) != 0 ? "Constrained Baseline" : "Baseline";
+            case 77: return "Main";
+            case 88: return "Extended";
+            case 100: return "High";
+            case 110: return "High 10";
+            case 122: return "High 4:2:2";
+            case 244: return "High 4:4:4";
+            default: return "Profile " + profileIdc;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%dx%d %s@%d.%d%s", width, height, profileName(),
+            levelIdc / 10, levelIdc % 10,
+            frameRate > 0 ? String.format(" %.1ffps", frameRate) : "");
+    }
+}
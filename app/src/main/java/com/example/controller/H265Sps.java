@@ -0,0 +1,188 @@
+package com.example.controller;
+
+/**
+ * H.265 序列参数集 (SPS) 解析结果 (ITU-T H.265 7.3.2.2 / 7.3.3)
+ * 只解析到 sps_max_dec_pic_buffering 为止：分辨率（已扣除 conformance window）、
+ * Profile/Tier/Level、色度格式与位深，足够配置 MediaCodec 和确定访问单元缓冲区大小。
+ * VUI 位于短期参考图像集之后，解析代价高，帧率不从 SPS 读取。
+ *
+ * 不可变对象；解析只在收到新的 SPS 字节时进行。
+ */
+public final class H265Sps implements SequenceParameterSet {
+
+    public final int profileIdc;
+    public final boolean highTier;
+    /** general_level_idc = 30 × Level */
+    public final int levelIdc;
+    public final int chromaFormatIdc;   // 0 单色, 1 = 4:2:0, 2 = 4:2:2, 3 = 4:4:4
+    public final int bitDepthLuma;
+    public final int bitDepthChroma;
+    public final int log2MaxPicOrderCntLsb;
+    /** 最高时域子层的 sps_max_dec_pic_buffering_minus1 + 1 */
+    public final int maxDecPicBuffering;
+    /** 编码宽高（pic_width/height_in_luma_samples） */
+    public final int codedWidth;
+    public final int codedHeight;
+    /** 显示宽高（扣除 conformance window） */
+    public final int width;
+    public final int height;
+
+    private H265Sps(int profileIdc, boolean highTier, int levelIdc, int chromaFormatIdc,
+                    int bitDepthLuma, int bitDepthChroma, int log2MaxPicOrderCntLsb,
+                    int maxDecPicBuffering, int codedWidth, int codedHeight, int width, int height) {
+        this.profileIdc = profileIdc;
+        this.highTier = highTier;
+        this.levelIdc = levelIdc;
+        this.chromaFormatIdc = chromaFormatIdc;
+        this.bitDepthLuma = bitDepthLuma;
+        this.bitDepthChroma = bitDepthChroma;
+        this.log2MaxPicOrderCntLsb = log2MaxPicOrderCntLsb;
+        this.maxDecPicBuffering = maxDecPicBuffering;
+        this.codedWidth = codedWidth;
+        this.codedHeight = codedHeight;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * 解析 SPS NALU（不含起始码，含 2 字节 NAL Header）
+     * @return 码流损坏或不是 SPS 时返回 null
+     */
+    public static H265Sps parse(byte[] nal, int offset, int length) {
+        if (length < 16 || ((nal[offset] >> 1) & 0x3F) != 33) return null;
+        try {
+            H264BitReader r = new H264BitReader().reset(nal, offset, length);
+            r.skipBits(8); // NAL Header 第 2 字节
+            return parse(r);
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private static H265Sps parse(H264BitReader r) {
+        r.skipBits(4); // sps_video_parameter_set_id
+        int maxSubLayersMinus1 = r.readBits(3);
+        r.readBit(); // sps_temporal_id_nesting_flag
+
+        // ========== profile_tier_level(1, maxSubLayersMinus1) (7.3.3) ==========
+        r.skipBits(2); // general_profile_space
+        boolean highTier = r.readBit() == 1;
+        int profileIdc = r.readBits(5);
+        r.skipBits(32); // general_profile_compatibility_flag[32]
+        r.skipBits(48); // progressive/interlaced/non_packed/frame_only + 43 位约束标志 + 1 位保留
+        int levelIdc = r.readBits(8);
+
+        boolean[] subLayerProfilePresent = new boolean[maxSubLayersMinus1];
+        boolean[] subLayerLevelPresent = new boolean[maxSubLayersMinus1];
+        for (int i = 0; i < maxSubLayersMinus1; i++) {
+            subLayerProfilePresent[i] = r.readBit() == 1;
+            subLayerLevelPresent[i] = r.readBit() == 1;
+        }
+        if (maxSubLayersMinus1 > 0) {
+            r.skipBits(2 * (8 - maxSubLayersMinus1)); // reserved_zero_2bits
+        }
+        for (int i = 0; i < maxSubLayersMinus1; i++) {
+            if (subLayerProfilePresent[i]) r.skipBits(88);
+            if (subLayerLevelPresent[i]) r.skipBits(8);
+        }
+
+        r.readUE(); // sps_seq_parameter_set_id
+        int chromaFormatIdc = r.readUE();
+        if (chromaFormatIdc > 3) throw new IllegalStateException("chroma_format_idc");
+        boolean separateColourPlane = chromaFormatIdc == 3 && r.readBit() == 1;
+
+        int codedWidth = r.readUE();
+        int codedHeight = r.readUE();
+        if (codedWidth == 0 || codedHeight == 0) throw new IllegalStateException("pic_size");
+        int width = codedWidth;
+        int height = codedHeight;
+        if (r.readBit() == 1) { // conformance_window_flag
+            int left = r.readUE(), right = r.readUE(), top = r.readUE(), bottom = r.readUE();
+            // 裁剪单位 SubWidthC / SubHeightC (表 6-1)
+            int arrayType = separateColourPlane ? 0 : chromaFormatIdc;
+            int subWidthC = arrayType == 1 || arrayType == 2 ? 2 : 1;
+            int subHeightC = arrayType == 1 ? 2 : 1;
+            width -= (left + right) * subWidthC;
+            height -= (top + bottom) * subHeightC;
+            if (width <= 0 || height <= 0) throw new IllegalStateException("conformance_window");
+        }
+
+        int bitDepthLuma = 8 + r.readUE();
+        int bitDepthChroma = 8 + r.readUE();
+        int log2MaxPicOrderCntLsb = 4 + r.readUE();
+
+        boolean subLayerOrderingInfo = r.readBit() == 1;
+        int maxDecPicBuffering = 0;
+        for (int i = subLayerOrderingInfo ? 0 : maxSubLayersMinus1; i <= maxSubLayersMinus1; i++) {
+            maxDecPicBuffering = r.readUE() + 1; // 取最高子层
+            r.readUE(); // sps_max_num_reorder_pics
+            r.readUE(); // sps_max_latency_increase_plus1
+        }
+
+        return new H265Sps(profileIdc, highTier, levelIdc, chromaFormatIdc,
+            bitDepthLuma, bitDepthChroma, log2MaxPicOrderCntLsb, maxDecPicBuffering,
+            codedWidth, codedHeight, width, height);
+    }
+
+    // ========== 派生值 ==========
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 解码参数是否相同：不同则需要重新配置解码器（SPS id 不参与比较）
+     */
+    @Override
+    public boolean sameDecodingParameters(SequenceParameterSet other) {
+        if (!(other instanceof H265Sps)) return false;
+        H265Sps o = (H265Sps) other;
+        return profileIdc == o.profileIdc
+            && highTier == o.highTier
+            && levelIdc == o.levelIdc
+            && chromaFormatIdc == o.chromaFormatIdc
+            && bitDepthLuma == o.bitDepthLuma
+            && bitDepthChroma == o.bitDepthChroma
+            && log2MaxPicOrderCntLsb == o.log2MaxPicOrderCntLsb
+            && maxDecPicBuffering == o.maxDecPicBuffering
+            && sameResolution(o);
+    }
+
+    @Override
+    public boolean sameResolution(SequenceParameterSet other) {
+        if (!(other instanceof H265Sps)) return false;
+        H265Sps o = (H265Sps) other;
+        return codedWidth == o.codedWidth
+            && codedHeight == o.codedHeight
+            && width == o.width
+            && height == o.height;
+    }
+
+    @Override
+    public int maxAccessUnitSize() {
+        return SequenceParameterSet.halfRawFrameSize(codedWidth, codedHeight, chromaFormatIdc,
+            bitDepthLuma, bitDepthChroma);
+    }
+
+    public String profileName() {
+        switch (profileIdc) {
+            case 1: return "Main";
+            case 2: return "Main 10";
+            case 3: return "Main Still Picture";
+            case 4: return "Range Extensions";
+            default: return "Profile " + profileIdc;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%dx%d HEVC %s@L%d.%d%s", width, height, profileName(),
+            levelIdc / 30, (levelIdc % 30) / 3, highTier ? " High" : "");
+    }
+}
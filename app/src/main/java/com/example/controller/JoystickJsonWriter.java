@@ -0,0 +1,104 @@
+package com.example.controller;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 摇杆 JSON 手写序列化：替代 new JoystickMsg + gson.toJson（反射 + JsonWriter + String）
+ *
+ * 输出与 Gson 字段一致：{"type":"joystick","vx":..,"vy":..,"vz":..,"yaw_rate":..}
+ * - 浮点数固定 4 位小数后去掉末尾的 0（0.5 → "0.5"，0 → "0"），精度 0.0001 远高于摇杆分辨率
+ * - NaN / Inf 不是合法 JSON，写为 0（Gson 默认会直接抛异常）
+ *
+ * 直接写入复用的 byte[]（ASCII），编码过程不分配对象；非线程安全，由发送线程独占。
+ */
+public final class JoystickJsonWriter {
+
+    static final int DECIMALS = 4;
+    private static final long SCALE = 10000L;
+    /** 超出该绝对值的输入会被截断（速度指令不可能达到，仅防御异常输入撑爆缓冲区） */
+    private static final double MAX_ABS = 1e6;
+
+    private static final byte[] PREFIX = ascii("{\"type\":\"joystick\",\"vx\":");
+    private static final byte[] VY = ascii(",\"vy\":");
+    private static final byte[] VZ = ascii(",\"vz\":");
+    private static final byte[] YAW = ascii(",\"yaw_rate\":");
+
+    private final byte[] buffer = new byte[128];
+    private final byte[] digits = new byte[20];
+    private int position;
+
+    /**
+     * 序列化一条摇杆消息到内部缓冲区
+     * @return JSON 字节长度，数据见 {@link #buffer()}
+     */
+    public int write(float vx, float vy, float vz, float yawRate) {
+        position = 0;
+        put(PREFIX);
+        putNumber(vx);
+        put(VY);
+        putNumber(vy);
+        put(VZ);
+        putNumber(vz);
+        put(YAW);
+        putNumber(yawRate);
+        buffer[position++] = '}';
+        return position;
+    }
+
+    /**
+     * 最近一次序列化结果（下次写入会被覆盖）
+     */
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    private void put(byte[] bytes) {
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * 定点格式化：四舍五入到 DECIMALS 位，去掉小数部分末尾的 0
+     */
+    private void putNumber(float value) {
+        double v = value;
+        if (Double.isNaN(v) || Double.isInfinite(v)) v = 0;
+        if (v > MAX_ABS) v = MAX_ABS;
+        if (v < -MAX_ABS) v = -MAX_ABS;
+
+        long scaled = Math.round(Math.abs(v) * SCALE);
+        if (scaled == 0) {
+            buffer[position++] = '0';
+            return;
+        }
+        if (v < 0) buffer[position++] = '-';
+
+        long integer = scaled / SCALE;
+        int fraction = (int) (scaled % SCALE);
+
+        // 整数部分（逆序写入临时数组再正序拷贝）
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + integer % 10);
+            integer /= 10;
+        } while (integer != 0);
+        while (n > 0) buffer[position++] = digits[--n];
+
+        if (fraction == 0) return;
+        int width = DECIMALS;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            width--;
+        }
+        buffer[position++] = '.';
+        for (int i = width - 1; i >= 0; i--) {
+            buffer[position + i] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        position += width;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.controller;
+
+import java.util.Arrays;
+
+/**
+ * 固定桶延迟直方图
+ * 1ms 分辨率，0 ~ MAX_MS 之外的值计入最后一个桶；记录时不分配内存。
+ *
+ * 非线程安全，由调用方负责同步。
+ */
+public final class LatencyHistogram {
+    public static final int MAX_MS = 1000;
+
+    private final long[] buckets = new long[MAX_MS + 1];
+    private long count = 0;
+    private long sumNanos = 0;
+    private long maxNanos = 0;
+
+    public void record(long nanos) {
+        if (nanos < 0) return;
+        int ms = (int) Math.min(nanos / 1_000_000L, MAX_MS);
+        buckets[ms]++;
+        count++;
+        sumNanos += nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+    }
+
+    /**
+     * @param percentile 0 ~ 100
+     * @return 对应分位的毫秒数（桶上界），无数据时返回 -1
+     */
+    public int percentileMs(double percentile) {
+        if (count == 0) return -1;
+        long threshold = (long) Math.ceil(count * percentile / 100.0);
+        if (threshold < 1) threshold = 1;
+        long seen = 0;
+        for (int ms = 0; ms <= MAX_MS; ms++) {
+            seen += buckets[ms];
+            if (seen >= threshold) return ms;
+        }
+        return MAX_MS;
+    }
+
+    public double meanMs() {
+        return count == 0 ? -1 : sumNanos / (double) count / 1_000_000.0;
+    }
+
+    public double maxMs() {
+        return maxNanos / 1_000_000.0;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public void reset() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        sumNanos = 0;
+        maxNanos = 0;
+    }
+}
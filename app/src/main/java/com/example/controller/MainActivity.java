@@ -34,6 +34,7 @@ public class MainActivity extends AppCompatActivity {
     private View joystickRightThumb;
     private Button btnGuided, btnLand, btnBrake, btnConnect, btnTakeoff;
     private Button btnArm;
+    private Button btnPlayoutMode;
     private TextView textAltitude, textSpeed, textHeading, textPosition, textAttitude, textMode;
     private CameraStreamView cameraStreamView;
 
@@ -57,10 +58,9 @@ public class MainActivity extends AppCompatActivity {
 
     // ===== 网络部分 ====
     private NetworkClient networkClient;
-    private Handler sendHandler = new Handler();
 
-    // ⭐ 优化：提高到 20Hz（提高控制响应速度）
-    private final int SEND_INTERVAL = 50; // 20Hz
+    // ⭐ 控制线程：独立于主线程采样摇杆并发送（变化即发 + 突发合并 + 心跳）
+    private ControlLoop controlLoop;
 
     private final float MAX_H_SPEED = 0.5f;
     private final float MAX_CLIMB = 0.5f;
@@ -90,44 +90,68 @@ public class MainActivity extends AppCompatActivity {
     private float joystickMaxRadius = 0f;
     private boolean joystickInitialized = false;
 
-    // ⭐ 发送循环（直接读取最新摇杆值）
-    private final Runnable sendLoop = new Runnable() {
-        @Override
-        public void run() {
-            if (isConnected && networkClient != null) {
-                // 立即读取最新摇杆值并发送
-                float vx = lastPitchNorm * MAX_H_SPEED;
-                float vy = lastRollNorm * MAX_H_SPEED;
-                float vz = -lastThrottleNorm * MAX_CLIMB;
-                float yawRate = lastYawNorm * MAX_YAW_RATE;
-                networkClient.sendJoystick(vx, vy, vz, yawRate);
-            }
-            sendHandler.postDelayed(this, SEND_INTERVAL);
+    /**
+     * 摇杆输入变化：唤醒控制线程立即评估是否发送
+     */
+    private void onStickInput() {
+        ControlLoop loop = controlLoop;
+        if (loop != null) loop.wake();
+    }
+
+    private void startControlLoop() {
+        stopControlLoop();
+        NetworkClient client = networkClient;
+        controlLoop = new ControlLoop(
+            out -> {
+                out[0] = lastThrottleNorm;
+                out[1] = lastYawNorm;
+                out[2] = lastPitchNorm;
+                out[3] = lastRollNorm;
+            },
+            (throttle, yaw, pitch, roll) -> {
+                float vx = pitch * MAX_H_SPEED;
+                float vy = roll * MAX_H_SPEED;
+                float vz = -throttle * MAX_CLIMB;
+                float yawRate = yaw * MAX_YAW_RATE;
+                client.sendJoystick(vx, vy, vz, yawRate);
+            },
+            new ControlSendScheduler(), ControlLoop.DEFAULT_TICK_MS);
+        controlLoop.start();
+    }
+
+    private void stopControlLoop() {
+        if (controlLoop != null) {
+            controlLoop.close();
+            controlLoop = null;
         }
-    };
+    }
 
     // ==== 左摇杆长按重复 ====
     private final Runnable upRepeatRunnable = new Runnable() {
         @Override public void run() {
             lastThrottleNorm = 1f;
+            onStickInput();
             leftJoystickHandler.postDelayed(this, REPEAT_INTERVAL_MS);
         }
     };
     private final Runnable downRepeatRunnable = new Runnable() {
         @Override public void run() {
             lastThrottleNorm = -1f;
+            onStickInput();
             leftJoystickHandler.postDelayed(this, REPEAT_INTERVAL_MS);
         }
     };
     private final Runnable leftRepeatRunnable = new Runnable() {
         @Override public void run() {
             lastYawNorm = -1f;
+            onStickInput();
             leftJoystickHandler.postDelayed(this, REPEAT_INTERVAL_MS);
         }
     };
     private final Runnable rightRepeatRunnable = new Runnable() {
         @Override public void run() {
             lastYawNorm = 1f;
+            onStickInput();
             leftJoystickHandler.postDelayed(this, REPEAT_INTERVAL_MS);
         }
     };
@@ -165,6 +189,8 @@ public class MainActivity extends AppCompatActivity {
         btnRight = findViewById(R.id.btnRight);
 
         btnArm = findViewById(R.id.btnArm);
+        btnPlayoutMode = findViewById(R.id.btnPlayoutMode);
+        btnPlayoutMode.setText(cameraStreamView.getPlayoutMode().displayName);
         updateArmButtonText();
         updateConnectButtonColor(false);
     }
@@ -224,6 +250,14 @@ public class MainActivity extends AppCompatActivity {
 
         btnArm.setOnClickListener(v -> sendArmDisarm(!isArmed));
 
+        // 播放模式：播放中即时切换，无需重连视频流
+        btnPlayoutMode.setOnClickListener(v -> {
+            PlayoutMode mode = cameraStreamView.getPlayoutMode().next();
+            cameraStreamView.setPlayoutMode(mode);
+            btnPlayoutMode.setText(mode.displayName);
+            Toast.makeText(this, "🎛️ 播放模式: " + mode.displayName, LENGTH_SHORT).show();
+        });
+
         ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.main),(view,insets)->{
             Insets sys = insets.getInsets(WindowInsetsCompat.Type.systemBars());
             view.setPadding(sys.left, sys.top, sys.right, sys.bottom);
@@ -387,9 +421,15 @@ public class MainActivity extends AppCompatActivity {
                 // 打开 WebSocket
                 networkClient.openControlSocket();
                 networkClient.openTelemetrySocket();
+
+                // ⭐ 服务器提供 UDP 控制端口时，摇杆改走 UDP（避免 TCP 队头阻塞）
+                int udpPort = parseUdpControlPort(body);
+                if (udpPort > 0) {
+                    networkClient.openUdpControl(udpPort);
+                }
                 
-                // ⭐ 启动发送循环（30Hz）
-                sendHandler.post(sendLoop);
+                // ⭐ 启动控制线程（首次立即发送，之后 100Hz 采样，变化即发 / 心跳）
+                startControlLoop();
                 
                 // 启动摄像头视频流（H.264/RTP UDP）
                 // 注意：树莓派需要运行 GStreamer 推流到 UDP 端口 5000
@@ -406,6 +446,14 @@ public class MainActivity extends AppCompatActivity {
         }));
     }
 
+    private static int parseUdpControlPort(String statusJson) {
+        try {
+            return new JSONObject(statusJson).optInt("udp_control_port", 0);
+        } catch (JSONException e) {
+            return 0;
+        }
+    }
+
     private void showDisconnectDialog() {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("已连接");
@@ -413,8 +461,8 @@ public class MainActivity extends AppCompatActivity {
         builder.setPositiveButton("断开",(d,w)->{
             isConnected = false;
             
-            // 停止发送循环
-            sendHandler.removeCallbacks(sendLoop);
+            // 停止控制线程
+            stopControlLoop();
             
             // 关闭网络连接
             if (networkClient != null) networkClient.close();
@@ -445,6 +493,7 @@ public class MainActivity extends AppCompatActivity {
                 leftJoystickHandler.removeCallbacks(r);
                 if (affectThrottle) lastThrottleNorm = 0f;
                 else lastYawNorm = 0f;
+                onStickInput();
                 return true;
         }
         return false;
@@ -469,6 +518,7 @@ public class MainActivity extends AppCompatActivity {
             }
             lastRollNorm = 0f;
             lastPitchNorm = 0f;
+            onStickInput();
             return;
         }
 
@@ -496,6 +546,7 @@ public class MainActivity extends AppCompatActivity {
         } else {
             moveThumb(joystickRightThumb, joystickCenterX + dx, joystickCenterY + dy);
         }
+        onStickInput();
     }
 
     private void moveThumb(View thumb, float x, float y) {
@@ -547,7 +598,7 @@ public class MainActivity extends AppCompatActivity {
         super.onDestroy();
         
         // 停止所有定时任务
-        sendHandler.removeCallbacks(sendLoop);
+        stopControlLoop();
         leftJoystickHandler.removeCallbacks(upRepeatRunnable);
         leftJoystickHandler.removeCallbacks(downRepeatRunnable);
         leftJoystickHandler.removeCallbacks(leftRepeatRunnable);
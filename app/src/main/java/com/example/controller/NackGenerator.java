@@ -0,0 +1,312 @@
+package com.example.controller;
+
+import java.nio.ByteBuffer;
+
+/**
+ * RTCP Generic NACK 生成器 (RFC 4585 6.2.1)
+ * 按到达顺序观察 RTP 序号，发现缺口后把缺失序号加入待重传表，
+ * 到期时打包成 RTPFB/NACK (PID + BLP) 请求发送端重传：
+ * - 去重：同一序号在表中只有一项，两次请求之间至少间隔 retryInterval
+ * - 重试预算：每个序号最多请求 maxRetries 次
+ * - 超龄放弃：超过放弃时间仍未收到则移出表。放弃时间取 max(maxAge, RTO)：
+ *   maxAge 是播放模式的重排等待时间，RTO 由实测 RTT 得出 (RFC 6298)，保证至少能等到
+ *   一次请求的往返；有待重传项时重排缓冲区应按 {@link #getMaxAgeMillis()} 延长等待，
+ *   否则重传包到达时已被当作迟到包丢弃
+ * - RTT 测量：从首次请求到重传包到达的时间，只采样请求过一次的序号 (Karn 算法)；
+ *   放弃后仍等待迟到的重传包完成采样，否则 RTT 大于 maxAge 时永远测不到
+ *
+ * 待重传表为预分配的定长数组，热路径不分配内存。
+ * 非线程安全（除 setter 与 RTT / 放弃时间查询外），只能在 RTP 接收线程中使用。
+ */
+public final class NackGenerator {
+
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final int DEFAULT_RETRY_INTERVAL_MS = 10;
+    /** 按 RTT 延长放弃时间的上限，防止异常采样把重排等待拖到数百毫秒 */
+    public static final int MAX_RTT_WAIT_MS = 250;
+
+    private static final int RTCP_VERSION = 2;
+    private static final int PT_RTPFB = 205;
+    private static final int FMT_GENERIC_NACK = 1;
+    private static final int CAPACITY = 256;       // 待重传表大小（2 的幂）
+    private static final int MAX_GAP = CAPACITY / 2; // 缺口过大视为断流/重启，不请求重传
+    private static final int MAX_FCI = 32;           // 单个 NACK 包最多 FCI 项
+    private static final long RTO_GRANULARITY_NANOS = 1_000_000L;
+    private static final long MAX_RTT_SAMPLE_NANOS = 1_000_000_000L; // 更大的采样视为序号回绕后的误匹配
+
+    // ========== 待重传表（以序号低位为索引） ==========
+    private final int[] seqs = new int[CAPACITY];
+    private final long[] detectedNanos = new long[CAPACITY];
+    private final long[] nextSendNanos = new long[CAPACITY];
+    private final int[] retries = new int[CAPACITY];
+    private final boolean[] pending = new boolean[CAPACITY];
+    private final long[] requestedNanos = new long[CAPACITY]; // 首次请求时间
+    private final boolean[] awaitingRtt = new boolean[CAPACITY]; // 已请求、等待重传包完成 RTT 采样（放弃后保留）
+    private int pendingCount = 0;
+
+    private int highestSeq = -1;
+    private volatile int maxRetries = DEFAULT_MAX_RETRIES;
+    private volatile long retryIntervalNanos = DEFAULT_RETRY_INTERVAL_MS * 1_000_000L;
+    private volatile long maxAgeNanos;
+
+    // ========== RTT (RFC 6298 平滑，接收线程写，任意线程读) ==========
+    private volatile long srttNanos = 0; // 0 表示尚无采样
+    private volatile long rttVarNanos = 0;
+
+    // ========== 统计 ==========
+    private long requestedPackets = 0;
+    private long recoveredPackets = 0;
+    private long abandonedPackets = 0;
+    private long sentNacks = 0;
+
+    /**
+     * @param maxAgeMillis 缺失序号的基础等待时间 (ms)，RTT 更长时按 RTT 延长
+     */
+    public NackGenerator(int maxAgeMillis) {
+        setMaxAgeMillis(maxAgeMillis);
+    }
+
+    /**
+     * 基础等待时间（播放模式的重排等待时间，任意线程）
+     */
+    public void setMaxAgeMillis(int millis) {
+        maxAgeNanos = Math.max(0, millis) * 1_000_000L;
+    }
+
+    public void setMaxRetries(int retries) {
+        maxRetries = Math.max(0, retries);
+    }
+
+    public void setRetryIntervalMillis(int millis) {
+        retryIntervalNanos = Math.max(1, millis) * 1_000_000L;
+    }
+
+    /**
+     * 记录一个到达的 RTP 序号（重排之前，按实际到达顺序）
+     */
+    public void onPacket(int seq, long nowNanos) {
+        if (highestSeq < 0) {
+            highestSeq = seq;
+            return;
+        }
+        int diff = (short) (seq - highestSeq);
+        if (diff <= 0) {
+            // 乱序或重传包到达：从待重传表中移除
+            int slot = seq & (CAPACITY - 1);
+            if (seqs[slot] != seq) return;
+            if (pending[slot]) {
+                pending[slot] = false;
+                pendingCount--;
+                if (retries[slot] > 0) recoveredPackets++;
+            }
+            if (awaitingRtt[slot]) {
+                awaitingRtt[slot] = false;
+                if (retries[slot] == 1) sampleRtt(nowNanos - requestedNanos[slot]);
+            }
+            return;
+        }
+        if (diff > MAX_GAP) {
+            // 缺口过大：断流或发送端重启，等待关键帧即可
+            clear();
+            highestSeq = seq;
+            return;
+        }
+        for (int s = highestSeq + 1; s != highestSeq + diff; s++) {
+            int missing = s & 0xFFFF;
+            int slot = missing & (CAPACITY - 1);
+            if (pending[slot]) {
+                abandonedPackets++; // 被更新的缺口挤掉
+            } else {
+                pendingCount++;
+            }
+            seqs[slot] = missing;
+            detectedNanos[slot] = nowNanos;
+            nextSendNanos[slot] = nowNanos; // 立即请求
+            retries[slot] = 0;
+            pending[slot] = true;
+            awaitingRtt[slot] = false;
+        }
+        highestSeq = seq;
+    }
+
+    /**
+     * 最近一个待请求序号还需等待的时间 (ns)：0 表示有到期项，-1 表示没有待重传项
+     */
+    public long nanosUntilNextDue(long nowNanos) {
+        if (pendingCount == 0) return -1;
+        long earliest = Long.MAX_VALUE;
+        for (int i = 0; i < CAPACITY; i++) {
+            if (!pending[i]) continue;
+            if (expire(i, nowNanos)) continue;
+            long due = retries[i] < maxRetries ? nextSendNanos[i] : detectedNanos[i] + effectiveMaxAgeNanos();
+            earliest = Math.min(earliest, due - nowNanos);
+        }
+        return earliest == Long.MAX_VALUE ? -1 : Math.max(0, earliest);
+    }
+
+    /**
+     * 写入一个 RTPFB Generic NACK 包，包含所有到期的序号
+     * @return 本次请求的序号个数，0 表示没有写入任何内容
+     */
+    public int writeNack(ByteBuffer out, int senderSsrc, int mediaSsrc, long nowNanos) {
+        if (pendingCount == 0) return 0;
+
+        int start = out.position();
+        out.position(start + 12); // 先写 FCI，头部最后补
+        int fciCount = 0;
+        int requested = 0;
+
+        // 从最旧的序号开始，按 PID + 16 位 BLP 分组
+        int oldest = (highestSeq - CAPACITY + 1) & 0xFFFF;
+        for (int i = 0; i < CAPACITY && fciCount < MAX_FCI; i++) {
+            int seq = (oldest + i) & 0xFFFF;
+            if (!takeIfDue(seq, nowNanos)) continue;
+            int blp = 0;
+            for (int bit = 0; bit < 16 && i + 1 + bit < CAPACITY; bit++) {
+                if (takeIfDue((seq + 1 + bit) & 0xFFFF, nowNanos)) {
+                    blp |= 1 << bit;
+                    requested++;
+                }
+            }
+            out.putShort((short) seq);
+            out.putShort((short) blp);
+            fciCount++;
+            requested++;
+            i += 16;
+        }
+
+        if (fciCount == 0) {
+            out.position(start);
+            return 0;
+        }
+        out.put(start, (byte) ((RTCP_VERSION << 6) | FMT_GENERIC_NACK));
+        out.put(start + 1, (byte) PT_RTPFB);
+        out.putShort(start + 2, (short) (2 + fciCount)); // 长度 (32 位字数 - 1)
+        out.putInt(start + 4, senderSsrc);
+        out.putInt(start + 8, mediaSsrc);
+
+        requestedPackets += requested;
+        sentNacks++;
+        return requested;
+    }
+
+    /**
+     * 该序号到期则计一次重试并返回 true
+     */
+    private boolean takeIfDue(int seq, long nowNanos) {
+        int slot = seq & (CAPACITY - 1);
+        if (!pending[slot] || seqs[slot] != seq) return false;
+        if (expire(slot, nowNanos)) return false;
+        if (retries[slot] >= maxRetries || nextSendNanos[slot] > nowNanos) return false;
+        if (retries[slot] == 0) {
+            requestedNanos[slot] = nowNanos;
+            awaitingRtt[slot] = true;
+        }
+        retries[slot]++;
+        // 一个往返内重复请求只会换来重复的重传包
+        nextSendNanos[slot] = nowNanos + Math.max(retryIntervalNanos, cappedRtoNanos());
+        return true;
+    }
+
+    /**
+     * 超龄则放弃该项（重试用尽的项仍保留到超龄，以便统计迟到的重传包）
+     */
+    private boolean expire(int slot, long nowNanos) {
+        if (nowNanos - detectedNanos[slot] < effectiveMaxAgeNanos()) {
+            return false;
+        }
+        pending[slot] = false;
+        pendingCount--;
+        abandonedPackets++;
+        return true;
+    }
+
+    private void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            pending[i] = false;
+            awaitingRtt[i] = false;
+        }
+        pendingCount = 0;
+    }
+
+    /**
+     * RFC 6298 2.2 / 2.3：SRTT 与 RTTVAR 平滑
+     */
+    private void sampleRtt(long rttNanos) {
+        if (rttNanos <= 0 || rttNanos > MAX_RTT_SAMPLE_NANOS) return;
+        long srtt = srttNanos;
+        if (srtt == 0) {
+            rttVarNanos = rttNanos / 2;
+            srttNanos = rttNanos;
+        } else {
+            rttVarNanos = (3 * rttVarNanos + Math.abs(srtt - rttNanos)) / 4;
+            srttNanos = (7 * srtt + rttNanos) / 8;
+        }
+    }
+
+    /**
+     * RTO = SRTT + max(G, 4 × RTTVAR)，不超过 {@link #MAX_RTT_WAIT_MS}；尚无采样时为 0
+     */
+    private long cappedRtoNanos() {
+        long srtt = srttNanos;
+        if (srtt == 0) return 0;
+        long rto = srtt + Math.max(RTO_GRANULARITY_NANOS, 4 * rttVarNanos);
+        return Math.min(rto, MAX_RTT_WAIT_MS * 1_000_000L);
+    }
+
+    private long effectiveMaxAgeNanos() {
+        return Math.max(maxAgeNanos, cappedRtoNanos());
+    }
+
+    /**
+     * 实际放弃时间 (ms)：max(基础等待时间, RTO)
+     * 有待重传项时重排缓冲区至少要等这么久，重传包才不会被当作迟到包丢弃（任意线程）
+     */
+    public int getMaxAgeMillis() {
+        return (int) ((effectiveMaxAgeNanos() + 999_999L) / 1_000_000L);
+    }
+
+    /**
+     * 平滑 RTT (ms)，尚无采样时返回 -1（任意线程）
+     */
+    public double getRttMillis() {
+        long srtt = srttNanos;
+        return srtt == 0 ? -1 : srtt / 1e6;
+    }
+
+    /**
+     * 清空全部状态（重启流时调用）
+     */
+    public void reset() {
+        clear();
+        highestSeq = -1;
+        srttNanos = 0;
+        rttVarNanos = 0;
+    }
+
+    // ========== 统计 ==========
+
+    /** 已请求重传的序号次数（含重试） */
+    public long getRequestedPackets() {
+        return requestedPackets;
+    }
+
+    /** 请求后收到的包数 */
+    public long getRecoveredPackets() {
+        return recoveredPackets;
+    }
+
+    /** 超龄仍未收到（或被新缺口挤出表）而放弃的包数 */
+    public long getAbandonedPackets() {
+        return abandonedPackets;
+    }
+
+    /** 已发送的 NACK 包数 */
+    public long getSentNacks() {
+        return sentNacks;
+    }
+
+    public int getPendingCount() {
+        return pendingCount;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.controller;
+
+/**
+ * 可复用的 NALU 缓冲区
+ * 由 {@link NaluBufferPool} 统一分配，接收线程填充后交给解码线程，
+ * 解码线程送入 MediaCodec 后归还到池中，稳态下不再产生 byte[] 分配。
+ *
+ * 数据格式为 Annex-B：4 字节起始码 + NAL Header + Payload，
+ * 作为访问单元使用时可依次追加多个 NALU
+ */
+public final class NaluBuffer {
+    public static final int START_CODE_SIZE = 4;
+
+    /** 数据区（容量固定） */
+    public final byte[] data;
+    /** 有效数据长度（含起始码） */
+    public int length;
+    /** 编码格式（决定 type / refIdc 的含义） */
+    public VideoCodec codec = VideoCodec.H264;
+    /** NAL 类型（访问单元中为主 VCL NAL 类型，含随机访问点时取随机访问点类型，如 H.264 IDR 为 5） */
+    public int type;
+    /** 最大参考等级（H.264 为 nal_ref_idc；0 表示非参考帧，丢弃不影响后续解码） */
+    public int refIdc;
+    /** 首个 slice 的 slice_type (H264BitReader.SLICE_*)，未知为 -1 */
+    public int sliceType = -1;
+    /** 包含的 NALU 个数 */
+    public int naluCount;
+    /** 呈现时间戳 PTS (us)，由 RTP 时间戳换算 */
+    public long timestamp;
+    /** 展开后的 64 位 RTP 时间戳 (90kHz) */
+    public long rtpTimestamp;
+    /** 首个数据包到达时间 (System.nanoTime) */
+    public long arrivalNanos;
+    /** 访问单元组装完成时间 (System.nanoTime) */
+    public long completeNanos;
+    /** 此帧之前 SPS/PPS 已变化，送入解码器前需先更新解码器配置 */
+    public boolean parameterSetsChanged;
+
+    NaluBuffer(int capacity) {
+        this.data = new byte[capacity];
+    }
+
+    public int capacity() {
+        return data.length;
+    }
+
+    /**
+     * 写入起始码 + NALU（不含起始码的原始数据）
+     * @return 容量不足时返回 false，缓冲区内容不变
+     */
+    public boolean set(byte[] src, int offset, int naluLength, long timestampUs) {
+        return set(src, offset, naluLength, timestampUs, VideoCodec.H264);
+    }
+
+    public boolean set(byte[] src, int offset, int naluLength, long timestampUs, VideoCodec codec) {
+        if (START_CODE_SIZE + naluLength > data.length || naluLength < 1) {
+            return false;
+        }
+        data[0] = 0x00;
+        data[1] = 0x00;
+        data[2] = 0x00;
+        data[3] = 0x01;
+        System.arraycopy(src, offset, data, START_CODE_SIZE, naluLength);
+        length = START_CODE_SIZE + naluLength;
+        this.codec = codec;
+        type = codec.nalType(src, offset);
+        refIdc = codec.refIdc(src, offset);
+        naluCount = 1;
+        timestamp = timestampUs;
+        return true;
+    }
+
+    /**
+     * 在已有数据后追加起始码 + NALU（访问单元聚合）
+     * @return 容量不足时返回 false，缓冲区内容不变
+     */
+    public boolean append(byte[] src, int offset, int naluLength) {
+        return append(src, offset, naluLength, VideoCodec.H264);
+    }
+
+    public boolean append(byte[] src, int offset, int naluLength, VideoCodec codec) {
+        if (length + START_CODE_SIZE + naluLength > data.length || naluLength < 1) {
+            return false;
+        }
+        data[length] = 0x00;
+        data[length + 1] = 0x00;
+        data[length + 2] = 0x00;
+        data[length + 3] = 0x01;
+        System.arraycopy(src, offset, data, length + START_CODE_SIZE, naluLength);
+        length += START_CODE_SIZE + naluLength;
+
+        // 随机访问点优先，其余取第一个 VCL NAL 的类型（SEI/SPS 等只在没有 VCL 时占位）
+        int nalType = codec.nalType(src, offset);
+        boolean first = naluCount++ == 0;
+        if (first || (codec.isVcl(nalType) && (!codec.isVcl(type) || codec.isRandomAccessPoint(nalType)))) {
+            type = nalType;
+        }
+        this.codec = codec;
+        refIdc = Math.max(refIdc, codec.refIdc(src, offset));
+        return true;
+    }
+
+    /**
+     * 是否为关键帧（H.264 IDR / H.265 IRAP，解码链的起点，任何时候都不能丢）
+     * 参数集不会进入访问单元：CameraStreamView.onNalu 单独缓存，改由解码器配置或带内送入
+     */
+    public boolean isKeyFrame() {
+        return codec.isRandomAccessPoint(type);
+    }
+
+    /**
+     * 是否为随机访问点：之前的参考数据不再需要，解码可以从这里重新开始
+     */
+    public boolean isRandomAccessPoint() {
+        return codec.isRandomAccessPoint(type);
+    }
+
+    /**
+     * 是否被后续帧参考（丢弃后直到下一个 IDR 都会花屏）
+     */
+    public boolean isReference() {
+        return refIdc != 0;
+    }
+
+    void clear() {
+        length = 0;
+        codec = VideoCodec.H264;
+        type = 0;
+        refIdc = 0;
+        sliceType = -1;
+        naluCount = 0;
+        timestamp = 0;
+        rtpTimestamp = 0;
+        arrivalNanos = 0;
+        completeNanos = 0;
+        parameterSetsChanged = false;
+    }
+}
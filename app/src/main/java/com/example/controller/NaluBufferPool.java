@@ -0,0 +1,72 @@
+package com.example.controller;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * 固定大小的 NALU 缓冲池
+ * 启动时一次性分配全部缓冲区，之后只在池与队列之间流转。
+ * 分辨率变化时可调整单个缓冲区容量：旧缓冲区在下次取出时按新容量重新分配一次。
+ *
+ * 线程安全：接收线程 acquire，解码线程（以及接收线程丢帧时）release。
+ */
+public final class NaluBufferPool {
+    private final ArrayBlockingQueue<NaluBuffer> free;
+    private volatile int bufferCapacity;
+    private final int size;
+
+    /**
+     * @param size           缓冲区个数
+     * @param bufferCapacity 单个缓冲区容量（含起始码）
+     */
+    public NaluBufferPool(int size, int bufferCapacity) {
+        if (size <= 0) throw new IllegalArgumentException("size <= 0");
+        this.size = size;
+        this.bufferCapacity = bufferCapacity;
+        this.free = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            free.offer(new NaluBuffer(bufferCapacity));
+        }
+    }
+
+    /**
+     * 取出一个空闲缓冲区
+     * @return 池已耗尽时返回 null（不会临时分配）
+     */
+    public NaluBuffer acquire() {
+        NaluBuffer buffer = free.poll();
+        if (buffer != null && buffer.capacity() != bufferCapacity) {
+            buffer = new NaluBuffer(bufferCapacity);
+        }
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲区
+     */
+    public void release(NaluBuffer buffer) {
+        if (buffer == null) return;
+        buffer.clear();
+        free.offer(buffer);
+    }
+
+    /** 当前空闲数量 */
+    public int available() {
+        return free.size();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int bufferCapacity() {
+        return bufferCapacity;
+    }
+
+    /**
+     * 调整单个缓冲区容量（已取出的缓冲区不受影响，归还后再取出时替换）
+     */
+    public void setBufferCapacity(int bufferCapacity) {
+        if (bufferCapacity <= 0) throw new IllegalArgumentException("bufferCapacity <= 0");
+        this.bufferCapacity = bufferCapacity;
+    }
+}
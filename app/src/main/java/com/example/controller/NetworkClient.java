@@ -1,5 +1,6 @@
 package com.example.controller;
 
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.annotation.Nullable;
 
@@ -16,6 +17,7 @@ import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okhttp3.WebSocket;
 import okhttp3.WebSocketListener;
+import okio.ByteString;
 
 public class NetworkClient {
 
@@ -31,10 +33,20 @@ public class NetworkClient {
     private final Gson gson = new Gson();
 
     private String baseUrl = null;
+    private String host = null;
     private WebSocket controlSocket;
     private WebSocket telemetrySocket;
     private TelemetryListener telemetryListener;
 
+    // ⭐ 二进制摇杆帧：连接时通过 WebSocket 子协议协商，服务器不支持时回退 JSON
+    private boolean binaryControlRequested = true;
+    private volatile boolean binaryControl = false;
+    private final ControlFrameEncoder frameEncoder = new ControlFrameEncoder(true);
+    // ⭐ JSON 摇杆手写序列化（复用缓冲区，不走 Gson 反射）
+    private final JoystickJsonWriter joystickWriter = new JoystickJsonWriter();
+    // ⭐ UDP 摇杆通道：打开后摇杆只走 UDP，其余指令仍走 WebSocket
+    private volatile UdpControlChannel udpControl;
+
     public NetworkClient() {
         httpClient = new OkHttpClient.Builder()
                 .connectTimeout(5, TimeUnit.SECONDS)
@@ -43,6 +55,7 @@ public class NetworkClient {
     }
 
     public void setBase(String host, int port) {
+        this.host = host;
         baseUrl = "http://" + host + ":" + port;
     }
 
@@ -50,6 +63,20 @@ public class NetworkClient {
         telemetryListener = l;
     }
 
+    /**
+     * 是否在下次 openControlSocket 时请求二进制摇杆帧（默认开启）
+     */
+    public void setBinaryControl(boolean enabled) {
+        binaryControlRequested = enabled;
+    }
+
+    /**
+     * 当前控制连接是否已协商为二进制摇杆帧
+     */
+    public boolean isBinaryControl() {
+        return binaryControl;
+    }
+
     public void getStatus(SimpleCallback cb) {
         if (baseUrl == null) {
             cb.onResult(false, "baseUrl == null");
@@ -75,19 +102,41 @@ public class NetworkClient {
 
     public void openControlSocket() {
         if (baseUrl == null) return;
-        Request req = new Request.Builder()
-                .url(baseUrl.replaceFirst("^http", "ws") + "/ws/control")
-                .build();
-        controlSocket = httpClient.newWebSocket(req, new WebSocketListener() {
+        binaryControl = false;
+        Request.Builder builder = new Request.Builder()
+                .url(baseUrl.replaceFirst("^http", "ws") + "/ws/control");
+        if (binaryControlRequested) {
+            // 旧服务器不回应该子协议，连接照常建立，继续使用 JSON
+            builder.header("Sec-WebSocket-Protocol", ControlFrameEncoder.SUBPROTOCOL);
+        }
+        controlSocket = httpClient.newWebSocket(builder.build(), new WebSocketListener() {
             @Override public void onOpen(WebSocket webSocket, Response response) {
-                Log.i("WS_CONTROL","opened");
+                binaryControl = ControlFrameEncoder.SUBPROTOCOL.equals(response.header("Sec-WebSocket-Protocol"));
+                Log.i("WS_CONTROL","opened" + (binaryControl ? " (binary joystick)" : " (json)"));
             }
             @Override public void onFailure(WebSocket webSocket, Throwable t, @Nullable Response response) {
+                binaryControl = false;
                 Log.e("WS_CONTROL","fail: " + t.getMessage());
             }
         });
     }
 
+    /**
+     * 打开 UDP 摇杆通道（端口来自 /api/status 的 udp_control_port）
+     */
+    public void openUdpControl(int port) {
+        if (host == null || udpControl != null) return;
+        udpControl = new UdpControlChannel(host, port);
+    }
+
+    /**
+     * UDP 摇杆通道（未打开时为 null）
+     */
+    @Nullable
+    public UdpControlChannel getUdpControl() {
+        return udpControl;
+    }
+
     public void openTelemetrySocket() {
         if (baseUrl == null) return;
         Request req = new Request.Builder()
@@ -107,9 +156,21 @@ public class NetworkClient {
     }
 
     public void sendJoystick(float vx, float vy, float vz, float yawRate) {
+        UdpControlChannel udp = udpControl;
+        if (udp != null) {
+            udp.send(vx, vy, vz, yawRate, SystemClock.elapsedRealtime());
+            return;
+        }
         if (controlSocket == null) return;
-        JoystickMsg msg = new JoystickMsg(vx, vy, vz, yawRate);
-        controlSocket.send(gson.toJson(msg));
+        if (binaryControl) {
+            int length = frameEncoder.encodeJoystick(vx, vy, vz, yawRate, SystemClock.elapsedRealtime());
+            controlSocket.send(ByteString.of(frameEncoder.buffer(), 0, length));
+            return;
+        }
+        // JSON 以二进制帧发送（UTF-8 字节），省去 String 及 OkHttp 的再编码；
+        // 唯一的分配是 OkHttp 排队所需的 ByteString 拷贝
+        int length = joystickWriter.write(vx, vy, vz, yawRate);
+        controlSocket.send(ByteString.of(joystickWriter.buffer(), 0, length));
     }
 
     public void sendMode(String mode) {
@@ -137,7 +198,11 @@ public class NetworkClient {
                 controlSocket.close(1000, "bye");
                 controlSocket = null;
             }
+            binaryControl = false;
         } catch (Exception ignore) {}
+        UdpControlChannel udp = udpControl;
+        udpControl = null;
+        if (udp != null) udp.close();
         try {
             if (telemetrySocket != null) {
                 telemetrySocket.close(1000, "bye");
@@ -151,6 +216,7 @@ public class NetworkClient {
     static class BaseMsg { final String type; BaseMsg(String t){ this.type = t; } }
     static class ModeMsg extends BaseMsg { final String mode; ModeMsg(String m){ super("mode"); this.mode = m; } }
     static class TakeoffMsg extends BaseMsg { final float alt; TakeoffMsg(float a){ super("takeoff"); this.alt = a; } }
+    // 摇杆实际由 JoystickJsonWriter 序列化；保留作为字段定义与基准对照
     static class JoystickMsg extends BaseMsg {
         final float vx, vy, vz, yaw_rate;
         JoystickMsg(float vx,float vy,float vz,float yaw){
@@ -0,0 +1,51 @@
+package com.example.controller;
+
+/**
+ * 播放模式：在延迟与流畅之间取舍的一组预设参数
+ * 由 {@link CameraStreamView#setPlayoutMode} 在播放中切换，无需重启视频流。
+ *
+ * - queueDepth：解码队列最多缓存的帧数，越深越能吸收解码/网络抖动，延迟也越高
+ * - reorderHoldMs：乱序缺口最长等待时间，也是 NACK 重传的基础等待时间（RTT 更长时按 RTT 延长）
+ * - dropStaleFrames：多帧同时解码完成时只显示最新一帧
+ * - playoutDelayMs：> 0 时按 PTS 均匀排期显示（抖动缓冲），0 表示解码完立即显示
+ * - decoderTimeoutUs：等待解码器输入缓冲区的最长时间
+ */
+public enum PlayoutMode {
+
+    /** FPV 飞行：最低延迟，宁可丢帧也不排队 */
+    FPV("FPV", 2, 10, true, 0, 5000),
+
+    /** 均衡：默认参数 */
+    BALANCED("均衡", 3, 20, true, 0, 10000),
+
+    /** 巡检：画面平滑、尽量不丢帧，以约 150ms 额外延迟换取 NACK 重传时间和均匀帧间隔 */
+    INSPECTION("巡检", 8, 60, false, 120, 20000);
+
+    /** 各模式中最大的队列深度（解码队列与缓冲池按此分配） */
+    public static final int MAX_QUEUE_DEPTH = 8;
+
+    public final String displayName;
+    public final int queueDepth;
+    public final int reorderHoldMs;
+    public final boolean dropStaleFrames;
+    public final int playoutDelayMs;
+    public final int decoderTimeoutUs;
+
+    PlayoutMode(String displayName, int queueDepth, int reorderHoldMs, boolean dropStaleFrames,
+                int playoutDelayMs, int decoderTimeoutUs) {
+        this.displayName = displayName;
+        this.queueDepth = queueDepth;
+        this.reorderHoldMs = reorderHoldMs;
+        this.dropStaleFrames = dropStaleFrames;
+        this.playoutDelayMs = playoutDelayMs;
+        this.decoderTimeoutUs = decoderTimeoutUs;
+    }
+
+    /**
+     * 循环切换到下一个模式（界面按钮使用）
+     */
+    public PlayoutMode next() {
+        PlayoutMode[] modes = values();
+        return modes[(ordinal() + 1) % modes.length];
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * RTCP 接收报告发送器 (RFC 3550 6.4.2 RR + 6.5 SDES)
+ * 按固定间隔把 RtpReceptionStats 的统计打包成复合 RTCP 包 (RR + SDES CNAME)
+ * 发回视频发送端（默认 RTP 端口 + 1 = 5001），供编码端调整码率。
+ * 设置了 NackGenerator 时，缺失序号到期立即发送 Generic NACK 反馈（RFC 4585），
+ * NACK 单独成包（RFC 5506 精简 RTCP），不打断接收报告的统计区间。
+ * 关键帧请求 (PLI / FIR, RFC 4585 / RFC 5104) 可由任意线程发起，限速后由接收线程发出，
+ * 限速期间的多次请求合并为一次。
+ *
+ * 报告缓冲区预先分配，发送路径不分配内存。
+ * 由接收线程在 RtpUdpReceiver.PacketHandler.onWakeup 中驱动，非线程安全。
+ */
+public final class RtcpReporter implements Closeable {
+
+    public static final int DEFAULT_INTERVAL_MS = 1000;
+    public static final int DEFAULT_KEY_FRAME_INTERVAL_MS = 500;
+
+    private static final int RTCP_VERSION = 2;
+    private static final int PT_RR = 201;
+    private static final int PT_SDES = 202;
+    private static final int PT_PSFB = 206;
+    private static final int FMT_PLI = 1;
+    private static final int FMT_FIR = 4;
+    private static final int SDES_CNAME = 1;
+    private static final int MAX_REPORT_SIZE = 512;
+
+    private final RtpReceptionStats stats;
+    private final InetSocketAddress target;
+    private final long intervalNanos;
+    private final int reporterSsrc;
+    private final byte[] cname;
+    private final ByteBuffer report = ByteBuffer.allocateDirect(MAX_REPORT_SIZE);
+    private DatagramChannel channel;
+    private long nextReportNanos = 0;
+    private NackGenerator nackGenerator;
+
+    // ========== 关键帧请求 ==========
+    private volatile boolean pliPending = false;
+    private volatile boolean firPending = false;
+    private final long keyFrameIntervalNanos = DEFAULT_KEY_FRAME_INTERVAL_MS * 1_000_000L;
+    private long lastKeyFrameRequestNanos = 0;
+    private int firSequence = 0;
+
+    // ========== 统计 ==========
+    private long sentReports = 0;
+    private long sendErrors = 0;
+    private long sentNackPackets = 0;
+    private long sentPli = 0;
+    private long sentFir = 0;
+
+    /**
+     * @param target     发送端 RTCP 地址
+     * @param intervalMs 报告间隔 (ms)
+     * @param cname      本端规范名 (SDES CNAME)
+     */
+    public RtcpReporter(RtpReceptionStats stats, InetSocketAddress target, int intervalMs, String cname) {
+        this.stats = stats;
+        this.target = target;
+        this.intervalNanos = Math.max(1, intervalMs) * 1_000_000L;
+        this.reporterSsrc = new Random().nextInt();
+        byte[] name = cname.getBytes(StandardCharsets.UTF_8);
+        this.cname = name.length > 255 ? Arrays.copyOf(name, 255) : name;
+    }
+
+    /**
+     * 启用 NACK 反馈（null 关闭）
+     */
+    public void setNackGenerator(NackGenerator nackGenerator) {
+        this.nackGenerator = nackGenerator;
+    }
+
+    /**
+     * 请求发送端尽快编码一个 IDR（任意线程，需随后唤醒接收线程）
+     * @param fullIntra true 发送 FIR（解码器重置），false 发送 PLI（参考帧丢失）
+     */
+    public void requestKeyFrame(boolean fullIntra) {
+        if (fullIntra) {
+            firPending = true;
+        } else {
+            pliPending = true;
+        }
+    }
+
+    /**
+     * 到期则发送接收报告 / NACK / 关键帧请求
+     * @return 距下次需要处理的时间 (ns)
+     */
+    public long poll(long nowNanos) {
+        long wait = pollReport(nowNanos);
+        if ((pliPending || firPending) && stats.hasSource()) {
+            long since = nowNanos - lastKeyFrameRequestNanos;
+            if (lastKeyFrameRequestNanos == 0 || since >= keyFrameIntervalNanos) {
+                sendKeyFrameRequest(nowNanos);
+            } else {
+                wait = Math.min(wait, keyFrameIntervalNanos - since);
+            }
+        }
+        if (nackGenerator != null && stats.hasSource()) {
+            long nackWait = nackGenerator.nanosUntilNextDue(nowNanos);
+            if (nackWait == 0) {
+                sendNack(nowNanos);
+                nackWait = nackGenerator.nanosUntilNextDue(nowNanos);
+            }
+            if (nackWait >= 0) {
+                wait = Math.min(wait, nackWait);
+            }
+        }
+        return wait;
+    }
+
+    private long pollReport(long nowNanos) {
+        if (nextReportNanos == 0) {
+            nextReportNanos = nowNanos + intervalNanos;
+        }
+        long wait = nextReportNanos - nowNanos;
+        if (wait > 0) return wait;
+
+        nextReportNanos = nowNanos + intervalNanos;
+        if (stats.hasSource()) {
+            report.clear();
+            writeCompoundReport(report, reporterSsrc, stats, cname);
+            report.flip();
+            if (transmit()) sentReports++;
+        }
+        return intervalNanos;
+    }
+
+    private void sendNack(long nowNanos) {
+        report.clear();
+        if (nackGenerator.writeNack(report, reporterSsrc, stats.getSsrc(), nowNanos) == 0) return;
+        report.flip();
+        if (transmit()) sentNackPackets++;
+    }
+
+    private void sendKeyFrameRequest(long nowNanos) {
+        boolean fir = firPending;
+        pliPending = false;
+        firPending = false;
+        lastKeyFrameRequestNanos = nowNanos;
+
+        report.clear();
+        if (fir) {
+            writeFir(report, reporterSsrc, stats.getSsrc(), firSequence++ & 0xFF);
+        } else {
+            writePli(report, reporterSsrc, stats.getSsrc());
+        }
+        report.flip();
+        if (transmit()) {
+            if (fir) sentFir++;
+            else sentPli++;
+        }
+    }
+
+    /**
+     * Picture Loss Indication (RFC 4585 6.3.1)
+     */
+    static void writePli(ByteBuffer out, int senderSsrc, int mediaSsrc) {
+        out.put((byte) ((RTCP_VERSION << 6) | FMT_PLI));
+        out.put((byte) PT_PSFB);
+        out.putShort((short) 2);
+        out.putInt(senderSsrc);
+        out.putInt(mediaSsrc);
+    }
+
+    /**
+     * Full Intra Request (RFC 5104 4.3.1)，media SSRC 字段置 0，目标在 FCI 中
+     */
+    static void writeFir(ByteBuffer out, int senderSsrc, int mediaSsrc, int sequence) {
+        out.put((byte) ((RTCP_VERSION << 6) | FMT_FIR));
+        out.put((byte) PT_PSFB);
+        out.putShort((short) 4);
+        out.putInt(senderSsrc);
+        out.putInt(0);
+        out.putInt(mediaSsrc);
+        out.putInt(sequence << 24);
+    }
+
+    private boolean transmit() {
+        try {
+            if (channel == null) {
+                // 不 connect：发送端未监听 RTCP 端口时 ICMP 不可达不会让后续发送抛异常
+                channel = DatagramChannel.open();
+                channel.configureBlocking(false);
+            }
+            channel.send(report, target);
+            return true;
+        } catch (IOException e) {
+            sendErrors++;
+            return false;
+        }
+    }
+
+    /**
+     * 写入复合 RTCP 包：RR (1 个报告块) + SDES (CNAME)
+     * 会结束当前统计区间（计算区间丢包率）
+     */
+    static void writeCompoundReport(ByteBuffer out, int reporterSsrc, RtpReceptionStats stats, byte[] cname) {
+        // ========== RR ==========
+        int fraction = stats.closeInterval();
+        long lost = stats.getCumulativeLost();
+        lost = Math.max(-0x800000, Math.min(0x7FFFFF, lost)); // 24 位有符号
+
+        out.put((byte) ((RTCP_VERSION << 6) | 1)); // RC = 1
+        out.put((byte) PT_RR);
+        out.putShort((short) 7);                    // 长度 (32 位字数 - 1)
+        out.putInt(reporterSsrc);
+        out.putInt(stats.getSsrc());
+        out.putInt((fraction << 24) | (int) (lost & 0xFFFFFF));
+        out.putInt((int) stats.getExtendedHighestSeq());
+        out.putInt((int) stats.getJitter());
+        out.putInt(0); // LSR：发送端未发 SR
+        out.putInt(0); // DLSR
+
+        // ========== SDES ==========
+        int chunkLength = 4 + 2 + cname.length + 1;  // SSRC + CNAME 项 + 结束标记
+        int paddedChunk = (chunkLength + 3) & ~3;
+        out.put((byte) ((RTCP_VERSION << 6) | 1)); // SC = 1
+        out.put((byte) PT_SDES);
+        out.putShort((short) (paddedChunk / 4));
+        out.putInt(reporterSsrc);
+        out.put((byte) SDES_CNAME);
+        out.put((byte) cname.length);
+        out.put(cname);
+        for (int i = chunkLength - 1; i < paddedChunk; i++) {
+            out.put((byte) 0); // 结束标记 + 对齐填充
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // ========== 统计 ==========
+
+    public int getReporterSsrc() {
+        return reporterSsrc;
+    }
+
+    public long getSentReports() {
+        return sentReports;
+    }
+
+    public long getSentNackPackets() {
+        return sentNackPackets;
+    }
+
+    public long getSentPli() {
+        return sentPli;
+    }
+
+    public long getSentFir() {
+        return sentFir;
+    }
+
+    public long getSendErrors() {
+        return sendErrors;
+    }
+}
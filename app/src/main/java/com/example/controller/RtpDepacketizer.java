@@ -0,0 +1,298 @@
+package com.example.controller;
+
+import java.nio.ByteBuffer;
+
+/**
+ * RTP 视频解包引擎公共部分 (RFC 3550)
+ * RTP Header 解析、丢包检测、时间戳展开、分片组装缓冲区与聚合包拆分由本类完成，
+ * 子类只解释 payload 格式（H.264: RFC 6184，H.265: RFC 7798）。
+ *
+ * 数据包由调用方持有的缓冲区传入（byte[] 或 ByteBuffer，直接缓冲区直接解析包头），
+ * 解出的 NALU（不含起始码）连同 RTP 时间戳、Marker 位一起通过回调输出，
+ * 热路径上不做任何对象分配。
+ *
+ * 非线程安全，只能在 RTP 接收线程中使用。
+ */
+public abstract class RtpDepacketizer {
+
+    /**
+     * NALU 输出回调
+     */
+    public interface NaluListener {
+        /**
+         * 收到一个完整 NALU
+         * @param data   数据所在数组（调用方或解包器的缓冲区，仅在回调期间有效）
+         * @param offset NAL Header 起始位置
+         * @param length NALU 长度（不含起始码）
+         * @param rtpTimestamp RTP 时间戳 (90kHz，已展开为 64 位)
+         * @param marker       该 NALU 是否为 Marker 位包中的最后一个 NALU（访问单元结束）
+         */
+        void onNalu(byte[] data, int offset, int length, long rtpTimestamp, boolean marker);
+
+        /**
+         * 检测到 RTP 序号不连续
+         * @param expectedSeq 期望的序号
+         * @param receivedSeq 实际收到的序号
+         * @param lost        丢失的包数
+         */
+        default void onPacketLoss(int expectedSeq, int receivedSeq, int lost) {
+        }
+    }
+
+    // ========== 常量 ==========
+    public static final int RTP_HEADER_SIZE = 12;
+    public static final int DEFAULT_MAX_NALU_SIZE = 200000; // 200KB
+
+    // ========== 组件 ==========
+    protected final NaluListener listener;
+    private final RtpTimestampUnwrapper timestampUnwrapper = new RtpTimestampUnwrapper();
+    protected final byte[] fuBuffer;
+    private int fuLength = 0;
+    private boolean assemblingFragment = false;
+    private int fragmentType = -1;
+    private byte[] payloadBuffer = new byte[0]; // 直接缓冲区 payload 中转（按需扩容，之后复用）
+    private int payloadArrayOffset;             // payloadArray() 返回数组中的 payload 起始位置
+    private ByteBuffer wrapped;                 // byte[] 入口复用的包装视图
+
+    // ========== RTP 状态 ==========
+    private int lastSequence = -1;
+
+    // ========== 统计 ==========
+    private long droppedPackets = 0;
+    private long unsupportedPackets = 0;
+    private long oversizedNalus = 0;
+    private long malformedPackets = 0;
+
+    protected RtpDepacketizer(NaluListener listener, int maxNaluSize) {
+        if (listener == null) throw new IllegalArgumentException("listener == null");
+        this.listener = listener;
+        this.fuBuffer = new byte[maxNaluSize];
+    }
+
+    /**
+     * 处理单个 RTP 包
+     * @param data   包所在数组
+     * @param offset RTP Header 起始位置
+     * @param length 包长度
+     */
+    public final void process(byte[] data, int offset, int length) {
+        if (wrapped == null || wrapped.array() != data) {
+            wrapped = ByteBuffer.wrap(data);
+        }
+        wrapped.clear();
+        wrapped.position(offset);
+        wrapped.limit(offset + length);
+        process(wrapped);
+    }
+
+    /**
+     * 处理单个 RTP 包（position ~ limit 之间，处理后 position 不保证保持不变）
+     */
+    public final void process(ByteBuffer packet) {
+        int offset = packet.position();
+        int length = packet.remaining();
+        if (length < RTP_HEADER_SIZE) {
+            droppedPackets++;
+            return;
+        }
+
+        // ========== 解析 RTP Header (RFC 3550) ==========
+
+        byte b0 = packet.get(offset);
+        boolean padding = (b0 & 0x20) != 0;
+        boolean hasExtension = (b0 & 0x10) != 0;
+        int csrcCount = b0 & 0x0F;
+        boolean marker = (packet.get(offset + 1) & 0x80) != 0;
+        int sequence = packet.getShort(offset + 2) & 0xFFFF;
+        long rtpTimestamp = timestampUnwrapper.unwrap(packet.getInt(offset + 4) & 0xFFFFFFFFL);
+
+        // 检测丢包
+        if (lastSequence != -1) {
+            int expectedSeq = (lastSequence + 1) & 0xFFFF;
+            if (sequence != expectedSeq) {
+                int lost = (sequence - expectedSeq) & 0xFFFF;
+                droppedPackets += lost;
+                listener.onPacketLoss(expectedSeq, sequence, lost);
+
+                // 重置分片组装状态
+                resetFragment();
+            }
+        }
+        lastSequence = sequence;
+
+        // 计算 Payload 偏移
+        int headerSize = RTP_HEADER_SIZE + (csrcCount * 4);
+        if (hasExtension && length > headerSize + 4) {
+            int extLen = packet.getShort(offset + headerSize + 2) & 0xFFFF;
+            headerSize += 4 + (extLen * 4);
+        }
+
+        if (padding && length > headerSize) {
+            int paddingLen = packet.get(offset + length - 1) & 0xFF;
+            length -= paddingLen;
+        }
+
+        if (headerSize >= length) {
+            droppedPackets++;
+            return;
+        }
+
+        processPayload(packet, offset + headerSize, length - headerSize, rtpTimestamp, marker);
+    }
+
+    /**
+     * 解释 payload（payloadPosition 为 packet 内的绝对位置）
+     */
+    protected abstract void processPayload(ByteBuffer packet, int payloadPosition, int payloadSize,
+                                           long rtpTimestamp, boolean marker);
+
+    /**
+     * 取得 payload 所在数组：堆缓冲区直接用底层数组，直接缓冲区拷出 payload
+     * payload 在返回数组中的起始位置由 {@link #payloadArrayOffset()} 给出
+     */
+    protected final byte[] payloadArray(ByteBuffer packet, int payloadPosition, int payloadSize) {
+        if (packet.hasArray()) {
+            payloadArrayOffset = packet.arrayOffset() + payloadPosition;
+            return packet.array();
+        }
+        if (payloadBuffer.length < payloadSize) {
+            payloadBuffer = new byte[payloadSize];
+        }
+        packet.position(payloadPosition);
+        packet.get(payloadBuffer, 0, payloadSize);
+        payloadArrayOffset = 0;
+        return payloadBuffer;
+    }
+
+    protected final int payloadArrayOffset() {
+        return payloadArrayOffset;
+    }
+
+    /**
+     * 记录一个不支持的 payload 类型
+     */
+    protected final void countUnsupported() {
+        unsupportedPackets++;
+    }
+
+    // ========== 聚合包 ==========
+
+    /**
+     * 拆分聚合包 (H.264 STAP-A / H.265 AP)：
+     * [聚合包 Header headerSize 字节] { [NALU Size 2B] [NALU] } ...
+     * 先校验全部长度字段，整包合法才回调，避免输出半个访问单元；
+     * Marker 位只属于最后一个 NALU
+     */
+    protected final void processAggregation(byte[] data, int offset, int length, int headerSize,
+                                            long rtpTimestamp, boolean marker) {
+        int end = offset + length;
+        int pos = offset + headerSize;
+        int lastNaluPos = -1;
+        while (pos + 2 <= end) {
+            int naluSize = ((data[pos] & 0xFF) << 8) | (data[pos + 1] & 0xFF);
+            if (naluSize == 0 || pos + 2 + naluSize > end) {
+                break;
+            }
+            lastNaluPos = pos;
+            pos += 2 + naluSize;
+        }
+        if (lastNaluPos < 0 || pos != end) {
+            // 长度字段越界或有残余字节：整包丢弃
+            malformedPackets++;
+            return;
+        }
+
+        pos = offset + headerSize;
+        while (pos < end) {
+            int naluSize = ((data[pos] & 0xFF) << 8) | (data[pos + 1] & 0xFF);
+            listener.onNalu(data, pos + 2, naluSize, rtpTimestamp, marker && pos == lastNaluPos);
+            pos += 2 + naluSize;
+        }
+    }
+
+    // ========== 分片组装 ==========
+
+    /**
+     * 起始分片：片段拷到 fuBuffer[naluHeaderSize] 之后，NAL Header 由子类随后写入 fuBuffer 开头
+     * @return 超过最大长度时返回 false（已重置状态）
+     */
+    protected final boolean startFragment(int type, int naluHeaderSize, ByteBuffer packet, int position, int size) {
+        if (naluHeaderSize + size > fuBuffer.length) {
+            oversizedNalus++;
+            resetFragment();
+            return false;
+        }
+        packet.position(position);
+        packet.get(fuBuffer, naluHeaderSize, size);
+        fuLength = naluHeaderSize + size;
+        assemblingFragment = true;
+        fragmentType = type;
+        return true;
+    }
+
+    /**
+     * 中间或结束分片
+     * @return 起始分片丢失、类型不匹配或超长时返回 false（已重置状态）
+     */
+    protected final boolean continueFragment(int type, ByteBuffer packet, int position, int size) {
+        if (!assemblingFragment || fragmentType != type) {
+            resetFragment();
+            return false;
+        }
+        if (fuLength + size > fuBuffer.length) {
+            oversizedNalus++;
+            resetFragment();
+            return false;
+        }
+        packet.position(position);
+        packet.get(fuBuffer, fuLength, size);
+        fuLength += size;
+        return true;
+    }
+
+    /**
+     * 结束分片：输出完整 NALU
+     */
+    protected final void finishFragment(long rtpTimestamp, boolean marker) {
+        int naluLength = fuLength;
+        resetFragment();
+        listener.onNalu(fuBuffer, 0, naluLength, rtpTimestamp, marker);
+    }
+
+    private void resetFragment() {
+        fuLength = 0;
+        assemblingFragment = false;
+        fragmentType = -1;
+    }
+
+    /**
+     * 重置全部解包状态（停止/重启流时调用）
+     */
+    public void reset() {
+        resetFragment();
+        lastSequence = -1;
+        timestampUnwrapper.reset();
+    }
+
+    // ========== 统计 ==========
+
+    /** 丢失或无效的 RTP 包总数 */
+    public long getDroppedPackets() {
+        return droppedPackets;
+    }
+
+    /** 不支持的 NAL 类型包数 */
+    public long getUnsupportedPackets() {
+        return unsupportedPackets;
+    }
+
+    /** 超过最大长度被丢弃的 NALU 数 */
+    public long getOversizedNalus() {
+        return oversizedNalus;
+    }
+
+    /** 长度字段非法被丢弃的聚合包数 */
+    public long getMalformedPackets() {
+        return malformedPackets;
+    }
+}
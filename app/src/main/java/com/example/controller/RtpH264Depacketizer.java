@@ -0,0 +1,89 @@
+package com.example.controller;
+
+import java.nio.ByteBuffer;
+
+/**
+ * RTP/H.264 解包引擎 (RFC 3550 + RFC 6184)
+ * 纯 Java 实现，不依赖 android.*，可在 JVM 上直接做单元测试和 JMH 基准
+ *
+ * RTP Header 与丢包检测由 {@link RtpDepacketizer} 完成，本类解释 H.264 payload：
+ * - 单 NAL 包：直接回调包内 payload 视图，零拷贝（直接缓冲区需先拷出 payload）
+ * - STAP-A 聚合包：按长度字段逐个回调包内 NALU 视图，零拷贝（同上）
+ * - FU-A 分片：从包内直接拷贝到内部复用缓冲区组装后回调
+ *
+ * 非线程安全，只能在 RTP 接收线程中使用。
+ *
+ * @author h4rvey626
+ */
+public final class RtpH264Depacketizer extends RtpDepacketizer {
+
+    private static final int NAL_TYPE_STAP_A = 24;
+    private static final int NAL_TYPE_FU_A = 28;
+
+    public RtpH264Depacketizer(NaluListener listener) {
+        this(listener, DEFAULT_MAX_NALU_SIZE);
+    }
+
+    public RtpH264Depacketizer(NaluListener listener, int maxNaluSize) {
+        super(listener, maxNaluSize);
+    }
+
+    // ========== 处理 H.264 Payload (RFC 6184) ==========
+
+    @Override
+    protected void processPayload(ByteBuffer packet, int payloadPosition, int payloadSize,
+                                  long rtpTimestamp, boolean marker) {
+        int nalUnitType = packet.get(payloadPosition) & 0x1F;
+
+        if (nalUnitType == NAL_TYPE_FU_A) {
+            // FU-A 分片包：直接拷入组装缓冲区
+            processFUAPacket(packet, payloadPosition, payloadSize, rtpTimestamp, marker);
+            return;
+        }
+        if (nalUnitType != NAL_TYPE_STAP_A && (nalUnitType < 1 || nalUnitType > 23)) {
+            countUnsupported();
+            return;
+        }
+
+        byte[] data = payloadArray(packet, payloadPosition, payloadSize);
+        int payloadOffset = payloadArrayOffset();
+
+        if (nalUnitType == NAL_TYPE_STAP_A) {
+            // STAP-A 聚合包（常见于 SPS + PPS + IDR），RFC 6184 5.7.1
+            processAggregation(data, payloadOffset, payloadSize, 1, rtpTimestamp, marker);
+        } else {
+            // 单个 NAL 单元：直接回调
+            listener.onNalu(data, payloadOffset, payloadSize, rtpTimestamp, marker);
+        }
+    }
+
+    /**
+     * 处理 FU-A 分片包 (RFC 6184 5.8)
+     * [FU indicator 1B] [FU header 1B: S E R Type(5)] [片段]
+     */
+    private void processFUAPacket(ByteBuffer packet, int offset, int length, long rtpTimestamp, boolean marker) {
+        if (length < 2) return;
+
+        byte fuIndicator = packet.get(offset);
+        byte fuHeader = packet.get(offset + 1);
+
+        boolean isStart = (fuHeader & 0x80) != 0;
+        boolean isEnd = (fuHeader & 0x40) != 0;
+        int nalType = fuHeader & 0x1F;
+        int fragmentSize = length - 2;
+
+        if (isStart) {
+            // FU-A 开始：重建 NAL Header
+            if (!startFragment(nalType, 1, packet, offset + 2, fragmentSize)) return;
+            fuBuffer[0] = (byte) ((fuIndicator & 0xE0) | nalType);
+        } else if (!continueFragment(nalType, packet, offset + 2, fragmentSize)) {
+            // 状态不匹配（丢失起始片段）或超长，已重置
+            return;
+        }
+
+        if (isEnd) {
+            // FU-A 结束，输出完整 NALU
+            finishFragment(rtpTimestamp, marker);
+        }
+    }
+}
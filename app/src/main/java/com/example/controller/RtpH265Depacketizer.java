@@ -0,0 +1,98 @@
+package com.example.controller;
+
+import java.nio.ByteBuffer;
+
+/**
+ * RTP/H.265 (HEVC) 解包引擎 (RFC 3550 + RFC 7798)
+ * 纯 Java 实现，不依赖 android.*，与 {@link RtpH264Depacketizer} 共用 RTP 解析与输出回调
+ *
+ * H.265 NAL Header 为 2 字节：F(1) Type(6) LayerId(6) TID(3)
+ * - 单 NAL 包 (Type 0~47)：直接回调包内 payload 视图
+ * - AP 聚合包 (Type 48)：按长度字段逐个回调包内 NALU 视图（常见于 VPS + SPS + PPS）
+ * - FU 分片 (Type 49)：拷贝到内部复用缓冲区组装，重建 2 字节 NAL Header 后回调
+ * - PACI (Type 50) 及保留类型：计入 unsupported 丢弃
+ *
+ * 假设 sprop-max-don-diff = 0（发送端不交错，gstreamer rtph265pay 默认如此），
+ * 即 AP/FU 中不携带 DONL/DOND 字段。
+ *
+ * 非线程安全，只能在 RTP 接收线程中使用。
+ */
+public final class RtpH265Depacketizer extends RtpDepacketizer {
+
+    private static final int NAL_TYPE_AP = 48;
+    private static final int NAL_TYPE_FU = 49;
+    private static final int PAYLOAD_HEADER_SIZE = 2;
+
+    public RtpH265Depacketizer(NaluListener listener) {
+        this(listener, DEFAULT_MAX_NALU_SIZE);
+    }
+
+    public RtpH265Depacketizer(NaluListener listener, int maxNaluSize) {
+        super(listener, maxNaluSize);
+    }
+
+    // ========== 处理 H.265 Payload (RFC 7798) ==========
+
+    @Override
+    protected void processPayload(ByteBuffer packet, int payloadPosition, int payloadSize,
+                                  long rtpTimestamp, boolean marker) {
+        if (payloadSize < PAYLOAD_HEADER_SIZE) {
+            countUnsupported();
+            return;
+        }
+        int nalUnitType = (packet.get(payloadPosition) >> 1) & 0x3F;
+
+        if (nalUnitType == NAL_TYPE_FU) {
+            processFUPacket(packet, payloadPosition, payloadSize, rtpTimestamp, marker);
+            return;
+        }
+        if (nalUnitType > NAL_TYPE_AP) {
+            // PACI (50) 与保留类型
+            countUnsupported();
+            return;
+        }
+
+        byte[] data = payloadArray(packet, payloadPosition, payloadSize);
+        int payloadOffset = payloadArrayOffset();
+
+        if (nalUnitType == NAL_TYPE_AP) {
+            // AP 聚合包 (RFC 7798 4.4.2)：[PayloadHdr 2B] { [NALU Size 2B] [NALU] } ...
+            processAggregation(data, payloadOffset, payloadSize, PAYLOAD_HEADER_SIZE, rtpTimestamp, marker);
+        } else {
+            // 单个 NAL 单元：直接回调
+            listener.onNalu(data, payloadOffset, payloadSize, rtpTimestamp, marker);
+        }
+    }
+
+    /**
+     * 处理 FU 分片包 (RFC 7798 4.4.3)
+     * [PayloadHdr 2B, Type = 49] [FU header 1B: S E FuType(6)] [片段]
+     * 原 NAL Header = PayloadHdr 中的 F / LayerId / TID + FuType
+     */
+    private void processFUPacket(ByteBuffer packet, int offset, int length, long rtpTimestamp, boolean marker) {
+        if (length < 3) return;
+
+        byte payloadHdr0 = packet.get(offset);
+        byte payloadHdr1 = packet.get(offset + 1);
+        byte fuHeader = packet.get(offset + 2);
+
+        boolean isStart = (fuHeader & 0x80) != 0;
+        boolean isEnd = (fuHeader & 0x40) != 0;
+        int nalType = fuHeader & 0x3F;
+        int fragmentSize = length - 3;
+
+        if (isStart) {
+            // FU 开始：重建 2 字节 NAL Header
+            if (!startFragment(nalType, 2, packet, offset + 3, fragmentSize)) return;
+            fuBuffer[0] = (byte) ((payloadHdr0 & 0x81) | (nalType << 1));
+            fuBuffer[1] = payloadHdr1;
+        } else if (!continueFragment(nalType, packet, offset + 3, fragmentSize)) {
+            // 状态不匹配（丢失起始片段）或超长，已重置
+            return;
+        }
+
+        if (isEnd) {
+            finishFragment(rtpTimestamp, marker);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.controller;
+
+import java.nio.ByteBuffer;
+
+/**
+ * RTP 接收统计 (RFC 3550 附录 A.1 / A.3 / A.8)
+ * 逐包增量更新：扩展最高序号、累计丢包、区间丢包率、到达间隔抖动，
+ * 供 RTCP 接收报告 (RR) 使用。热路径上不做任何对象分配。
+ *
+ * 应在收包处（重排之前）按实际到达顺序调用，这样抖动反映的是真实网络到达时间。
+ * 非线程安全，只能在 RTP 接收线程中使用。
+ */
+public final class RtpReceptionStats {
+
+    public static final int CLOCK_RATE = 90000; // H.264 视频 RTP 时钟 90kHz
+
+    private static final int RTP_SEQ_MOD = 1 << 16;
+    private static final int MAX_DROPOUT = 3000;
+    private static final int MAX_MISORDER = 100;
+    private static final int MIN_SEQUENTIAL = 2;
+
+    // ========== 序号状态 (A.1) ==========
+    private boolean hasSource = false;
+    private int ssrc;
+    private int maxSeq;
+    private long cycles;
+    private int baseSeq;
+    private int badSeq;
+    private int probation;
+    private long received;
+    private long expectedPrior;
+    private long receivedPrior;
+
+    // ========== 抖动 (A.8) ==========
+    private int transit;
+    private boolean hasTransit = false;
+    private long jitterQ4 = 0; // 抖动 × 16（RFC 中的定点写法）
+
+    // ========== 其他 ==========
+    private int lastFractionLost = 0;
+    private long invalidPackets = 0;
+
+    /**
+     * 记录一个 RTP 包（position ~ limit 之间）
+     * @return 该包是否计入统计（探测期、序号大跳变时返回 false）
+     */
+    public boolean onPacket(ByteBuffer packet, long arrivalNanos) {
+        int offset = packet.position();
+        if (packet.remaining() < RtpH264Depacketizer.RTP_HEADER_SIZE || (packet.get(offset) & 0xC0) != 0x80) {
+            invalidPackets++;
+            return false;
+        }
+        return onPacket(packet.getInt(offset + 8), packet.getShort(offset + 2) & 0xFFFF,
+                packet.getInt(offset + 4), arrivalNanos);
+    }
+
+    /**
+     * 记录一个 RTP 包
+     * @param ssrc         发送端 SSRC
+     * @param seq          16 位序号
+     * @param rtpTimestamp 32 位 RTP 时间戳
+     * @param arrivalNanos 到达时间 (System.nanoTime)
+     */
+    public boolean onPacket(int ssrc, int seq, int rtpTimestamp, long arrivalNanos) {
+        if (!hasSource || ssrc != this.ssrc) {
+            // 新的发送端（或发送端重启换了 SSRC）：重新开始统计
+            hasSource = true;
+            this.ssrc = ssrc;
+            initSeq(seq);
+            maxSeq = (seq - 1) & 0xFFFF;
+            probation = MIN_SEQUENTIAL;
+            hasTransit = false;
+            jitterQ4 = 0;
+        }
+
+        if (!updateSeq(seq)) {
+            return false;
+        }
+        updateJitter(rtpTimestamp, arrivalNanos);
+        return true;
+    }
+
+    private void initSeq(int seq) {
+        baseSeq = seq;
+        maxSeq = seq;
+        badSeq = RTP_SEQ_MOD + 1; // 不可能的序号
+        cycles = 0;
+        received = 0;
+        receivedPrior = 0;
+        expectedPrior = 0;
+    }
+
+    /**
+     * RFC 3550 A.1 update_seq
+     */
+    private boolean updateSeq(int seq) {
+        int udelta = (seq - maxSeq) & 0xFFFF;
+
+        if (probation > 0) {
+            // 探测期：需要连续 MIN_SEQUENTIAL 个包才确认来源
+            if (seq == ((maxSeq + 1) & 0xFFFF)) {
+                probation--;
+                maxSeq = seq;
+                if (probation == 0) {
+                    initSeq(seq);
+                    received++;
+                    return true;
+                }
+            } else {
+                probation = MIN_SEQUENTIAL - 1;
+                maxSeq = seq;
+            }
+            return false;
+        } else if (udelta < MAX_DROPOUT) {
+            // 正常前进（允许有缺口）
+            if (seq < maxSeq) {
+                cycles += RTP_SEQ_MOD; // 序号回绕
+            }
+            maxSeq = seq;
+        } else if (udelta <= RTP_SEQ_MOD - MAX_MISORDER) {
+            // 序号大跳变
+            if (seq == badSeq) {
+                // 连续两个包都在新位置：发送端重启，重新同步
+                initSeq(seq);
+            } else {
+                badSeq = (seq + 1) & 0xFFFF;
+                return false;
+            }
+        } else {
+            // 重复或乱序包，照常计数
+        }
+        received++;
+        return true;
+    }
+
+    /**
+     * RFC 3550 A.8 到达间隔抖动
+     */
+    private void updateJitter(int rtpTimestamp, long arrivalNanos) {
+        int arrival = (int) (arrivalNanos * (CLOCK_RATE / 1000) / 1_000_000L); // 转换为 RTP 时钟单位
+        int newTransit = arrival - rtpTimestamp;
+        if (hasTransit) {
+            int d = newTransit - transit;
+            if (d < 0) d = -d;
+            jitterQ4 += d - ((jitterQ4 + 8) >> 4);
+        }
+        transit = newTransit;
+        hasTransit = true;
+    }
+
+    /**
+     * 结束一个报告区间：计算本区间丢包率 (A.3) 并记下新的区间起点
+     * 每次生成 RTCP 接收报告时调用一次
+     * @return 丢包率，8 位定点 (0~255 对应 0~1)
+     */
+    public int closeInterval() {
+        long expected = getExpected();
+        long expectedInterval = expected - expectedPrior;
+        long receivedInterval = received - receivedPrior;
+        expectedPrior = expected;
+        receivedPrior = received;
+
+        long lostInterval = expectedInterval - receivedInterval;
+        if (expectedInterval == 0 || lostInterval <= 0) {
+            lastFractionLost = 0;
+        } else {
+            lastFractionLost = (int) ((lostInterval << 8) / expectedInterval);
+        }
+        return lastFractionLost;
+    }
+
+    /**
+     * 清空全部状态（重启流时调用）
+     */
+    public void reset() {
+        hasSource = false;
+        hasTransit = false;
+        jitterQ4 = 0;
+        lastFractionLost = 0;
+        received = 0;
+        receivedPrior = 0;
+        expectedPrior = 0;
+        cycles = 0;
+    }
+
+    // ========== 查询 ==========
+
+    /** 是否已确认发送端（探测期结束） */
+    public boolean hasSource() {
+        return hasSource && probation == 0;
+    }
+
+    /** 发送端 SSRC */
+    public int getSsrc() {
+        return ssrc;
+    }
+
+    /** 扩展最高序号（高 16 位为回绕次数） */
+    public long getExtendedHighestSeq() {
+        return cycles + maxSeq;
+    }
+
+    /** 应收包数 */
+    public long getExpected() {
+        return hasSource() ? getExtendedHighestSeq() - baseSeq + 1 : 0;
+    }
+
+    /** 实收包数（含重复包） */
+    public long getReceived() {
+        return received;
+    }
+
+    /** 累计丢包数（重复包可使其为负） */
+    public long getCumulativeLost() {
+        return getExpected() - received;
+    }
+
+    /** 最近一次 closeInterval() 计算出的丢包率 (0~255) */
+    public int getLastFractionLost() {
+        return lastFractionLost;
+    }
+
+    /** 到达间隔抖动 (RTP 时钟单位) */
+    public long getJitter() {
+        return jitterQ4 >> 4;
+    }
+
+    /** 到达间隔抖动 (ms) */
+    public double getJitterMs() {
+        return getJitter() * 1000.0 / CLOCK_RATE;
+    }
+
+    /** 版本号错误或过短的包数 */
+    public long getInvalidPackets() {
+        return invalidPackets;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.controller;
+
+import java.nio.ByteBuffer;
+
+/**
+ * RTP 乱序重排缓冲区 (按序号索引，支持 16 位回绕)
+ * 位于解包器之前：按序到达的包直接零拷贝透传（可以是直接缓冲区）；超前到达的包拷贝到预分配槽位暂存，
+ * 等缺失的包补齐后按序输出。缺口等待超过最大保持时间后才判定为丢包并跳过，
+ * 因此轻微乱序不再被当成丢包。
+ *
+ * 最大保持时间为 0 时完全透传，行为与未加缓冲区时一致。
+ *
+ * 纯 Java 实现，非线程安全（除 setMaxHoldMillis 外），只能在 RTP 接收线程中使用。
+ */
+public final class RtpReorderBuffer {
+
+    /**
+     * 按序输出回调
+     */
+    public interface PacketListener {
+        /**
+         * 输出一个按序的 RTP 包（position ~ limit 之间，仅在回调期间有效，回调内可改动 position）
+         * @param arrivalNanos 该包实际到达时间 (System.nanoTime)
+         */
+        void onPacket(ByteBuffer packet, long arrivalNanos);
+
+        /**
+         * 缺口等待超时，判定丢包
+         * @param firstSeq 第一个丢失的序号
+         * @param count    连续丢失的包数
+         */
+        default void onPacketsLost(int firstSeq, int count) {
+        }
+    }
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final PacketListener listener;
+    private final int capacity;
+    private final int mask;
+
+    // ========== 槽位 (预分配) ==========
+    private final ByteBuffer[] slotData;
+    private final int[] slotLength;
+    private final int[] slotSeq;
+    private final long[] slotArrival;
+    private final boolean[] occupied;
+    private int heldCount = 0;
+
+    private int nextSeq = -1; // 下一个期望输出的序号
+    private volatile long maxHoldNanos;
+    private ByteBuffer wrapped; // byte[] 入口复用的包装视图
+
+    // ========== 统计 ==========
+    private long reorderedPackets = 0;
+    private long duplicatePackets = 0;
+    private long latePackets = 0;
+    private long lostPackets = 0;
+    private long oversizedPackets = 0;
+
+    /**
+     * @param capacity      槽位数（2 的幂）
+     * @param maxPacketSize 单个包最大长度
+     * @param maxHoldMillis 缺口最大等待时间 (ms)，0 表示透传
+     */
+    public RtpReorderBuffer(PacketListener listener, int capacity, int maxPacketSize, int maxHoldMillis) {
+        if (listener == null) throw new IllegalArgumentException("listener == null");
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("capacity must be a power of 2: " + capacity);
+        }
+        this.listener = listener;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slotData = new ByteBuffer[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slotData[i] = ByteBuffer.allocate(maxPacketSize);
+        }
+        this.slotLength = new int[capacity];
+        this.slotSeq = new int[capacity];
+        this.slotArrival = new long[capacity];
+        this.occupied = new boolean[capacity];
+        setMaxHoldMillis(maxHoldMillis);
+    }
+
+    /**
+     * 运行时调整最大保持时间（任意线程）
+     */
+    public void setMaxHoldMillis(int millis) {
+        maxHoldNanos = Math.max(0, millis) * 1_000_000L;
+    }
+
+    public int getMaxHoldMillis() {
+        return (int) (maxHoldNanos / 1_000_000L);
+    }
+
+    /**
+     * 输入一个 RTP 包（数组形式）
+     */
+    public void push(byte[] data, int offset, int length, long nowNanos) {
+        if (wrapped == null || wrapped.array() != data) {
+            wrapped = ByteBuffer.wrap(data);
+        }
+        wrapped.clear();
+        wrapped.position(offset);
+        wrapped.limit(offset + length);
+        push(wrapped, nowNanos);
+    }
+
+    /**
+     * 输入一个 RTP 包（position ~ limit 之间）
+     */
+    public void push(ByteBuffer packet, long nowNanos) {
+        int offset = packet.position();
+        int length = packet.remaining();
+        if (length < RtpH264Depacketizer.RTP_HEADER_SIZE) {
+            listener.onPacket(packet, nowNanos); // 交给解包器统计无效包
+            return;
+        }
+        int seq = packet.getShort(offset + 2) & 0xFFFF;
+
+        if (maxHoldNanos == 0 && heldCount == 0) {
+            // 透传模式
+            nextSeq = (seq + 1) & 0xFFFF;
+            listener.onPacket(packet, nowNanos);
+            return;
+        }
+
+        if (nextSeq < 0) {
+            nextSeq = seq;
+        }
+
+        int diff = (short) (seq - nextSeq); // 有符号 16 位差值，处理回绕
+
+        if (diff < 0) {
+            // 已经输出过或已判定丢失的序号
+            if (-diff < capacity) {
+                latePackets++;
+                return;
+            }
+            // 差距过大：视为发送端重启，清空重新同步
+            resync(seq);
+            diff = 0;
+        } else if (diff >= capacity) {
+            // 超出窗口：先按序输出暂存的包，再从新序号开始
+            resync(seq);
+            diff = 0;
+        }
+
+        if (diff == 0) {
+            listener.onPacket(packet, nowNanos);
+            nextSeq = (nextSeq + 1) & 0xFFFF;
+            drainInOrder();
+            return;
+        }
+
+        // 超前到达：暂存
+        int slot = seq & mask;
+        if (occupied[slot]) {
+            duplicatePackets++;
+            return;
+        }
+        ByteBuffer held = slotData[slot];
+        if (length > held.capacity()) {
+            oversizedPackets++; // 槽位放不下：丢弃，缺口超时后按丢包上报
+            return;
+        }
+        held.clear();
+        held.put(packet);
+        packet.position(offset);
+        slotLength[slot] = length;
+        slotSeq[slot] = seq;
+        slotArrival[slot] = nowNanos;
+        occupied[slot] = true;
+        heldCount++;
+
+        flushExpired(nowNanos);
+    }
+
+    /**
+     * 检查缺口是否等待超时；超时则跳过缺失的包并输出后续暂存包
+     * 接收超时或每次收包后调用
+     */
+    public void flushExpired(long nowNanos) {
+        while (heldCount > 0) {
+            int first = firstHeldOffset();
+            int slot = (nextSeq + first) & mask;
+            if (nowNanos - slotArrival[slot] < maxHoldNanos) {
+                return;
+            }
+            skipTo(first);
+        }
+    }
+
+    /**
+     * 最早暂存包还需等待的时间 (ns)，没有暂存包时返回 -1
+     */
+    public long nanosUntilNextDeadline(long nowNanos) {
+        if (heldCount == 0) return -1;
+        int slot = (nextSeq + firstHeldOffset()) & mask;
+        return Math.max(0, slotArrival[slot] + maxHoldNanos - nowNanos);
+    }
+
+    public boolean hasPending() {
+        return heldCount > 0;
+    }
+
+    /**
+     * 清空全部状态（停止/重启流时调用）
+     */
+    public void reset() {
+        for (int i = 0; i < capacity; i++) {
+            occupied[i] = false;
+        }
+        heldCount = 0;
+        nextSeq = -1;
+    }
+
+    // ========== 内部实现 ==========
+
+    private int firstHeldOffset() {
+        for (int i = 1; i < capacity; i++) {
+            if (occupied[(nextSeq + i) & mask]) return i;
+        }
+        return 0; // heldCount > 0 时不会到达
+    }
+
+    /**
+     * 判定 [nextSeq, nextSeq + offset) 丢失，然后按序输出
+     */
+    private void skipTo(int offset) {
+        lostPackets += offset;
+        listener.onPacketsLost(nextSeq, offset);
+        nextSeq = (nextSeq + offset) & 0xFFFF;
+        drainInOrder();
+    }
+
+    private void drainInOrder() {
+        while (heldCount > 0) {
+            int slot = nextSeq & mask;
+            if (!occupied[slot] || slotSeq[slot] != nextSeq) return;
+            occupied[slot] = false;
+            heldCount--;
+            reorderedPackets++;
+            ByteBuffer held = slotData[slot];
+            held.position(0);
+            held.limit(slotLength[slot]);
+            listener.onPacket(held, slotArrival[slot]);
+            nextSeq = (nextSeq + 1) & 0xFFFF;
+        }
+    }
+
+    private void resync(int seq) {
+        // 按序输出窗口内全部暂存包（中间缺口视为丢失）
+        while (heldCount > 0) {
+            skipTo(firstHeldOffset());
+        }
+        nextSeq = seq;
+    }
+
+    // ========== 统计 ==========
+
+    /** 乱序到达后被重新排好的包数 */
+    public long getReorderedPackets() {
+        return reorderedPackets;
+    }
+
+    /** 重复包数 */
+    public long getDuplicatePackets() {
+        return duplicatePackets;
+    }
+
+    /** 超过保持时间后才到达、被丢弃的包数 */
+    public long getLatePackets() {
+        return latePackets;
+    }
+
+    /** 等待超时判定丢失的包数 */
+    public long getLostPackets() {
+        return lostPackets;
+    }
+
+    /** 需要暂存但超过槽位大小 (maxPacketSize)、被丢弃的包数 */
+    public long getOversizedPackets() {
+        return oversizedPackets;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.controller;
+
+/**
+ * RTP 时间戳展开器
+ * 把 32 位、约 13 小时 (90kHz) 回绕一次的 RTP 时间戳展开为单调的 64 位时钟，
+ * 乱序/重传的旧时间戳（向后跳）同样能被正确映射。
+ */
+public final class RtpTimestampUnwrapper {
+    private long lastUnwrapped = 0;
+    private long lastRaw = -1;
+
+    /**
+     * @param rtpTimestamp 原始 32 位时间戳（无符号，存于 long 低 32 位）
+     * @return 展开后的 64 位时间戳
+     */
+    public long unwrap(long rtpTimestamp) {
+        rtpTimestamp &= 0xFFFFFFFFL;
+        if (lastRaw < 0) {
+            lastRaw = rtpTimestamp;
+            lastUnwrapped = rtpTimestamp;
+            return rtpTimestamp;
+        }
+        // 以 32 位有符号差值推进，自动处理回绕
+        int delta = (int) (rtpTimestamp - lastRaw);
+        lastRaw = rtpTimestamp;
+        lastUnwrapped += delta;
+        return lastUnwrapped;
+    }
+
+    public void reset() {
+        lastRaw = -1;
+        lastUnwrapped = 0;
+    }
+
+    /**
+     * 90kHz 时钟转换为微秒
+     */
+    public static long toMicros(long rtpTimestamp90k) {
+        return rtpTimestamp90k * 100 / 9;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+/**
+ * NIO UDP 接收器 (DatagramChannel + Selector)
+ * 数据报直接读入一块复用的直接缓冲区，交给回调原地解析，不经过堆上 byte[] 中转。
+ *
+ * 没有数据时阻塞在 Selector 上，不再依赖 Socket 超时周期性唤醒：
+ * - 回调可通过 onWakeup 返回下一次需要被唤醒的时间（如重排缓冲区的缺口截止时间）
+ * - close() 会立即唤醒并结束 run()
+ *
+ * 纯 Java 实现，不依赖 android.*，可在 JVM 上通过回环地址测试。
+ * run() 只能在一个接收线程中调用；close() 可在任意线程调用。
+ */
+public final class RtpUdpReceiver implements Closeable {
+
+    /**
+     * 数据包回调（在接收线程中执行）
+     */
+    public interface PacketHandler {
+        /**
+         * 收到一个数据报（position ~ limit 之间，仅在回调期间有效）
+         * @param arrivalNanos 读出时间 (System.nanoTime)
+         */
+        void onPacket(ByteBuffer packet, long arrivalNanos);
+
+        /**
+         * 每次等待数据之前调用，可在此处理定时任务
+         * @return 最长等待时间 (ns)，负数表示一直等到有数据或关闭
+         */
+        default long onWakeup(long nowNanos) {
+            return -1;
+        }
+    }
+
+    public static final int DEFAULT_RECEIVE_BUFFER_SIZE = 500000; // 500KB 内核缓冲
+
+    private final Selector selector;
+    private final DatagramChannel channel;
+    private final ByteBuffer buffer;
+    private volatile boolean closed = false;
+
+    // ========== 统计 ==========
+    private long receivedPackets = 0;
+    private long receivedBytes = 0;
+
+    public RtpUdpReceiver(int port, int maxPacketSize) throws IOException {
+        this(new InetSocketAddress(port), maxPacketSize, DEFAULT_RECEIVE_BUFFER_SIZE);
+    }
+
+    public RtpUdpReceiver(InetSocketAddress bindAddress, int maxPacketSize, int receiveBufferSize) throws IOException {
+        selector = Selector.open();
+        DatagramChannel ch = null;
+        try {
+            ch = DatagramChannel.open();
+            ch.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            ch.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+            ch.bind(bindAddress);
+            ch.configureBlocking(false);
+            ch.register(selector, SelectionKey.OP_READ);
+        } catch (IOException | RuntimeException e) {
+            if (ch != null) ch.close();
+            selector.close();
+            throw e;
+        }
+        channel = ch;
+        buffer = ByteBuffer.allocateDirect(maxPacketSize);
+    }
+
+    /**
+     * 实际绑定的本地端口（绑定端口 0 时由系统分配）
+     */
+    public int getLocalPort() throws IOException {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * 接收循环，阻塞直到 close()
+     */
+    public void run(PacketHandler handler) throws IOException {
+        try {
+            while (!closed) {
+                long waitNanos = handler.onWakeup(System.nanoTime());
+                if (waitNanos < 0) {
+                    selector.select();
+                } else {
+                    selector.select(Math.max(1, (waitNanos + 999_999) / 1_000_000));
+                }
+                selector.selectedKeys().clear();
+                drain(handler);
+            }
+        } catch (ClosedSelectorException | ClosedChannelException e) {
+            if (!closed) throw e;
+        }
+    }
+
+    /**
+     * 读出当前所有就绪的数据报
+     */
+    private void drain(PacketHandler handler) throws IOException {
+        while (!closed) {
+            buffer.clear();
+            if (channel.receive(buffer) == null) return;
+            buffer.flip();
+            receivedPackets++;
+            receivedBytes += buffer.remaining();
+            handler.onPacket(buffer, System.nanoTime());
+        }
+    }
+
+    /**
+     * 唤醒阻塞中的接收线程，使其立即调用一次 onWakeup（任意线程）
+     */
+    public void wakeup() {
+        if (!closed) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * 关闭通道并唤醒接收线程（可重复调用）
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            channel.close();
+        } finally {
+            selector.close(); // 会唤醒阻塞中的 select()
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // ========== 统计 ==========
+
+    public long getReceivedPackets() {
+        return receivedPackets;
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+}
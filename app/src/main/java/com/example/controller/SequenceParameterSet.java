@@ -0,0 +1,47 @@
+package com.example.controller;
+
+/**
+ * 序列参数集解析结果的公共部分（H.264 {@link H264Sps} / H.265 {@link H265Sps}）
+ * 解码器配置与参数集变化判断只依赖这些值，与编码格式无关。
+ */
+public interface SequenceParameterSet {
+
+    /** 显示宽度（已扣除裁剪） */
+    int getWidth();
+
+    /** 显示高度（已扣除裁剪） */
+    int getHeight();
+
+    /**
+     * 解码参数是否相同：不同则需要重新配置解码器
+     */
+    boolean sameDecodingParameters(SequenceParameterSet other);
+
+    /**
+     * 编码尺寸与裁剪后尺寸都相同（输出 Surface 无需调整）
+     */
+    boolean sameResolution(SequenceParameterSet other);
+
+    /**
+     * 单个访问单元的最大字节数估计，用于 KEY_MAX_INPUT_SIZE 和缓冲池容量
+     */
+    int maxAccessUnitSize();
+
+    /**
+     * 未压缩帧大小的一半（最低压缩比 2:1）
+     */
+    static int halfRawFrameSize(int codedWidth, int codedHeight, int chromaFormatIdc,
+                                int bitDepthLuma, int bitDepthChroma) {
+        long lumaSamples = (long) codedWidth * codedHeight;
+        long chromaSamples;
+        switch (chromaFormatIdc) {
+            case 0: chromaSamples = 0; break;
+            case 2: chromaSamples = lumaSamples; break;
+            case 3: chromaSamples = lumaSamples * 2; break;
+            default: chromaSamples = lumaSamples / 2; break;
+        }
+        long frameBytes = lumaSamples * (bitDepthLuma > 8 ? 2 : 1)
+            + chromaSamples * (bitDepthChroma > 8 ? 2 : 1);
+        return (int) Math.min(Integer.MAX_VALUE, frameBytes / 2);
+    }
+}
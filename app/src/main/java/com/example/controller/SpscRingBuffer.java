@@ -0,0 +1,269 @@
+package com.example.controller;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 有界单生产者/单消费者无锁环形队列
+ * 专用于 RTP-Receiver → H264-Decoder 之间的 NALU 交接
+ *
+ * - 生产者只写 tail，消费者推进 head；满时生产者通过 CAS 推进 head 丢弃最旧元素
+ *   （与原 LinkedBlockingQueue 的 drop-oldest 语义一致），被丢弃的元素返回给调用方回收
+ * - head/tail 计数器做缓存行填充，避免两个线程伪共享
+ * - 槽位出队后不清空（元素来自缓冲池，常驻内存），避免与生产者覆盖写发生竞争
+ *
+ * 可在运行时用 setLimit() 调低有效容量（不超过构造时的 capacity），
+ * 超出新上限的旧元素由生产者通过 pollOverLimit() 逐个取出回收。
+ *
+ * 等待策略可在运行时切换：
+ * - BLOCKING：park 等待，生产者入队时 unpark（省电，默认）
+ * - YIELDING：自旋 + Thread.yield()（低延迟）
+ * - BUSY_SPIN：纯自旋（最低延迟，占满一个核）
+ *
+ * @param <E> 元素类型
+ */
+public final class SpscRingBuffer<E> {
+
+    public enum WaitStrategy {
+        BLOCKING,
+        YIELDING,
+        BUSY_SPIN
+    }
+
+    /**
+     * 填充到独占缓存行的序号计数器
+     */
+    @SuppressWarnings("unused")
+    static final class PaddedSequence extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    /**
+     * 队列满时的淘汰规则（应为无状态实现，避免每次入队分配）
+     */
+    public interface EvictionPolicy<E> {
+        /**
+         * @return true 丢弃最旧元素为新元素腾位置，false 拒绝新元素
+         */
+        boolean canEvict(E oldest, E incoming);
+    }
+
+    private final Object[] slots;
+    private final int capacity;
+    private volatile int limit;
+
+    private final PaddedSequence head = new PaddedSequence(); // 下一个出队序号
+    private final PaddedSequence tail = new PaddedSequence(); // 下一个入队序号
+
+    private volatile Thread waiter;
+    private volatile WaitStrategy waitStrategy;
+
+    public SpscRingBuffer(int capacity) {
+        this(capacity, WaitStrategy.BLOCKING);
+    }
+
+    public SpscRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity <= 0");
+        this.capacity = capacity;
+        this.limit = capacity;
+        this.slots = new Object[capacity];
+        this.waitStrategy = waitStrategy;
+    }
+
+    // ========== 生产者 ==========
+
+    /**
+     * 入队，队列满时返回 false
+     */
+    public boolean offer(E e) {
+        long t = tail.get();
+        if (t - head.get() >= limit) {
+            return false;
+        }
+        publish(t, e);
+        return true;
+    }
+
+    /**
+     * 入队，队列满时丢弃最旧元素
+     * @return 被丢弃的元素（调用方负责回收），未丢弃时返回 null
+     */
+    public E offerDropOldest(E e) {
+        E dropped = null;
+        for (;;) {
+            long t = tail.get();
+            long h = head.get();
+            if (hasRoom(t - h, dropped != null)) {
+                publish(t, e);
+                return dropped;
+            }
+            E oldest = elementAt(h);
+            if (head.compareAndSet(h, h + 1)) {
+                dropped = oldest;
+            }
+            // CAS 失败说明消费者刚好取走了最旧元素，重试即可
+        }
+    }
+
+    /**
+     * 入队，队列满时由淘汰规则决定丢弃最旧元素还是拒绝新元素
+     * @return 被丢弃的元素（最旧元素或 e 本身，调用方负责回收），未丢弃时返回 null
+     */
+    public E offerEvictOldest(E e, EvictionPolicy<? super E> policy) {
+        E dropped = null;
+        for (;;) {
+            long t = tail.get();
+            long h = head.get();
+            if (hasRoom(t - h, dropped != null)) {
+                publish(t, e);
+                return dropped;
+            }
+            E oldest = elementAt(h);
+            if (!policy.canEvict(oldest, e)) {
+                // 消费者可能刚取走 oldest，此时重试会得到空位
+                if (head.get() != h) continue;
+                return e;
+            }
+            if (head.compareAndSet(h, h + 1)) {
+                dropped = oldest;
+            }
+        }
+    }
+
+    /**
+     * 上限调低后队列可能超出 limit：每次入队最多淘汰一个，不超过物理容量即可入队
+     * （生产者应先用 pollOverLimit() 回收超额元素）
+     */
+    private boolean hasRoom(long size, boolean evicted) {
+        return size < limit || (evicted && size < capacity);
+    }
+
+    /**
+     * 生产者取出一个超出有效容量的最旧元素（setLimit 调低之后）
+     * @return 未超出时返回 null
+     */
+    public E pollOverLimit() {
+        for (;;) {
+            long h = head.get();
+            if (tail.get() - h <= limit) {
+                return null;
+            }
+            E oldest = elementAt(h);
+            if (head.compareAndSet(h, h + 1)) {
+                return oldest;
+            }
+        }
+    }
+
+    private void publish(long t, E e) {
+        slots[(int) (t % capacity)] = e;
+        tail.set(t + 1); // volatile 写，与消费者的 waiter 检查构成 StoreLoad 屏障
+        Thread w = waiter;
+        if (w != null) {
+            LockSupport.unpark(w);
+        }
+    }
+
+    // ========== 消费者 ==========
+
+    /**
+     * 非阻塞出队
+     * @return 队列为空时返回 null
+     */
+    public E poll() {
+        for (;;) {
+            long h = head.get();
+            if (h >= tail.get()) {
+                return null;
+            }
+            E e = elementAt(h);
+            if (head.compareAndSet(h, h + 1)) {
+                return e;
+            }
+            // CAS 失败说明生产者丢弃了该元素，读取下一个
+        }
+    }
+
+    /**
+     * 按当前等待策略出队，超时返回 null
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = poll();
+        if (e != null) return e;
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (;;) {
+            e = poll();
+            if (e != null) return e;
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return null;
+            if (Thread.interrupted()) throw new InterruptedException();
+
+            switch (waitStrategy) {
+                case BUSY_SPIN:
+                    break;
+                case YIELDING:
+                    Thread.yield();
+                    break;
+                case BLOCKING:
+                default:
+                    waiter = Thread.currentThread();
+                    if (isEmpty()) {
+                        LockSupport.parkNanos(this, remaining);
+                    }
+                    waiter = null;
+                    break;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(long sequence) {
+        return (E) slots[(int) (sequence % capacity)];
+    }
+
+    // ========== 状态 ==========
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 运行时调整有效容量 (1 ~ capacity)，生产者下一次入队生效
+     */
+    public void setLimit(int limit) {
+        if (limit <= 0 || limit > capacity) throw new IllegalArgumentException("limit: " + limit);
+        this.limit = limit;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * 运行时切换等待策略，对正在等待的消费者下一轮生效
+     */
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        Thread w = waiter;
+        if (w != null) {
+            LockSupport.unpark(w);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.controller;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * UDP 摇杆控制通道：与 /ws/control 并行，只承载摇杆速度指令
+ *
+ * TCP WebSocket 上一个重传的报文段会阻塞其后所有摇杆更新（队头阻塞），
+ * 弱网下延迟可达数百毫秒；UDP 数据报各自独立，丢一个只损失一次更新。
+ * 每个数据报携带完整的最新摇杆状态 + 序号（ControlFrameEncoder 二进制帧），
+ * 接收端按序号只保留最新的（newest-wins），过期 / 重复的直接丢弃，因此无需重传。
+ * ARM / 模式切换 / 起飞等一次性指令仍走可靠的 WebSocket。
+ *
+ * 发送：send() 只把最新值写入单槽位并唤醒发送线程，不做网络 I/O（可在主线程调用）；
+ * 发送线程来不及发出的旧值会被新值覆盖（合并计数见 getCoalescedUpdates）。
+ * 数据报标记 DSCP EF，支持 QoS 的 Wi-Fi（WMM）会放入语音队列。
+ */
+public final class UdpControlChannel implements Closeable {
+
+    private static final String TAG = "UDP_CONTROL";
+
+    /** drone_server.py 的默认 UDP 控制端口（/api/status 的 udp_control_port） */
+    public static final int DEFAULT_PORT = 14600;
+    /** DSCP EF (46) << 2 */
+    private static final int TRAFFIC_CLASS_EF = 0xB8;
+
+    private final String host;
+    private final int port;
+    private final ControlFrameEncoder encoder = new ControlFrameEncoder(true);
+    private final ByteBuffer datagram = ByteBuffer.allocateDirect(ControlFrameEncoder.JOYSTICK_F32_SIZE);
+    private final Thread thread;
+
+    // ========== 最新摇杆状态（单槽位，lock 保护） ==========
+    private final Object lock = new Object();
+    private float vx, vy, vz, yawRate;
+    private long timestampMs;
+    private boolean pending = false;
+    private boolean running = true;
+
+    // ========== 统计 ==========
+    private volatile long sentPackets = 0;
+    private volatile long coalescedUpdates = 0;
+    private volatile long sendErrors = 0;
+
+    public UdpControlChannel(String host, int port) {
+        this.host = host;
+        this.port = port;
+        thread = new Thread(this::sendLoop, "UDP-Control");
+        thread.start();
+    }
+
+    /**
+     * 提交最新摇杆状态（非阻塞，任意线程）
+     * @param timestampMs 采样时刻（单调时钟毫秒），随帧发送
+     */
+    public void send(float vx, float vy, float vz, float yawRate, long timestampMs) {
+        synchronized (lock) {
+            if (pending) coalescedUpdates++;
+            this.vx = vx;
+            this.vy = vy;
+            this.vz = vz;
+            this.yawRate = yawRate;
+            this.timestampMs = timestampMs;
+            pending = true;
+            lock.notify();
+        }
+    }
+
+    private void sendLoop() {
+        try {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_DISPLAY);
+        } catch (RuntimeException e) {
+            // 提权失败不影响发送，按默认优先级继续
+            Log.w(TAG, "⚠️ 无法提升线程优先级: " + e.getMessage());
+        }
+        // 地址解析放在发送线程（可能触发 DNS，不能在主线程）
+        InetSocketAddress target = new InetSocketAddress(host, port);
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            try {
+                channel.setOption(StandardSocketOptions.IP_TOS, TRAFFIC_CLASS_EF);
+            } catch (IOException | UnsupportedOperationException e) {
+                Log.w(TAG, "⚠️ 无法设置 DSCP: " + e.getMessage());
+            }
+            Log.i(TAG, "📡 UDP 控制通道 → " + target);
+
+            float x, y, z, yaw;
+            long ts;
+            while (true) {
+                synchronized (lock) {
+                    while (running && !pending) lock.wait();
+                    if (!running) break;
+                    x = vx;
+                    y = vy;
+                    z = vz;
+                    yaw = yawRate;
+                    ts = timestampMs;
+                    pending = false;
+                }
+                int length = encoder.encodeJoystick(x, y, z, yaw, ts);
+                datagram.clear();
+                datagram.put(encoder.buffer(), 0, length);
+                datagram.flip();
+                try {
+                    // 不 connect：接收端未启动时 ICMP 不可达不会让后续发送抛异常
+                    channel.send(datagram, target);
+                    sentPackets++;
+                } catch (IOException e) {
+                    if (sendErrors++ == 0) Log.w(TAG, "⚠️ 发送失败: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "❌ UDP 控制通道打开失败: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Log.i(TAG, "UDP 控制通道已关闭 (sent=" + sentPackets + " coalesced=" + coalescedUpdates
+            + " errors=" + sendErrors + ")");
+    }
+
+    public long getSentPackets() {
+        return sentPackets;
+    }
+
+    /** 发送线程发出之前就被更新值覆盖的次数 */
+    public long getCoalescedUpdates() {
+        return coalescedUpdates;
+    }
+
+    public long getSendErrors() {
+        return sendErrors;
+    }
+
+    /**
+     * 停止发送线程（已提交但未发出的状态被丢弃）
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            running = false;
+            lock.notify();
+        }
+        try {
+            thread.join(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.controller;
+
+import java.nio.ByteBuffer;
+
+/**
+ * ULPFEC 前向纠错接收端 (RFC 5109 XOR 奇偶校验，仅 Level 0)
+ * FEC 包与媒体包走同一端口，按 RTP Payload Type 区分，使用独立的序号空间。
+ *
+ * 每个 FEC 包用掩码声明它保护的一组媒体序号，其 payload 是这组媒体包
+ * (P/X/CC/M/PT、时间戳、长度、payload) 的逐位异或。组内只丢一个包时，
+ * 把 FEC 与其余收到的包再异或一次即可还原丢失的包；还原出的包又可能让
+ * 其他 FEC 组只剩一个缺口，因此循环尝试直到没有进展。
+ *
+ * 媒体包历史和 FEC 包都保存在预分配的槽位中，热路径不分配内存。
+ * 收到第一个 FEC 包之前不缓存媒体包，发送端未启用 FEC 时几乎没有开销。
+ * 非线程安全，只能在 RTP 接收线程中使用。
+ */
+public final class UlpfecReceiver {
+
+    /**
+     * 恢复回调
+     */
+    public interface RecoveryListener {
+        /**
+         * 还原出一个丢失的媒体包（position ~ limit 之间，仅在回调期间有效）
+         */
+        void onRecoveredPacket(ByteBuffer packet, long arrivalNanos);
+    }
+
+    public static final int DEFAULT_PAYLOAD_TYPE = 127;
+
+    private static final int MEDIA_HISTORY = 128; // 媒体包历史（2 的幂）
+    private static final int FEC_SLOTS = 16;
+    private static final int FEC_HEADER_SIZE = 10;
+    private static final int ULP_HEADER_SIZE_SHORT = 4; // L = 0：16 位掩码
+    private static final int ULP_HEADER_SIZE_LONG = 8;  // L = 1：48 位掩码
+
+    private final RecoveryListener listener;
+
+    // ========== 媒体包历史 ==========
+    private final byte[][] mediaData;
+    private final int[] mediaLength = new int[MEDIA_HISTORY];
+    private final int[] mediaSeq = new int[MEDIA_HISTORY];
+    private final boolean[] mediaPresent = new boolean[MEDIA_HISTORY];
+    private int highestMediaSeq = -1;
+    private int firstStoredSeq = -1; // 可判断缺失与否的最早序号：缓存起点，随历史窗口向前滑动
+    private boolean active = false;
+
+    // ========== FEC 包 ==========
+    private final byte[][] fecData;
+    private final int[] fecHeader = new int[FEC_SLOTS]; // FEC 头在包内的偏移
+    private final int[] fecBase = new int[FEC_SLOTS];
+    private final long[] fecMask = new long[FEC_SLOTS]; // 最高位对应 SN base
+    private final int[] fecMaskBits = new int[FEC_SLOTS];
+    private final boolean[] fecPresent = new boolean[FEC_SLOTS];
+    private int nextFecSlot = 0;
+
+    // ========== 恢复 ==========
+    private final byte[] recovered;
+    private final ByteBuffer recoveredView;
+    private int lastMissingSeq;
+    private int recoveredBodyLength;
+
+    // ========== 统计 ==========
+    private long fecPackets = 0;
+    private long recoveredPackets = 0;
+    private long unrecoverableGroups = 0;
+
+    public UlpfecReceiver(RecoveryListener listener, int maxPacketSize) {
+        if (listener == null) throw new IllegalArgumentException("listener == null");
+        this.listener = listener;
+        this.mediaData = new byte[MEDIA_HISTORY][maxPacketSize];
+        this.fecData = new byte[FEC_SLOTS][maxPacketSize];
+        this.recovered = new byte[maxPacketSize];
+        this.recoveredView = ByteBuffer.wrap(recovered);
+    }
+
+    /**
+     * 记录一个收到的媒体包（不改变 packet 的 position），可能触发恢复
+     */
+    public void onMediaPacket(ByteBuffer packet, long nowNanos) {
+        if (!active) return;
+        int offset = packet.position();
+        int length = packet.remaining();
+        if (length < RtpH264Depacketizer.RTP_HEADER_SIZE || length > recovered.length) return;
+
+        int seq = packet.getShort(offset + 2) & 0xFFFF;
+        if (storeMedia(packet, seq)) {
+            recover(nowNanos);
+        }
+    }
+
+    /**
+     * 处理一个 FEC 包
+     */
+    public void onFecPacket(ByteBuffer packet, long nowNanos) {
+        int offset = packet.position();
+        int length = packet.remaining();
+        if (length < RtpH264Depacketizer.RTP_HEADER_SIZE || length > recovered.length) return;
+
+        int header = RtpH264Depacketizer.RTP_HEADER_SIZE + (packet.get(offset) & 0x0F) * 4;
+        if ((packet.get(offset) & 0x10) != 0 && length >= header + 4) {
+            header += 4 + (packet.getShort(offset + header + 2) & 0xFFFF) * 4;
+        }
+        if (length < header + FEC_HEADER_SIZE + ULP_HEADER_SIZE_SHORT) return;
+        int flags = packet.get(offset + header) & 0xFF;
+        if ((flags & 0x80) != 0) return; // E 位保留为 0
+        boolean longMask = (flags & 0x40) != 0;
+        int ulpHeader = longMask ? ULP_HEADER_SIZE_LONG : ULP_HEADER_SIZE_SHORT;
+        if (length < header + FEC_HEADER_SIZE + ulpHeader) return;
+        int protectionLength = packet.getShort(offset + header + FEC_HEADER_SIZE) & 0xFFFF;
+        if (length < header + FEC_HEADER_SIZE + ulpHeader + protectionLength) return;
+
+        fecPackets++;
+        if (!active) {
+            // 首个 FEC 包：从现在起缓存媒体包，之前的组无法判断，直接丢弃
+            active = true;
+            return;
+        }
+
+        int slot = nextFecSlot;
+        nextFecSlot = (nextFecSlot + 1) % FEC_SLOTS;
+        if (fecPresent[slot]) {
+            evictFec(slot);
+        }
+        packet.position(offset);
+        packet.get(fecData[slot], 0, length);
+        packet.position(offset);
+        fecHeader[slot] = header;
+        fecBase[slot] = packet.getShort(offset + header + 2) & 0xFFFF;
+        if (longMask) {
+            fecMask[slot] = ((packet.getInt(offset + header + 12) & 0xFFFFFFFFL) << 16)
+                    | (packet.getShort(offset + header + 16) & 0xFFFF);
+            fecMaskBits[slot] = 48;
+        } else {
+            fecMask[slot] = packet.getShort(offset + header + 12) & 0xFFFF;
+            fecMaskBits[slot] = 16;
+        }
+        fecPresent[slot] = true;
+
+        recover(nowNanos);
+    }
+
+    // ========== 内部实现 ==========
+
+    private boolean storeMedia(ByteBuffer packet, int seq) {
+        int slot = seq & (MEDIA_HISTORY - 1);
+        if (mediaPresent[slot] && mediaSeq[slot] == seq) return false; // 重复包
+
+        int offset = packet.position();
+        int length = packet.remaining();
+        packet.get(mediaData[slot], 0, length);
+        packet.position(offset);
+        mediaLength[slot] = length;
+        mediaSeq[slot] = seq;
+        mediaPresent[slot] = true;
+
+        if (firstStoredSeq < 0) {
+            firstStoredSeq = seq;
+            highestMediaSeq = seq;
+        } else if ((short) (seq - highestMediaSeq) > 0) {
+            highestMediaSeq = seq;
+            // 窗口起点跟随最高序号前移，否则超过 32768 个序号后有符号比较反向，FEC 全部失效
+            if ((short) (highestMediaSeq - firstStoredSeq) >= MEDIA_HISTORY) {
+                firstStoredSeq = (highestMediaSeq - MEDIA_HISTORY + 1) & 0xFFFF;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasMedia(int seq) {
+        int slot = seq & (MEDIA_HISTORY - 1);
+        return mediaPresent[slot] && mediaSeq[slot] == seq;
+    }
+
+    /**
+     * 反复扫描 FEC 组，只缺一个包的组立即恢复，直到没有进展
+     */
+    private void recover(long nowNanos) {
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (int slot = 0; slot < FEC_SLOTS; slot++) {
+                if (!fecPresent[slot]) continue;
+                if (firstStoredSeq < 0 || (short) (fecBase[slot] - firstStoredSeq) < 0) {
+                    fecPresent[slot] = false; // 保护范围早于缓存起点，无法判断
+                    continue;
+                }
+                if ((short) (highestMediaSeq - fecBase[slot]) >= MEDIA_HISTORY - fecMaskBits[slot]) {
+                    evictFec(slot); // 已滑出历史窗口
+                    continue;
+                }
+                int missing = countMissing(slot);
+                if (missing == 0) {
+                    fecPresent[slot] = false; // 全部收到，FEC 包已无用
+                } else if (missing == 1) {
+                    fecPresent[slot] = false;
+                    if (rebuild(slot, lastMissingSeq)) {
+                        recoveredPackets++;
+                        recoveredView.clear();
+                        recoveredView.limit(RtpH264Depacketizer.RTP_HEADER_SIZE + recoveredBodyLength);
+                        storeMedia(recoveredView, lastMissingSeq);
+                        listener.onRecoveredPacket(recoveredView, nowNanos);
+                        progress = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private int countMissing(int slot) {
+        int missing = 0;
+        long mask = fecMask[slot];
+        int bits = fecMaskBits[slot];
+        for (int i = 0; i < bits; i++) {
+            if ((mask & (1L << (bits - 1 - i))) == 0) continue;
+            int seq = (fecBase[slot] + i) & 0xFFFF;
+            if (!hasMedia(seq)) {
+                missing++;
+                lastMissingSeq = seq;
+            }
+        }
+        return missing;
+    }
+
+    private void evictFec(int slot) {
+        if (countMissing(slot) > 1) {
+            unrecoverableGroups++;
+        }
+        fecPresent[slot] = false;
+    }
+
+    /**
+     * RFC 5109 8.2：FEC 与组内其余媒体包逐位异或，还原丢失的包
+     */
+    private boolean rebuild(int slot, int missingSeq) {
+        byte[] fec = fecData[slot];
+        int h = fecHeader[slot];
+        int payload = h + FEC_HEADER_SIZE + (fecMaskBits[slot] == 48 ? ULP_HEADER_SIZE_LONG : ULP_HEADER_SIZE_SHORT);
+        int protectionLength = ((fec[h + FEC_HEADER_SIZE] & 0xFF) << 8) | (fec[h + FEC_HEADER_SIZE + 1] & 0xFF);
+
+        // 头部恢复字段：P/X/CC、M/PT、时间戳、长度
+        int b0 = fec[h] & 0x3F;
+        int b1 = fec[h + 1] & 0xFF;
+        int ts = ((fec[h + 4] & 0xFF) << 24) | ((fec[h + 5] & 0xFF) << 16)
+                | ((fec[h + 6] & 0xFF) << 8) | (fec[h + 7] & 0xFF);
+        int length = ((fec[h + 8] & 0xFF) << 8) | (fec[h + 9] & 0xFF);
+
+        int bodyStart = RtpH264Depacketizer.RTP_HEADER_SIZE;
+        System.arraycopy(fec, payload, recovered, bodyStart, Math.min(protectionLength, recovered.length - bodyStart));
+
+        long mask = fecMask[slot];
+        int bits = fecMaskBits[slot];
+        for (int i = 0; i < bits; i++) {
+            if ((mask & (1L << (bits - 1 - i))) == 0) continue;
+            int seq = (fecBase[slot] + i) & 0xFFFF;
+            if (seq == missingSeq) continue;
+            int m = seq & (MEDIA_HISTORY - 1);
+            byte[] media = mediaData[m];
+            int mediaBody = mediaLength[m] - bodyStart;
+            b0 ^= media[0] & 0x3F;
+            b1 ^= media[1] & 0xFF;
+            ts ^= ((media[4] & 0xFF) << 24) | ((media[5] & 0xFF) << 16) | ((media[6] & 0xFF) << 8) | (media[7] & 0xFF);
+            length ^= mediaBody;
+            int n = Math.min(mediaBody, protectionLength);
+            for (int j = 0; j < n; j++) {
+                recovered[bodyStart + j] ^= media[bodyStart + j];
+            }
+        }
+
+        if (length > protectionLength || bodyStart + length > recovered.length) {
+            return false; // 数据不一致
+        }
+        recovered[0] = (byte) (0x80 | b0);
+        recovered[1] = (byte) b1;
+        recovered[2] = (byte) (missingSeq >> 8);
+        recovered[3] = (byte) missingSeq;
+        recovered[4] = (byte) (ts >> 24);
+        recovered[5] = (byte) (ts >> 16);
+        recovered[6] = (byte) (ts >> 8);
+        recovered[7] = (byte) ts;
+        System.arraycopy(fec, 8, recovered, 8, 4); // SSRC 取自 FEC 包
+        recoveredBodyLength = length;
+        return true;
+    }
+
+    /**
+     * 清空全部状态（重启流时调用）
+     */
+    public void reset() {
+        for (int i = 0; i < MEDIA_HISTORY; i++) mediaPresent[i] = false;
+        for (int i = 0; i < FEC_SLOTS; i++) fecPresent[i] = false;
+        highestMediaSeq = -1;
+        firstStoredSeq = -1;
+        active = false;
+    }
+
+    // ========== 统计 ==========
+
+    /** 收到的有效 FEC 包数 */
+    public long getFecPackets() {
+        return fecPackets;
+    }
+
+    /** 通过 FEC 还原的媒体包数 */
+    public long getRecoveredPackets() {
+        return recoveredPackets;
+    }
+
+    /** 被淘汰时仍缺 2 个以上包、无法恢复的 FEC 组数 */
+    public long getUnrecoverableGroups() {
+        return unrecoverableGroups;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.controller;
+
+/**
+ * 视频编码格式：NAL Header 布局与 NAL 类型分类 (H.264 7.4.1 表 7-1 / H.265 7.4.2.2 表 7-1)
+ * 解包之后的访问单元聚合、关键帧判断、参数集缓存和解码器配置都通过它区分 H.264 / H.265。
+ */
+public enum VideoCodec {
+
+    H264("H.264", "video/avc", -1, 7, 8),
+
+    /**
+     * H.265：VPS/SPS/PPS 都是解码器配置的一部分，
+     * IRAP（BLA/IDR/CRA，类型 16~23）都可以作为解码起点
+     */
+    H265("H.265", "video/hevc", 32, 33, 34);
+
+    public final String displayName;
+    /** MediaCodec MIME 类型 */
+    public final String mimeType;
+    /** 参数集 NAL 类型（H.264 没有 VPS，为 -1） */
+    public final int vpsType;
+    public final int spsType;
+    public final int ppsType;
+
+    VideoCodec(String displayName, String mimeType, int vpsType, int spsType, int ppsType) {
+        this.displayName = displayName;
+        this.mimeType = mimeType;
+        this.vpsType = vpsType;
+        this.spsType = spsType;
+        this.ppsType = ppsType;
+    }
+
+    /**
+     * NAL 类型（nal 指向 NAL Header 第一个字节）
+     */
+    public int nalType(byte[] nal, int offset) {
+        return this == H264 ? nal[offset] & 0x1F : (nal[offset] >> 1) & 0x3F;
+    }
+
+    /**
+     * 是否为图像数据 (VCL) NAL
+     */
+    public boolean isVcl(int nalType) {
+        return this == H264 ? nalType >= 1 && nalType <= 5 : nalType >= 0 && nalType <= 31;
+    }
+
+    /**
+     * 是否为随机访问点：解码可以从这里开始，之前的参考数据不再需要
+     */
+    public boolean isRandomAccessPoint(int nalType) {
+        return this == H264 ? nalType == 5 : nalType >= 16 && nalType <= 23;
+    }
+
+    public boolean isParameterSet(int nalType) {
+        return nalType == vpsType || nalType == spsType || nalType == ppsType;
+    }
+
+    /**
+     * 参考等级：0 表示丢弃后不影响后续解码
+     * - H.264：NAL Header 中的 nal_ref_idc
+     * - H.265：没有 nal_ref_idc，子层非参考图像（类型 0~14 中的偶数，TRAIL_N 等）为 0；
+     *   假设发送端只用一个时域子层（x265 / 硬件编码器低延迟配置均如此），
+     *   否则 _N 图像仍可能被更高子层参考
+     */
+    public int refIdc(byte[] nal, int offset) {
+        if (this == H264) {
+            return (nal[offset] >> 5) & 0x03;
+        }
+        int nalType = nalType(nal, offset);
+        if (isVcl(nalType)) {
+            return nalType <= 14 && (nalType & 1) == 0 ? 0 : 1;
+        }
+        return isParameterSet(nalType) ? 1 : 0;
+    }
+
+    /**
+     * 解析 SPS，码流损坏时返回 null
+     */
+    public SequenceParameterSet parseSps(byte[] nal, int offset, int length) {
+        return this == H264 ? H264Sps.parse(nal, offset, length) : H265Sps.parse(nal, offset, length);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * AccessUnitAssembler 单元测试
+ */
+public class AccessUnitAssemblerTest {
+
+    private final List<NaluBuffer> units = new ArrayList<>();
+    private NaluBufferPool pool;
+    private AccessUnitAssembler assembler;
+
+    @Before
+    public void setUp() {
+        units.clear();
+        pool = new NaluBufferPool(4, 64);
+        assembler = new AccessUnitAssembler(pool, units::add);
+    }
+
+    private void nalu(long rtpTimestamp, boolean marker, int... bytes) {
+        byte[] data = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) data[i] = (byte) bytes[i];
+        assembler.onNalu(data, 0, data.length, rtpTimestamp, marker, System.nanoTime());
+    }
+
+    @Test
+    public void naluSharingTimestamp_formOneAccessUnitClosedByMarker() {
+        nalu(3000, false, 0x06, 0xAA);       // SEI
+        nalu(3000, false, 0x65, 1, 2);       // IDR slice 0
+        assertTrue(units.isEmpty());
+        nalu(3000, true, 0x65, 3);           // IDR slice 1 + marker
+
+        assertEquals(1, units.size());
+        NaluBuffer au = units.get(0);
+        assertEquals(3, au.naluCount);
+        assertEquals(5, au.type);
+        assertEquals(3000, au.rtpTimestamp);
+        assertEquals(33333, au.timestamp); // 3000 / 90kHz = 33.333ms
+        byte[] expected = {0, 0, 0, 1, 0x06, (byte) 0xAA, 0, 0, 0, 1, 0x65, 1, 2, 0, 0, 0, 1, 0x65, 3};
+        byte[] actual = new byte[au.length];
+        System.arraycopy(au.data, 0, actual, 0, au.length);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void lostMarker_isRecoveredOnTimestampChange() {
+        nalu(3000, false, 0x41, 1);
+        nalu(6000, true, 0x41, 2);
+
+        assertEquals(2, units.size());
+        assertEquals(1, assembler.getIncompleteAccessUnits());
+        assertEquals(33333, units.get(0).timestamp);
+        assertEquals(66666, units.get(1).timestamp);
+    }
+
+    @Test
+    public void poolExhaustion_dropsWholeAccessUnit() {
+        for (int i = 0; i < 4; i++) {
+            nalu(1000 + i, true, 0x41, i);
+        }
+        assertEquals(0, pool.available());
+
+        nalu(9000, false, 0x41, 7);
+        nalu(9000, true, 0x41, 8);
+        assertEquals(4, units.size());
+        assertEquals(2, assembler.getDroppedNalus());
+
+        // 归还后恢复正常
+        pool.release(units.remove(0));
+        nalu(12000, true, 0x41, 9);
+        assertEquals(4, units.size());
+    }
+
+    @Test
+    public void reset_returnsPartialBufferToPool() {
+        nalu(3000, false, 0x41, 1);
+        assertEquals(3, pool.available());
+
+        assembler.reset();
+        assertEquals(4, pool.available());
+        assertTrue(units.isEmpty());
+    }
+
+    @Test
+    public void discardCurrent_dropsRestOfAccessUnit() {
+        nalu(3000, false, 0x41, 1);
+        assembler.discardCurrent();              // 检测到丢包
+        nalu(3000, true, 0x41, 2);               // 同一帧的剩余部分
+        assertTrue(units.isEmpty());
+        assertEquals(4, pool.available());
+        assertEquals(1, assembler.getCorruptedAccessUnits());
+
+        nalu(6000, true, 0x65, 3);               // 下一帧正常输出
+        assertEquals(1, units.size());
+    }
+
+    @Test
+    public void referenceAndSliceType_areParsedFromSliceHeaders() {
+        nalu(3000, false, 0x06, 0xAA);       // SEI 不影响类型
+        nalu(3000, true, 0x41, 0x98);        // nal_ref_idc=2, P slice (slice_type=5)
+        nalu(6000, true, 0x01, 0x9C);        // nal_ref_idc=0, B slice (slice_type=6)
+        nalu(9000, true, 0x65, 0x88);        // IDR, I slice (slice_type=7)
+
+        assertEquals(3, units.size());
+        NaluBuffer p = units.get(0);
+        assertEquals(1, p.type);
+        assertTrue(p.isReference());
+        assertEquals(H264BitReader.SLICE_P, p.sliceType);
+        NaluBuffer b = units.get(1);
+        assertFalse(b.isReference());
+        assertEquals(H264BitReader.SLICE_B, b.sliceType);
+        NaluBuffer idr = units.get(2);
+        assertTrue(idr.isKeyFrame());
+        assertEquals(H264BitReader.SLICE_I, idr.sliceType);
+    }
+
+    @Test
+    public void hevc_classifiesByTwoByteNalHeader() {
+        assembler.setCodec(VideoCodec.H265);
+        nalu(3000, false, 0x4E, 0x01, 0xAA);       // PREFIX_SEI (39)
+        nalu(3000, true, 0x26, 0x01, 0xAF);        // IDR_W_RADL (19)
+        nalu(6000, true, 0x02, 0x01, 0xD0);        // TRAIL_R (1)
+        nalu(9000, true, 0x00, 0x01, 0xD0);        // TRAIL_N (0)：子层非参考
+        nalu(12000, true, 0x2A, 0x01, 0xAF);       // CRA (21)
+
+        assertEquals(4, units.size());
+        NaluBuffer idr = units.get(0);
+        assertEquals(19, idr.type);
+        assertTrue(idr.isRandomAccessPoint());
+        assertEquals(-1, idr.sliceType);
+        NaluBuffer trailR = units.get(1);
+        assertFalse(trailR.isKeyFrame());
+        assertTrue(trailR.isReference());
+        assertFalse(units.get(2).isReference());
+        assertTrue(units.get(3).isRandomAccessPoint());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.controller;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * ControlFrameEncoder 单元测试：帧布局 / 序号回绕 / float16 转换
+ */
+public class ControlFrameEncoderTest {
+
+    @Test
+    public void halfPrecisionFrame_hasFixedBigEndianLayout() {
+        ControlFrameEncoder encoder = new ControlFrameEncoder(true);
+        int length = encoder.encodeJoystick(0.5f, -0.25f, 0f, 0.785398f, 0x1_2345_6789L);
+
+        assertEquals(15, length);
+        ByteBuffer b = ByteBuffer.wrap(encoder.buffer(), 0, length);
+        assertEquals(ControlFrameEncoder.TYPE_JOYSTICK_F16, b.get() & 0xFF);
+        assertEquals(0, b.getShort() & 0xFFFF);
+        assertEquals(0x2345_6789, b.getInt());                 // 只保留低 32 位
+        assertEquals(0x3800, b.getShort() & 0xFFFF);            // 0.5
+        assertEquals(0xB400, b.getShort() & 0xFFFF);            // -0.25
+        assertEquals(0x0000, b.getShort() & 0xFFFF);
+        assertEquals(0.785398f, ControlFrameEncoder.halfToFloat(b.getShort() & 0xFFFF), 0.0005f);
+    }
+
+    @Test
+    public void singlePrecisionFrame_carriesExactFloats() {
+        ControlFrameEncoder encoder = new ControlFrameEncoder(false);
+        int length = encoder.encodeJoystick(0.1f, 0.2f, -0.3f, 0.4f, 1000);
+
+        assertEquals(23, length);
+        ByteBuffer b = ByteBuffer.wrap(encoder.buffer(), 0, length);
+        assertEquals(ControlFrameEncoder.TYPE_JOYSTICK_F32, b.get() & 0xFF);
+        b.getShort();
+        assertEquals(1000, b.getInt());
+        assertEquals(0.1f, b.getFloat(), 0f);
+        assertEquals(0.2f, b.getFloat(), 0f);
+        assertEquals(-0.3f, b.getFloat(), 0f);
+        assertEquals(0.4f, b.getFloat(), 0f);
+    }
+
+    @Test
+    public void sequence_incrementsAndWraps() {
+        ControlFrameEncoder encoder = new ControlFrameEncoder(true);
+        for (int i = 0; i < 0xFFFF; i++) {
+            encoder.encodeJoystick(0, 0, 0, 0, i);
+        }
+        assertEquals(0xFFFF, encoder.nextSequence());
+        encoder.encodeJoystick(0, 0, 0, 0, 0);
+        byte[] b = encoder.buffer();
+        assertEquals(0xFFFF, ((b[1] & 0xFF) << 8) | (b[2] & 0xFF));
+        assertEquals(0, encoder.nextSequence());
+    }
+
+    @Test
+    public void floatToHalf_handlesRoundingAndSpecialValues() {
+        assertEquals(0x3C00, ControlFrameEncoder.floatToHalf(1f));
+        assertEquals(0x8000, ControlFrameEncoder.floatToHalf(-0f));
+        assertEquals(0x7BFF, ControlFrameEncoder.floatToHalf(65504f));     // 最大有限值
+        assertEquals(0x7C00, ControlFrameEncoder.floatToHalf(70000f));     // 溢出为 Inf
+        assertEquals(0xFC00, ControlFrameEncoder.floatToHalf(Float.NEGATIVE_INFINITY));
+        assertTrue(Float.isNaN(ControlFrameEncoder.halfToFloat(ControlFrameEncoder.floatToHalf(Float.NaN))));
+        assertEquals(0x0001, ControlFrameEncoder.floatToHalf(5.9604645e-8f)); // 最小次正规数
+        assertEquals(0x0400, ControlFrameEncoder.floatToHalf(6.1035156e-5f)); // 最小正规数
+        assertEquals(0x3C00, ControlFrameEncoder.floatToHalf(1f + 1f / 2048));  // 平局取偶
+        assertEquals(0x3C02, ControlFrameEncoder.floatToHalf(1f + 3f / 2048));
+
+        // 全部 binary16 有限值往返不变
+        for (int h = 0; h < 0x10000; h++) {
+            if ((h & 0x7C00) == 0x7C00) continue;
+            assertEquals(Integer.toHexString(h), h, ControlFrameEncoder.floatToHalf(ControlFrameEncoder.halfToFloat(h)));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.controller;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * ControlLoop 单元测试：固定频率无漂移 / 输入唤醒 / 抖动统计
+ */
+public class ControlLoopTest {
+
+    private final float[] sticks = new float[4];
+    private ControlLoop loop;
+
+    @After
+    public void tearDown() {
+        if (loop != null) loop.close();
+    }
+
+    private void stick(float pitch) {
+        synchronized (sticks) {
+            sticks[2] = pitch;
+        }
+    }
+
+    private final ControlLoop.StickSource source = out -> {
+        synchronized (sticks) {
+            System.arraycopy(sticks, 0, out, 0, 4);
+        }
+    };
+
+    @Test
+    public void fixedRate_doesNotDriftWhenSendsAreSlow() throws Exception {
+        // 每个 tick 都发送，且每次发送耗时 4ms：固定延迟调度会漂移到 ~14ms 周期
+        loop = new ControlLoop(source, (t, y, p, r) -> {
+            try {
+                Thread.sleep(4);
+            } catch (InterruptedException ignored) {
+            }
+        }, new ControlSendScheduler(0f, 0, 0, 0), 10);
+
+        long start = System.nanoTime();
+        loop.start();
+        Thread.sleep(1000);
+        long ticks = loop.getTicks();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        loop.stop();
+        Thread.sleep(20);
+
+        long expected = elapsedMs / 10;
+        assertTrue("ticks=" + ticks + " expected≈" + expected, ticks >= expected - 5 && ticks <= expected + 2);
+        assertEquals(loop.getTicks(), loop.getSends());
+        assertTrue(loop.getJitterMeanMs() >= 0);
+        assertTrue(loop.jitterSummary(), loop.getJitterPercentileMs(50) <= 5);
+    }
+
+    @Test
+    public void wake_sendsChangeWithoutWaitingForTick() throws Exception {
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch changed = new CountDownLatch(1);
+        AtomicInteger sends = new AtomicInteger();
+        loop = new ControlLoop(source, (t, y, p, r) -> {
+            sends.incrementAndGet();
+            first.countDown();
+            if (p == 0.5f) changed.countDown();
+        }, new ControlSendScheduler(0.02f, 0, 200, 1000), 1000);     // 不设合并窗口
+
+        loop.start();
+        assertTrue(first.await(1, TimeUnit.SECONDS));              // 启动后立即发送一次
+
+        long before = System.nanoTime();
+        stick(0.5f);
+        loop.wake();
+        assertTrue(changed.await(500, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - before < TimeUnit.MILLISECONDS.toNanos(200)); // 远早于下一个 1s tick
+        assertEquals(2, sends.get());
+        assertEquals(1, loop.getTicks());
+    }
+
+    @Test
+    public void stop_haltsSendingAndWakeIsIgnored() throws Exception {
+        AtomicInteger sends = new AtomicInteger();
+        loop = new ControlLoop(source, (t, y, p, r) -> sends.incrementAndGet(),
+            new ControlSendScheduler(0f, 0, 0, 0), 5);
+        loop.start();
+        Thread.sleep(50);
+        loop.stop();
+        Thread.sleep(20);
+        int stopped = sends.get();
+
+        stick(0.3f);
+        loop.wake();
+        Thread.sleep(50);
+        assertTrue(stopped > 0);
+        assertEquals(stopped, sends.get());
+
+        loop.close();
+        loop.wake();                                               // 关闭后唤醒不抛异常
+    }
+}
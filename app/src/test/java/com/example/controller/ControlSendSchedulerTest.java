@@ -0,0 +1,90 @@
+package com.example.controller;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ControlSendScheduler 单元测试：变化即发 / 死区 / 突发合并 / 心跳
+ */
+public class ControlSendSchedulerTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final ControlSendScheduler scheduler = new ControlSendScheduler(0.02f, 20, 200, 1000);
+
+    @Test
+    public void firstUpdate_sendsImmediately() {
+        assertEquals(0, scheduler.nanosUntilDue(0));
+        assertTrue(scheduler.update(0, 0, 0, 0, 0));
+        assertEquals(1000 * MS, scheduler.nanosUntilDue(0));     // 全部归零：空闲心跳
+    }
+
+    @Test
+    public void changeBeyondDeadband_sendsImmediately_smallNoiseDoesNot() {
+        scheduler.update(0, 0, 0, 0.5f, 0);
+        assertFalse(scheduler.update(100 * MS, 0, 0, 0.515f, 0));   // 死区内
+        assertTrue(scheduler.update(101 * MS, 0, 0, 0.53f, 0));     // 超出死区
+        assertTrue(scheduler.update(130 * MS, 0, 0, 0f, 0));        // 松手归零
+        assertEquals(3, scheduler.getChangeSends());
+    }
+
+    @Test
+    public void releaseToZero_isSentEvenWithinDeadband() {
+        scheduler.update(0, 0, 0, 0.01f, 0);
+        assertTrue(scheduler.update(50 * MS, 0, 0, 0f, 0));
+    }
+
+    @Test
+    public void burstWithinMinInterval_isCoalescedIntoOneSend() {
+        assertTrue(scheduler.update(0, 0, 0, 0.1f, 0));
+        assertFalse(scheduler.update(5 * MS, 0, 0, 0.2f, 0));
+        assertFalse(scheduler.update(10 * MS, 0, 0, 0.3f, 0));
+        assertFalse(scheduler.update(15 * MS, 0, 0, 0.4f, 0));
+        assertEquals(5 * MS, scheduler.nanosUntilDue(15 * MS));     // 合并窗口结束时再评估
+        assertTrue(scheduler.update(20 * MS, 0, 0, 0.4f, 0));       // 发送最新值
+        assertEquals(2, scheduler.getChangeSends());
+        assertEquals(2, scheduler.getCoalescedChanges());
+    }
+
+    @Test
+    public void changeReverted_withinWindow_isNotSent() {
+        scheduler.update(0, 0, 0, 0.1f, 0);
+        assertFalse(scheduler.update(5 * MS, 0, 0, 0.3f, 0));
+        assertFalse(scheduler.update(10 * MS, 0, 0, 0.1f, 0));
+        assertEquals(190 * MS, scheduler.nanosUntilDue(10 * MS));   // 回到心跳节奏
+        assertFalse(scheduler.update(20 * MS, 0, 0, 0.1f, 0));
+    }
+
+    @Test
+    public void heartbeat_isFasterWhileSticksAreDeflected() {
+        scheduler.update(0, 0, 0, 0, 0);
+        assertFalse(scheduler.update(999 * MS, 0, 0, 0, 0));
+        assertTrue(scheduler.update(1000 * MS, 0, 0, 0, 0));
+
+        scheduler.update(1100 * MS, 0.5f, 0, 0, 0);
+        assertEquals(200 * MS, scheduler.nanosUntilDue(1100 * MS)); // 短于服务器 0.5s 速度超时
+        assertFalse(scheduler.update(1299 * MS, 0.5f, 0, 0, 0));
+        assertTrue(scheduler.update(1300 * MS, 0.5f, 0, 0, 0));
+        assertEquals(2, scheduler.getHeartbeatSends());
+    }
+
+    @Test
+    public void hovering_sendsAnOrderOfMagnitudeLessThanFixedRate() {
+        // 10 秒悬停（摇杆归零）：原 20Hz 发送 200 条
+        int sent = 0;
+        long now = 0;
+        while (now <= 10_000 * MS) {
+            if (scheduler.update(now, 0, 0, 0, 0)) sent++;
+            now += Math.max(scheduler.nanosUntilDue(now), MS);
+        }
+        assertEquals(11, sent);
+    }
+
+    @Test
+    public void reset_sendsImmediatelyAgain() {
+        scheduler.update(0, 0, 0, 0, 0);
+        scheduler.reset();
+        assertTrue(scheduler.update(1 * MS, 0, 0, 0, 0));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接收线程解包吞吐量基准 (JMH)：RtpStreamGenerator 预先生成的包 →
+ * RtpH264Depacketizer → AccessUnitAssembler（池化缓冲区），不含网络 I/O
+ *
+ * 参数：
+ * - mtu：小 MTU 产生更多 FU-A 分片
+ * - lossRate：突发丢包（平均 3 个）下的丢帧路径开销
+ *
+ * 运行：在 Android Studio 中直接运行 main()，或使用单元测试 classpath 执行本类
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DepacketizerThroughputBenchmark {
+
+    private static final int FRAMES = 300;
+    /** 每次调用处理的包数固定，便于按包计算吞吐量 */
+    private static final int PACKETS_PER_INVOCATION = 4096;
+
+    @Param({"1400", "500"})
+    public int mtu;
+
+    @Param({"0", "0.02"})
+    public double lossRate;
+
+    private final List<byte[]> packets = new ArrayList<>();
+    private RtpH264Depacketizer depacketizer;
+    private NaluBufferPool pool;
+    private long accessUnits;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // 约 720p 2Mbps：30 帧一个 GOP，IDR 40KB，P 帧 6KB
+        RtpStreamGenerator generator = new RtpStreamGenerator().mtu(mtu).loss(lossRate, 3).seed(1);
+        generator.stream(RtpStreamGenerator.synthetic(FRAMES, 30, 40000, 6000, 1),
+            (packet, length) -> packets.add(packet), false);
+
+        pool = new NaluBufferPool(4, 64 * 1024);
+        AccessUnitAssembler assembler = new AccessUnitAssembler(pool, au -> {
+            accessUnits++;
+            pool.release(au);
+        });
+        depacketizer = new RtpH264Depacketizer(new RtpDepacketizer.NaluListener() {
+            @Override public void onNalu(byte[] data, int offset, int length, long rtpTimestamp, boolean marker) {
+                assembler.onNalu(data, offset, length, rtpTimestamp, marker, 0);
+            }
+            @Override public void onPacketLoss(int expectedSeq, int receivedSeq, int lost) {
+                assembler.discardCurrent();
+            }
+        });
+    }
+
+    /**
+     * 循环回放预生成的包（序号回绕处会被解包器视为一次丢包，对吞吐量影响可忽略）
+     */
+    @Benchmark
+    @OperationsPerInvocation(PACKETS_PER_INVOCATION)
+    public long depacketizeAndAssemble() {
+        int size = packets.size();
+        for (int i = 0; i < PACKETS_PER_INVOCATION; i++) {
+            byte[] packet = packets.get(cursor);
+            cursor = cursor + 1 == size ? 0 : cursor + 1;
+            depacketizer.process(packet, 0, packet.length);
+        }
+        return accessUnits;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(DepacketizerThroughputBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
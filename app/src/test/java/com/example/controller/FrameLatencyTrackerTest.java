@@ -0,0 +1,64 @@
+package com.example.controller;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * FrameLatencyTracker / LatencyHistogram 单元测试
+ */
+public class FrameLatencyTrackerTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void stagesAreMatchedByPresentationTime() {
+        FrameLatencyTracker tracker = new FrameLatencyTracker();
+        long t0 = 1_000 * MS;
+
+        // 两帧交错：帧 A 先送入，帧 B 后送入，解码输出顺序相同
+        tracker.onQueued(33333, t0, t0 + 5 * MS, t0 + 6 * MS);
+        tracker.onQueued(66666, t0 + 50 * MS, t0 + 52 * MS, t0 + 60 * MS);
+        tracker.onDecoded(33333, t0 + 20 * MS);
+        tracker.onDecoded(66666, t0 + 70 * MS);
+        tracker.onRendered(33333, t0 + 36 * MS);
+        tracker.onRendered(66666, t0 + 80 * MS);
+
+        assertEquals(2, tracker.count(FrameLatencyTracker.Stage.TOTAL));
+        assertEquals(2, tracker.percentileMs(FrameLatencyTracker.Stage.ASSEMBLE, 50));
+        assertEquals(8, tracker.percentileMs(FrameLatencyTracker.Stage.QUEUE, 95));
+        assertEquals(10, tracker.percentileMs(FrameLatencyTracker.Stage.DECODE, 50));
+        assertEquals(16, tracker.percentileMs(FrameLatencyTracker.Stage.RENDER, 95));
+        assertEquals(30, tracker.percentileMs(FrameLatencyTracker.Stage.TOTAL, 50));
+        assertEquals(36, tracker.percentileMs(FrameLatencyTracker.Stage.TOTAL, 95));
+    }
+
+    @Test
+    public void droppedAndUnknownFramesAreIgnored() {
+        FrameLatencyTracker tracker = new FrameLatencyTracker();
+        tracker.onQueued(100, 0, MS, 2 * MS);
+        tracker.onDecoded(100, 3 * MS);
+        tracker.onDropped(100);
+        tracker.onRendered(100, 10 * MS);
+        tracker.onRendered(999, 10 * MS);
+
+        assertEquals(1, tracker.count(FrameLatencyTracker.Stage.DECODE));
+        assertEquals(0, tracker.count(FrameLatencyTracker.Stage.TOTAL));
+        assertEquals(-1, tracker.percentileMs(FrameLatencyTracker.Stage.TOTAL, 50));
+    }
+
+    @Test
+    public void histogramPercentilesAndOverflowBucket() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ms++) {
+            h.record(ms * MS);
+        }
+        h.record(5_000 * MS);
+
+        assertEquals(101, h.count());
+        assertEquals(51, h.percentileMs(50));
+        assertEquals(100, h.percentileMs(99));
+        assertEquals(LatencyHistogram.MAX_MS, h.percentileMs(100));
+        assertEquals(5000.0, h.maxMs(), 0.001);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.controller;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * H264BitReader 单元测试 (Exp-Golomb / 防竞争字节)
+ */
+public class H264BitReaderTest {
+
+    private final H264BitReader reader = new H264BitReader();
+
+    private H264BitReader read(int... bytes) {
+        byte[] data = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) data[i] = (byte) bytes[i];
+        return reader.reset(data, 0, data.length);
+    }
+
+    @Test
+    public void expGolomb_decodesUnsignedAndSigned() {
+        // 1 | 010 | 011 | 00100 | 00101 → ue: 0, 1, 2, 3, 4
+        read(0x67, 0b1010_0110, 0b0100_0010, 0b1000_0000);
+        assertEquals(0, reader.readUE());
+        assertEquals(1, reader.readUE());
+        assertEquals(2, reader.readUE());
+        assertEquals(3, reader.readUE());
+        assertEquals(4, reader.readUE());
+
+        // se: 010 → 1, 011 → -1, 00100 → 2
+        read(0x67, 0b0100_1100, 0b1000_0000);
+        assertEquals(1, reader.readSE());
+        assertEquals(-1, reader.readSE());
+        assertEquals(2, reader.readSE());
+    }
+
+    @Test
+    public void emulationPreventionByte_isSkipped() {
+        // RBSP 00 00 01 在码流中写作 00 00 03 01
+        read(0x67, 0x00, 0x00, 0x03, 0x01);
+        assertEquals(0, reader.readBits(16));
+        assertEquals(1, reader.readBits(8));
+        assertFalse(reader.hasMoreData());
+    }
+
+    @Test
+    public void truncatedSliceHeader_returnsUnknownType() {
+        assertEquals(H264BitReader.SLICE_P, reader.readSliceType(new byte[]{0x41, (byte) 0x98}, 0, 2));
+        assertEquals(-1, reader.readSliceType(new byte[]{0x41, 0x00}, 0, 2));
+    }
+}
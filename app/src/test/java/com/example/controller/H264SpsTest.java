@@ -0,0 +1,79 @@
+package com.example.controller;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * H264Sps 单元测试（SPS 由独立的位写入脚本生成）
+ */
+public class H264SpsTest {
+
+    /** Constrained Baseline@3.0, 320x240, VUI 20fps（timing_info 中含防竞争字节） */
+    private static final byte[] BASELINE_320x240 = bytes(
+        0x67, 0x42, 0xC0, 0x1E, 0xDA, 0x05, 0x07, 0xE8, 0x40, 0x00,
+        0x00, 0x03, 0x00, 0x40, 0x00, 0x00, 0x0A, 0x21);
+
+    /** High@4.0, 1920x1088 编码 + 底部裁剪 8 行，带缩放矩阵，无 VUI */
+    private static final byte[] HIGH_1080P = bytes(
+        0x67, 0x64, 0x00, 0x28, 0xAD, 0x84, 0x3F, 0xFF, 0x80, 0xD9,
+        0x40, 0x78, 0x02, 0x27, 0xE5, 0x40);
+
+    private static byte[] bytes(int... values) {
+        byte[] data = new byte[values.length];
+        for (int i = 0; i < values.length; i++) data[i] = (byte) values[i];
+        return data;
+    }
+
+    private static H264Sps parse(byte[] sps) {
+        return H264Sps.parse(sps, 0, sps.length);
+    }
+
+    @Test
+    public void baseline_parsesResolutionAndVuiFrameRate() {
+        H264Sps sps = parse(BASELINE_320x240);
+        assertNotNull(sps);
+        assertEquals(66, sps.profileIdc);
+        assertEquals(30, sps.levelIdc);
+        assertEquals(320, sps.width);
+        assertEquals(240, sps.height);
+        assertEquals(20.0f, sps.frameRate, 0.001f);
+        assertEquals("Constrained Baseline", sps.profileName());
+        assertEquals(320 * 240 * 3 / 4, sps.maxAccessUnitSize());
+    }
+
+    @Test
+    public void high_appliesCroppingAndSkipsScalingMatrix() {
+        H264Sps sps = parse(HIGH_1080P);
+        assertNotNull(sps);
+        assertEquals(100, sps.profileIdc);
+        assertEquals(1, sps.chromaFormatIdc);
+        assertEquals(1920, sps.codedWidth);
+        assertEquals(1088, sps.codedHeight);
+        assertEquals(1920, sps.width);
+        assertEquals(1080, sps.height);
+        assertEquals(4, sps.maxNumRefFrames);
+        assertEquals(0, sps.frameRate, 0);
+    }
+
+    @Test
+    public void sameDecodingParameters_ignoresVuiOnlyChanges() {
+        H264Sps withVui = parse(BASELINE_320x240);
+        byte[] noVui = BASELINE_320x240.clone();
+        noVui[7] = (byte) 0xE4; // vui_parameters_present_flag = 0 + 停止位，其后截断
+        H264Sps withoutVui = H264Sps.parse(noVui, 0, 8);
+
+        assertNotNull(withoutVui);
+        assertEquals(0, withoutVui.frameRate, 0);
+        assertTrue(withVui.sameDecodingParameters(withoutVui));
+        assertFalse(withVui.sameDecodingParameters(parse(HIGH_1080P)));
+        assertTrue(withVui.sameResolution(withoutVui));
+        assertFalse(withVui.sameResolution(parse(HIGH_1080P)));
+    }
+
+    @Test
+    public void truncatedOrWrongType_returnsNull() {
+        assertNull(H264Sps.parse(BASELINE_320x240, 0, 6));
+        assertNull(H264Sps.parse(bytes(0x68, 0xCE, 0x38, 0x80), 0, 4));
+    }
+}
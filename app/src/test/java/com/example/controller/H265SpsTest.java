@@ -0,0 +1,81 @@
+package com.example.controller;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * H265Sps 单元测试（SPS 由独立的位写入脚本生成）
+ */
+public class H265SpsTest {
+
+    /** Main@L4.0, 1920x1088 编码 + conformance window 底部裁剪 8 行（含防竞争字节） */
+    private static final byte[] MAIN_1080P = bytes(
+        0x42, 0x01, 0x01, 0x01, 0x60, 0x00, 0x00, 0x03, 0x00, 0x90,
+        0x00, 0x00, 0x03, 0x00, 0x00, 0x03, 0x00, 0x78, 0xA0, 0x03,
+        0xC0, 0x80, 0x11, 0x07, 0xCB, 0x96, 0x5E, 0x49, 0x38);
+
+    /** Main 10 High tier@L3.1, 1280x720, 两个时域子层（子层 profile 存在），只有最高子层的排序信息 */
+    private static final byte[] MAIN10_720P_TWO_SUBLAYERS = bytes(
+        0x42, 0x01, 0x03, 0x22, 0x20, 0x00, 0x00, 0x03, 0x00, 0x90,
+        0x00, 0x00, 0x03, 0x00, 0x00, 0x03, 0x00, 0x5D, 0x80, 0x00,
+        0x02, 0x00, 0x00, 0x03, 0x00, 0x00, 0x03, 0x00, 0x00, 0x03,
+        0x00, 0x00, 0x03, 0x00, 0x00, 0xA0, 0x02, 0x80, 0x80, 0x2D,
+        0x13, 0x65, 0x1B, 0x92, 0x4E);
+
+    private static byte[] bytes(int... values) {
+        byte[] data = new byte[values.length];
+        for (int i = 0; i < values.length; i++) data[i] = (byte) values[i];
+        return data;
+    }
+
+    private static H265Sps parse(byte[] sps) {
+        return H265Sps.parse(sps, 0, sps.length);
+    }
+
+    @Test
+    public void main1080p_appliesConformanceWindow() {
+        H265Sps sps = parse(MAIN_1080P);
+        assertNotNull(sps);
+        assertEquals(1, sps.profileIdc);
+        assertFalse(sps.highTier);
+        assertEquals(120, sps.levelIdc);
+        assertEquals(1, sps.chromaFormatIdc);
+        assertEquals(1920, sps.codedWidth);
+        assertEquals(1088, sps.codedHeight);
+        assertEquals(1920, sps.width);
+        assertEquals(1080, sps.height);
+        assertEquals(5, sps.maxDecPicBuffering);
+        assertEquals("1920x1080 HEVC Main@L4.0", sps.toString());
+        assertEquals(1920 * 1088 * 3 / 4, sps.maxAccessUnitSize());
+    }
+
+    @Test
+    public void subLayers_areSkippedInProfileTierLevel() {
+        H265Sps sps = parse(MAIN10_720P_TWO_SUBLAYERS);
+        assertNotNull(sps);
+        assertEquals(2, sps.profileIdc);
+        assertTrue(sps.highTier);
+        assertEquals(93, sps.levelIdc);
+        assertEquals(1280, sps.width);
+        assertEquals(720, sps.height);
+        assertEquals(10, sps.bitDepthLuma);
+        assertEquals(6, sps.maxDecPicBuffering);
+    }
+
+    @Test
+    public void decodingParameters_compareOnlyWithinCodec() {
+        H265Sps a = parse(MAIN_1080P);
+        H265Sps b = parse(MAIN_1080P);
+        assertTrue(a.sameDecodingParameters(b));
+        assertFalse(a.sameResolution(parse(MAIN10_720P_TWO_SUBLAYERS)));
+        assertFalse(a.sameDecodingParameters(H264Sps.parse(
+            bytes(0x67, 0x42, 0xC0, 0x1E, 0xDA, 0x05, 0x07, 0xE8, 0x40), 0, 9)));
+    }
+
+    @Test
+    public void truncatedOrWrongType_returnsNull() {
+        assertNull(H265Sps.parse(MAIN_1080P, 0, 20));
+        assertNull(H265Sps.parse(bytes(0x44, 0x01, 0xC1, 0x72, 0xB4, 0x62, 0x40, 0, 0, 0, 0, 0, 0, 0, 0, 0), 0, 16));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.controller;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * JoystickJsonWriter 单元测试：输出格式 / 与 Gson 字段一致 / 稳态无分配
+ */
+public class JoystickJsonWriterTest {
+
+    private final JoystickJsonWriter writer = new JoystickJsonWriter();
+
+    private String write(float vx, float vy, float vz, float yawRate) {
+        int length = writer.write(vx, vy, vz, yawRate);
+        return new String(writer.buffer(), 0, length, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void write_usesFixedPrecisionAndTrimsZeros() {
+        assertEquals("{\"type\":\"joystick\",\"vx\":0.5,\"vy\":-0.25,\"vz\":0,\"yaw_rate\":0.7854}",
+            write(0.5f, -0.25f, 0f, (float) Math.toRadians(45)));
+        assertEquals("{\"type\":\"joystick\",\"vx\":0.0001,\"vy\":0,\"vz\":12.3,\"yaw_rate\":-1}",
+            write(0.00006f, -0.00004f, 12.3f, -1f));
+    }
+
+    @Test
+    public void nonFiniteAndHugeValues_stayValidJson() {
+        String json = write(Float.NaN, Float.POSITIVE_INFINITY, -3e30f, 0f);
+        assertEquals("{\"type\":\"joystick\",\"vx\":0,\"vy\":0,\"vz\":-1000000,\"yaw_rate\":0}", json);
+    }
+
+    @Test
+    public void output_matchesGsonFieldsWithinPrecision() {
+        Gson gson = new Gson();
+        Random random = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            float vx = random.nextFloat() - 0.5f, vy = random.nextFloat() - 0.5f;
+            float vz = random.nextFloat() - 0.5f, yaw = (random.nextFloat() - 0.5f) * 1.6f;
+
+            JsonObject ours = gson.fromJson(write(vx, vy, vz, yaw), JsonObject.class);
+            JsonObject reference = gson.toJsonTree(new NetworkClient.JoystickMsg(vx, vy, vz, yaw)).getAsJsonObject();
+            assertEquals(reference.keySet(), ours.keySet());
+            assertEquals("joystick", ours.get("type").getAsString());
+            for (String key : new String[]{"vx", "vy", "vz", "yaw_rate"}) {
+                assertEquals(key, reference.get(key).getAsDouble(), ours.get(key).getAsDouble(), 0.00005 + 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void steadyState_doesNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+        if (!mx.isThreadAllocatedMemorySupported()) return;
+        long id = Thread.currentThread().getId();
+
+        for (int i = 0; i < 20000; i++) writer.write(i * 1e-4f, -i * 1e-4f, 0.1f, 0.2f); // 预热 / JIT
+        long before = mx.getThreadAllocatedBytes(id);
+        int total = 0;
+        for (int i = 0; i < 10000; i++) {
+            total += writer.write(i * 1e-4f, -i * 1e-4f, 0.1f, 0.2f);
+        }
+        long allocated = mx.getThreadAllocatedBytes(id) - before;
+
+        assertTrue(total > 0);
+        assertTrue("10000 次写入分配了 " + allocated + " 字节", allocated < 1024);
+    }
+}
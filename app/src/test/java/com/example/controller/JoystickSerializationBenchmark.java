@@ -0,0 +1,95 @@
+package com.example.controller;
+
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 摇杆消息序列化基准 (JMH)：到“可交给 OkHttp 的帧字节”为止，不含网络 I/O
+ *
+ * - gsonToJson：原路径 new JoystickMsg + gson.toJson，再按 OkHttp send(String) 的方式编码 UTF-8
+ * - handWrittenJson：JoystickJsonWriter 写入复用缓冲区 + ByteString.of 的一次拷贝
+ * - binaryFrame：ControlFrameEncoder 二进制帧（float16）+ 一次拷贝
+ *
+ * 建议加 -prof gc 查看每次操作的分配字节数。
+ * 运行：在 Android Studio 中直接运行 main()，或使用单元测试 classpath 执行本类
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JoystickSerializationBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final Gson gson = new Gson();
+    private final JoystickJsonWriter writer = new JoystickJsonWriter();
+    private final ControlFrameEncoder encoder = new ControlFrameEncoder(true);
+    private final float[] sticks = new float[SAMPLES * 4];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 变化的摇杆值，避免常量折叠与分支预测过于理想
+        Random random = new Random(1);
+        for (int i = 0; i < sticks.length; i++) {
+            sticks[i] = (random.nextFloat() - 0.5f) * 1.6f;
+        }
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (i + 4) & (sticks.length - 1);
+        return i;
+    }
+
+    @Benchmark
+    public byte[] gsonToJson() {
+        int i = next();
+        NetworkClient.JoystickMsg msg = new NetworkClient.JoystickMsg(sticks[i], sticks[i + 1], sticks[i + 2], sticks[i + 3]);
+        return gson.toJson(msg).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] handWrittenJson() {
+        int i = next();
+        int length = writer.write(sticks[i], sticks[i + 1], sticks[i + 2], sticks[i + 3]);
+        return Arrays.copyOf(writer.buffer(), length);
+    }
+
+    @Benchmark
+    public byte[] binaryFrame() {
+        int i = next();
+        int length = encoder.encodeJoystick(sticks[i], sticks[i + 1], sticks[i + 2], sticks[i + 3], i);
+        return Arrays.copyOf(encoder.buffer(), length);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(JoystickSerializationBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.controller;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * NackGenerator 单元测试 (RFC 4585 Generic NACK)
+ */
+public class NackGeneratorTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final NackGenerator nack = new NackGenerator(50);
+    private final ByteBuffer out = ByteBuffer.allocate(256);
+
+    private int write(long nowNanos) {
+        out.clear();
+        int n = nack.writeNack(out, 0x11111111, 0x22222222, nowNanos);
+        out.flip();
+        return n;
+    }
+
+    @Test
+    public void gap_producesPidAndBlp() {
+        nack.onPacket(100, 0);
+        nack.onPacket(101, 0);
+        nack.onPacket(105, 0); // 缺 102, 103, 104
+
+        assertEquals(0, nack.nanosUntilNextDue(0));
+        assertEquals(3, write(0));
+
+        assertEquals(0x81, out.get(0) & 0xFF);        // V=2, FMT=1
+        assertEquals(205, out.get(1) & 0xFF);         // RTPFB
+        assertEquals(3, out.getShort(2));             // 1 个 FCI
+        assertEquals(0x11111111, out.getInt(4));
+        assertEquals(0x22222222, out.getInt(8));
+        assertEquals(102, out.getShort(12) & 0xFFFF); // PID
+        assertEquals(0b11, out.getShort(14));         // BLP: 103, 104
+        assertEquals(16, out.limit());
+    }
+
+    @Test
+    public void repeatedRequests_respectIntervalAndBudget() {
+        nack.setMaxRetries(2);
+        nack.onPacket(10, 0);
+        nack.onPacket(12, 0);
+
+        assertEquals(1, write(0));
+        assertEquals(0, write(5 * MS));                 // 间隔内不重复请求
+        assertEquals(5 * MS, nack.nanosUntilNextDue(5 * MS));
+        assertEquals(1, write(10 * MS));                // 第二次
+        assertEquals(0, write(30 * MS));                // 预算用尽
+        assertEquals(2, nack.getRequestedPackets());
+        assertEquals(1, nack.getPendingCount());        // 保留到超龄
+
+        nack.onPacket(11, 31 * MS);                     // 重传包到达
+        assertEquals(1, nack.getRecoveredPackets());
+        assertEquals(-1, nack.nanosUntilNextDue(31 * MS));
+    }
+
+    @Test
+    public void reorderedPacketBeforeRequest_isNotCountedAsRecovered() {
+        nack.onPacket(1, 0);
+        nack.onPacket(3, 0);
+        nack.onPacket(2, 0);
+
+        assertEquals(0, write(0));
+        assertEquals(0, nack.getRecoveredPackets());
+    }
+
+    @Test
+    public void expiredEntries_areAbandoned() {
+        nack.onPacket(1, 0);
+        nack.onPacket(4, 0);
+        assertEquals(2, write(0));
+
+        assertEquals(-1, nack.nanosUntilNextDue(60 * MS));
+        assertEquals(2, nack.getAbandonedPackets());
+        assertEquals(0, write(60 * MS));
+    }
+
+    @Test
+    public void rttLongerThanMaxAge_extendsGiveUpAgeAndRetryInterval() {
+        NackGenerator short20 = new NackGenerator(20);   // BALANCED 模式的重排等待时间
+        assertEquals(20, short20.getMaxAgeMillis());
+        assertEquals(-1, short20.getRttMillis(), 0);
+
+        short20.onPacket(1, 0);
+        short20.onPacket(3, 0);
+        out.clear();
+        assertEquals(1, short20.writeNack(out, 1, 2, 0));
+        assertEquals(-1, short20.nanosUntilNextDue(20 * MS)); // 尚无 RTT：按 20ms 放弃
+        assertEquals(1, short20.getAbandonedPackets());
+
+        short20.onPacket(2, 40 * MS);                      // 放弃后迟到的重传包仍完成 RTT 采样
+        assertEquals(40, short20.getRttMillis(), 0.001);
+        assertEquals(0, short20.getRecoveredPackets());
+        assertEquals(120, short20.getMaxAgeMillis());      // RTO = SRTT + 4 × RTTVAR
+
+        short20.onPacket(5, 100 * MS);                     // 缺 4
+        out.clear();
+        assertEquals(1, short20.writeNack(out, 1, 2, 100 * MS));
+        out.clear();
+        assertEquals(0, short20.writeNack(out, 1, 2, 110 * MS)); // 一个往返内不重复请求
+        assertEquals(101 * MS, short20.nanosUntilNextDue(119 * MS)); // 超过 20ms 仍在等待
+        short20.onPacket(4, 140 * MS);                     // 往返 40ms 的重传包及时到达
+        assertEquals(1, short20.getRecoveredPackets());
+        assertEquals(100, short20.getMaxAgeMillis());      // RTTVAR 随稳定采样收敛
+    }
+
+    @Test
+    public void retriedSequence_isNotUsedAsRttSample() {
+        nack.onPacket(10, 0);
+        nack.onPacket(12, 0);
+        assertEquals(1, write(0));
+        assertEquals(1, write(10 * MS));                // 第二次请求：无法判断重传包对应哪次请求
+        nack.onPacket(11, 15 * MS);
+
+        assertEquals(1, nack.getRecoveredPackets());
+        assertEquals(-1, nack.getRttMillis(), 0);
+        assertEquals(50, nack.getMaxAgeMillis());
+    }
+
+    @Test
+    public void reset_forgetsRtt() {
+        nack.onPacket(1, 0);
+        nack.onPacket(3, 0);
+        assertEquals(1, write(0));
+        nack.onPacket(2, 100 * MS);
+        assertEquals(100, nack.getRttMillis(), 0.001);
+        assertEquals(250, nack.getMaxAgeMillis());      // 不超过 MAX_RTT_WAIT_MS
+
+        nack.reset();
+        assertEquals(-1, nack.getRttMillis(), 0);
+        assertEquals(50, nack.getMaxAgeMillis());
+    }
+
+    @Test
+    public void hugeGap_isTreatedAsRestart() {
+        nack.onPacket(1, 0);
+        nack.onPacket(1000, 0);
+
+        assertEquals(0, nack.getPendingCount());
+        assertEquals(0, write(0));
+    }
+
+    @Test
+    public void wraparoundGap_isRequested() {
+        nack.onPacket(0xFFFE, 0);
+        nack.onPacket(0x0001, 0); // 缺 0xFFFF, 0x0000
+
+        assertEquals(2, write(0));
+        assertEquals(0xFFFF, out.getShort(12) & 0xFFFF);
+        assertEquals(0b1, out.getShort(14));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接收线程 → 解码线程 NALU 交接延迟基准 (JMH)
+ *
+ * ping 线程把缓冲区投递到请求队列，pong 线程取出后立即通过应答队列送回，
+ * 一次往返 ≈ 两次交接。对比：
+ * - linkedBlockingQueue：原 LinkedBlockingQueue + poll(timeout) 方案
+ * - spscRing：SpscRingBuffer，分别测试三种等待策略
+ *
+ * 运行：在 Android Studio 中直接运行 main()，或使用单元测试 classpath 执行本类
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NaluHandoffBenchmark {
+
+    private static final int QUEUE_SIZE = 3;
+    private static final long POLL_TIMEOUT_US = 1000;
+
+    @State(Scope.Group)
+    public static class LinkedQueueState {
+        final BlockingQueue<NaluBuffer> request = new LinkedBlockingQueue<>(QUEUE_SIZE);
+        final BlockingQueue<NaluBuffer> response = new LinkedBlockingQueue<>(QUEUE_SIZE);
+        final NaluBuffer token = new NaluBuffer(16);
+    }
+
+    @State(Scope.Group)
+    public static class SpscState {
+        @Param({"BLOCKING", "YIELDING", "BUSY_SPIN"})
+        public SpscRingBuffer.WaitStrategy waitStrategy;
+
+        SpscRingBuffer<NaluBuffer> request;
+        SpscRingBuffer<NaluBuffer> response;
+        final NaluBuffer token = new NaluBuffer(16);
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            request = new SpscRingBuffer<>(QUEUE_SIZE, waitStrategy);
+            response = new SpscRingBuffer<>(QUEUE_SIZE, waitStrategy);
+        }
+    }
+
+    // ========== LinkedBlockingQueue ==========
+
+    @Benchmark
+    @Group("linkedBlockingQueue")
+    @GroupThreads(1)
+    public NaluBuffer linkedPing(LinkedQueueState s, Control ctl) throws InterruptedException {
+        s.request.offer(s.token);
+        NaluBuffer r = null;
+        while (r == null && !ctl.stopMeasurement) {
+            r = s.response.poll(POLL_TIMEOUT_US, TimeUnit.MICROSECONDS);
+        }
+        return r;
+    }
+
+    @Benchmark
+    @Group("linkedBlockingQueue")
+    @GroupThreads(1)
+    public void linkedPong(LinkedQueueState s, Control ctl) throws InterruptedException {
+        NaluBuffer r = null;
+        while (r == null && !ctl.stopMeasurement) {
+            r = s.request.poll(POLL_TIMEOUT_US, TimeUnit.MICROSECONDS);
+        }
+        if (r != null) {
+            s.response.offer(r);
+        }
+    }
+
+    // ========== SpscRingBuffer ==========
+
+    @Benchmark
+    @Group("spscRing")
+    @GroupThreads(1)
+    public NaluBuffer spscPing(SpscState s, Control ctl) throws InterruptedException {
+        s.request.offerDropOldest(s.token);
+        NaluBuffer r = null;
+        while (r == null && !ctl.stopMeasurement) {
+            r = s.response.poll(POLL_TIMEOUT_US, TimeUnit.MICROSECONDS);
+        }
+        return r;
+    }
+
+    @Benchmark
+    @Group("spscRing")
+    @GroupThreads(1)
+    public void spscPong(SpscState s, Control ctl) throws InterruptedException {
+        NaluBuffer r = null;
+        while (r == null && !ctl.stopMeasurement) {
+            r = s.request.poll(POLL_TIMEOUT_US, TimeUnit.MICROSECONDS);
+        }
+        if (r != null) {
+            s.response.offerDropOldest(r);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(NaluHandoffBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
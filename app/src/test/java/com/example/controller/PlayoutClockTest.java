@@ -0,0 +1,57 @@
+package com.example.controller;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * PlayoutClock 单元测试
+ */
+public class PlayoutClockTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long FRAME_US = 50_000; // 20fps
+
+    private final PlayoutClock clock = new PlayoutClock(100);
+
+    @Test
+    public void jitteredArrivals_areRenderedAtEvenIntervals() {
+        long base = 1_000 * MS;
+        long[] jitterMs = {0, 30, 10, 45, 5}; // 相对首帧的网络延迟抖动
+        long first = clock.renderTimeNanos(0, base);
+        assertEquals(base + 100 * MS, first);
+        for (int i = 1; i < jitterMs.length; i++) {
+            long now = base + i * 50 * MS + jitterMs[i] * MS;
+            assertEquals(first + i * 50 * MS, clock.renderTimeNanos(i * FRAME_US, now));
+        }
+        assertEquals(0, clock.getLateFrames());
+    }
+
+    @Test
+    public void lateFrame_isShownImmediatelyAndDelayGrows() {
+        long base = 1_000 * MS;
+        clock.renderTimeNanos(0, base);
+        long now = base + 50 * MS + 150 * MS; // 超出播放延迟 50ms
+        assertEquals(now, clock.renderTimeNanos(FRAME_US, now));
+        assertEquals(1, clock.getLateFrames());
+        // 后续帧按新的偏移排期
+        assertEquals(now + 50 * MS, clock.renderTimeNanos(2 * FRAME_US, now + 10 * MS));
+    }
+
+    @Test
+    public void excessDelay_isRecoveredGradually() {
+        long base = 1_000 * MS;
+        clock.renderTimeNanos(0, base);
+        clock.renderTimeNanos(FRAME_US, base + 250 * MS);             // 迟到 100ms → 延迟变为 200ms
+        long now = base + 2 * 50 * MS;                                // 网络恢复，帧准时到达
+        long target = clock.renderTimeNanos(2 * FRAME_US, now);
+        assertEquals(now + 200 * MS - PlayoutClock.CATCH_UP_NANOS, target);
+    }
+
+    @Test
+    public void ptsJump_reanchors() {
+        clock.renderTimeNanos(0, 0);
+        long now = 100 * MS;
+        assertEquals(now + 100 * MS, clock.renderTimeNanos(60_000_000L, now)); // PTS 向前跳 60s
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * RtpH264Depacketizer 单元测试 (JVM 本地运行)
+ */
+public class RtpH264DepacketizerTest {
+
+    private final List<byte[]> nalus = new ArrayList<>();
+    private final List<Long> timestamps = new ArrayList<>();
+    private final List<Boolean> markers = new ArrayList<>();
+    private int lossEvents = 0;
+    private RtpH264Depacketizer depacketizer;
+
+    @Before
+    public void setUp() {
+        nalus.clear();
+        timestamps.clear();
+        markers.clear();
+        lossEvents = 0;
+        depacketizer = new RtpH264Depacketizer(new RtpH264Depacketizer.NaluListener() {
+            @Override public void onNalu(byte[] data, int offset, int length, long rtpTimestamp, boolean marker) {
+                nalus.add(Arrays.copyOfRange(data, offset, offset + length));
+                timestamps.add(rtpTimestamp);
+                markers.add(marker);
+            }
+            @Override public void onPacketLoss(int expectedSeq, int receivedSeq, int lost) {
+                lossEvents++;
+            }
+        });
+    }
+
+    /** 构造最小 RTP 包 (V=2, PT=96) */
+    static byte[] rtp(int seq, int... payload) {
+        byte[] p = new byte[RtpH264Depacketizer.RTP_HEADER_SIZE + payload.length];
+        p[0] = (byte) 0x80;
+        p[1] = 96;
+        p[2] = (byte) (seq >> 8);
+        p[3] = (byte) seq;
+        for (int i = 0; i < payload.length; i++) {
+            p[RtpH264Depacketizer.RTP_HEADER_SIZE + i] = (byte) payload[i];
+        }
+        return p;
+    }
+
+    static byte[] withTimestamp(byte[] packet, long rtpTimestamp) {
+        packet[4] = (byte) (rtpTimestamp >> 24);
+        packet[5] = (byte) (rtpTimestamp >> 16);
+        packet[6] = (byte) (rtpTimestamp >> 8);
+        packet[7] = (byte) rtpTimestamp;
+        return packet;
+    }
+
+    private void feed(byte[] packet) {
+        depacketizer.process(packet, 0, packet.length);
+    }
+
+    @Test
+    public void singleNalu_isEmittedWithoutCopy() {
+        byte[] packet = rtp(1, 0x65, 1, 2, 3);
+        feed(packet);
+
+        assertEquals(1, nalus.size());
+        assertArrayEquals(new byte[]{0x65, 1, 2, 3}, nalus.get(0));
+    }
+
+    @Test
+    public void fuA_isReassembledWithRebuiltHeader() {
+        // FU indicator: NRI=3, type=28; FU header: S/E + type=5
+        feed(rtp(10, 0x7C, 0x85, 1, 2));
+        feed(rtp(11, 0x7C, 0x05, 3, 4));
+        feed(rtp(12, 0x7C, 0x45, 5));
+
+        assertEquals(1, nalus.size());
+        assertArrayEquals(new byte[]{0x65, 1, 2, 3, 4, 5}, nalus.get(0));
+        assertEquals(0, depacketizer.getDroppedPackets());
+    }
+
+    @Test
+    public void stapA_isSplitWithMarkerOnLastNalu() {
+        // STAP-A: SPS(3B) + PPS(2B) + IDR(3B)
+        byte[] p = rtp(20, 0x78,
+                0, 3, 0x67, 0x42, 0x00,
+                0, 2, 0x68, 0xCE,
+                0, 3, 0x65, 1, 2);
+        p[1] |= (byte) 0x80; // marker
+        feed(p);
+
+        assertEquals(3, nalus.size());
+        assertArrayEquals(new byte[]{0x67, 0x42, 0x00}, nalus.get(0));
+        assertArrayEquals(new byte[]{0x68, (byte) 0xCE}, nalus.get(1));
+        assertArrayEquals(new byte[]{0x65, 1, 2}, nalus.get(2));
+        assertEquals(Arrays.asList(false, false, true), markers);
+    }
+
+    @Test
+    public void malformedStapA_isDroppedWhole() {
+        feed(rtp(20, 0x78, 0, 2, 0x67, 0x42, 0, 9, 0x65, 1)); // 第二个长度越界
+
+        assertTrue(nalus.isEmpty());
+        assertEquals(1, depacketizer.getMalformedPackets());
+    }
+
+    @Test
+    public void directBuffer_isParsedInPlace() {
+        ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        byte[][] packets = {
+            rtp(30, 0x41, 7, 8),
+            rtp(31, 0x7C, 0x85, 1, 2),
+            rtp(32, 0x7C, 0x45, 3),
+        };
+        for (byte[] p : packets) {
+            direct.clear();
+            direct.put(p);
+            direct.flip();
+            depacketizer.process(direct);
+        }
+
+        assertEquals(2, nalus.size());
+        assertArrayEquals(new byte[]{0x41, 7, 8}, nalus.get(0));
+        assertArrayEquals(new byte[]{0x65, 1, 2, 3}, nalus.get(1));
+        assertEquals(0, depacketizer.getDroppedPackets());
+    }
+
+    @Test
+    public void sequenceGap_discardsPartialFuA() {
+        feed(rtp(10, 0x7C, 0x85, 1, 2));
+        feed(rtp(12, 0x7C, 0x45, 5)); // 11 丢失
+
+        assertTrue(nalus.isEmpty());
+        assertEquals(1, lossEvents);
+        assertEquals(1, depacketizer.getDroppedPackets());
+    }
+
+    @Test
+    public void sequenceWrapAround_isNotLoss() {
+        feed(rtp(0xFFFF, 0x41, 1));
+        feed(rtp(0x0000, 0x41, 2));
+
+        assertEquals(2, nalus.size());
+        assertEquals(0, lossEvents);
+    }
+
+    @Test
+    public void rtpTimestamp_isUnwrappedTo64Bit() {
+        feed(withTimestamp(rtp(1, 0x41, 1), 0xFFFFF000L));
+        feed(withTimestamp(rtp(2, 0x41, 2), 0x00000A00L)); // 32 位回绕
+        feed(withTimestamp(rtp(3, 0x41, 3), 0xFFFFFF00L)); // 乱序的旧时间戳
+
+        assertEquals(Long.valueOf(0xFFFFF000L), timestamps.get(0));
+        assertEquals(Long.valueOf(0x100000A00L), timestamps.get(1));
+        assertEquals(Long.valueOf(0xFFFFFF00L), timestamps.get(2));
+    }
+
+    @Test
+    public void csrcExtensionAndPadding_areSkipped() {
+        byte[] payload = {0x41, 9, 8};
+        byte[] p = new byte[12 + 4 + 8 + payload.length + 2];
+        p[0] = (byte) (0x80 | 0x20 | 0x10 | 0x01); // padding + extension + 1 CSRC
+        p[1] = 96;
+        p[3] = 5;
+        p[12 + 4 + 3] = 1; // 扩展长度 1 个 32 位字
+        System.arraycopy(payload, 0, p, 12 + 4 + 8, payload.length);
+        p[p.length - 1] = 2; // 2 字节填充
+        feed(p);
+
+        assertEquals(1, nalus.size());
+        assertArrayEquals(payload, nalus.get(0));
+    }
+
+    @Test
+    public void truncatedPacket_isDropped() {
+        feed(new byte[5]);
+
+        assertTrue(nalus.isEmpty());
+        assertEquals(1, depacketizer.getDroppedPackets());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.example.controller.RtpH264DepacketizerTest.rtp;
+import static org.junit.Assert.*;
+
+/**
+ * RtpH265Depacketizer 单元测试 (RFC 7798)
+ */
+public class RtpH265DepacketizerTest {
+
+    private final List<byte[]> nalus = new ArrayList<>();
+    private final List<Boolean> markers = new ArrayList<>();
+    private int lossEvents = 0;
+    private RtpH265Depacketizer depacketizer;
+
+    @Before
+    public void setUp() {
+        nalus.clear();
+        markers.clear();
+        lossEvents = 0;
+        depacketizer = new RtpH265Depacketizer(new RtpDepacketizer.NaluListener() {
+            @Override public void onNalu(byte[] data, int offset, int length, long rtpTimestamp, boolean marker) {
+                nalus.add(Arrays.copyOfRange(data, offset, offset + length));
+                markers.add(marker);
+            }
+            @Override public void onPacketLoss(int expectedSeq, int receivedSeq, int lost) {
+                lossEvents++;
+            }
+        });
+    }
+
+    private void feed(byte[] packet) {
+        depacketizer.process(packet, 0, packet.length);
+    }
+
+    @Test
+    public void singleNalu_isEmittedAsIs() {
+        feed(rtp(1, 0x02, 0x01, 0xD0, 7)); // TRAIL_R
+
+        assertEquals(1, nalus.size());
+        assertArrayEquals(new byte[]{0x02, 0x01, (byte) 0xD0, 7}, nalus.get(0));
+    }
+
+    @Test
+    public void fu_isReassembledWithRebuiltTwoByteHeader() {
+        // PayloadHdr: type=49, TID=1 → 0x62 0x01；FU header: S/E + FuType=19 (IDR_W_RADL)
+        feed(rtp(10, 0x62, 0x01, 0x93, 1, 2));
+        feed(rtp(11, 0x62, 0x01, 0x13, 3, 4));
+        feed(rtp(12, 0x62, 0x01, 0x53, 5));
+
+        assertEquals(1, nalus.size());
+        assertArrayEquals(new byte[]{0x26, 0x01, 1, 2, 3, 4, 5}, nalus.get(0));
+        assertEquals(19, VideoCodec.H265.nalType(nalus.get(0), 0));
+    }
+
+    @Test
+    public void ap_isSplitWithMarkerOnLastNalu() {
+        // AP (48): VPS(3B) + SPS(3B) + PPS(3B)
+        byte[] p = rtp(20, 0x60, 0x01,
+                0, 3, 0x40, 0x01, 0x0C,
+                0, 3, 0x42, 0x01, 0x01,
+                0, 3, 0x44, 0x01, 0xC0);
+        p[1] |= (byte) 0x80; // marker
+        feed(p);
+
+        assertEquals(3, nalus.size());
+        assertEquals(32, VideoCodec.H265.nalType(nalus.get(0), 0));
+        assertEquals(33, VideoCodec.H265.nalType(nalus.get(1), 0));
+        assertEquals(34, VideoCodec.H265.nalType(nalus.get(2), 0));
+        assertEquals(Arrays.asList(false, false, true), markers);
+    }
+
+    @Test
+    public void malformedAp_isDroppedWhole() {
+        feed(rtp(20, 0x60, 0x01, 0, 3, 0x40, 0x01, 0x0C, 0, 9, 0x26, 0x01)); // 第二个长度越界
+
+        assertTrue(nalus.isEmpty());
+        assertEquals(1, depacketizer.getMalformedPackets());
+    }
+
+    @Test
+    public void paci_isUnsupported() {
+        feed(rtp(1, 0x64, 0x01, 0, 0)); // PACI (50)
+
+        assertTrue(nalus.isEmpty());
+        assertEquals(1, depacketizer.getUnsupportedPackets());
+    }
+
+    @Test
+    public void fuWithoutStart_isDiscarded() {
+        feed(rtp(10, 0x62, 0x01, 0x13, 3, 4)); // 中间片段，起始片段未收到
+        feed(rtp(11, 0x62, 0x01, 0x53, 5));
+
+        assertTrue(nalus.isEmpty());
+    }
+
+    @Test
+    public void sequenceGap_discardsPartialFu() {
+        feed(rtp(10, 0x62, 0x01, 0x81, 1, 2));
+        feed(rtp(12, 0x62, 0x01, 0x41, 5)); // 11 丢失
+
+        assertTrue(nalus.isEmpty());
+        assertEquals(1, lossEvents);
+    }
+
+    @Test
+    public void directBuffer_isParsedInPlace() {
+        ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        byte[][] packets = {
+            rtp(30, 0x02, 0x01, 7, 8),
+            rtp(31, 0x62, 0x01, 0x81, 1, 2),
+            rtp(32, 0x62, 0x01, 0x41, 3),
+        };
+        for (byte[] p : packets) {
+            direct.clear();
+            direct.put(p);
+            direct.flip();
+            depacketizer.process(direct);
+        }
+
+        assertEquals(2, nalus.size());
+        assertArrayEquals(new byte[]{0x02, 0x01, 7, 8}, nalus.get(0));
+        assertArrayEquals(new byte[]{0x02, 0x01, 1, 2, 3}, nalus.get(1));
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.controller;
+
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * RtpReceptionStats / RtcpReporter 单元测试 (RFC 3550)
+ */
+public class RtpReceptionStatsTest {
+
+    private static final int SSRC = 0x12345678;
+    private static final long FRAME_NANOS = 50_000_000L; // 20fps
+    private static final int FRAME_TICKS = 4500;         // 50ms @ 90kHz
+
+    private final RtpReceptionStats stats = new RtpReceptionStats();
+
+    private void packet(int seq, int frame, long jitterNanos) {
+        stats.onPacket(SSRC, seq & 0xFFFF, frame * FRAME_TICKS, frame * FRAME_NANOS + jitterNanos);
+    }
+
+    @Test
+    public void probation_requiresTwoSequentialPackets() {
+        packet(100, 0, 0);
+        assertFalse(stats.hasSource());
+        packet(101, 1, 0);
+        assertTrue(stats.hasSource());
+        assertEquals(1, stats.getExpected());
+        assertEquals(1, stats.getReceived());
+    }
+
+    @Test
+    public void gapsAndWraparound_areCountedAsLost() {
+        int seq = 0xFFF0;
+        for (int i = 0; i < 40; i++, seq++) {
+            if (i % 10 == 5) continue; // 每 10 个丢 1 个
+            packet(seq, i, 0);
+        }
+
+        assertEquals(0x10000L + ((0xFFF0 + 39) & 0xFFFF), stats.getExtendedHighestSeq());
+        assertEquals(4, stats.getCumulativeLost());
+        // 第一个包在探测期不计入，区间内应收 39 实收 35
+        assertEquals((4 << 8) / 39, stats.closeInterval());
+        assertEquals(0, stats.closeInterval()); // 新区间没有包
+    }
+
+    @Test
+    public void duplicatesAndReordering_doNotCountAsLoss() {
+        packet(1, 0, 0);
+        packet(2, 1, 0);
+        packet(4, 3, 0);
+        packet(3, 2, 0); // 乱序
+        packet(4, 3, 0); // 重复
+
+        assertEquals(4, stats.getExtendedHighestSeq());
+        assertEquals(-1, stats.getCumulativeLost());
+        assertEquals(0, stats.closeInterval());
+    }
+
+    @Test
+    public void constantTransit_hasZeroJitter_variableTransitDoesNot() {
+        for (int i = 0; i < 50; i++) packet(i, i, 0);
+        assertEquals(0, stats.getJitter());
+
+        for (int i = 50; i < 250; i++) packet(i, i, (i % 2) * 10_000_000L); // ±10ms 交替
+        // 稳态下 J 收敛到 |D| = 900 个时钟单位 (10ms)
+        assertEquals(10.0, stats.getJitterMs(), 0.5);
+    }
+
+    @Test
+    public void largeSequenceJump_resyncsAfterTwoPackets() {
+        packet(10, 0, 0);
+        packet(11, 1, 0);
+        packet(20000, 2, 0);
+        assertEquals(11, stats.getExtendedHighestSeq()); // 单个跳变包被忽略
+        packet(20001, 3, 0);
+        assertEquals(20001, stats.getExtendedHighestSeq());
+        assertEquals(0, stats.getCumulativeLost());
+    }
+
+    @Test
+    public void compoundReport_followsRtcpLayout() {
+        for (int i = 0; i < 10; i++) {
+            if (i != 4) packet(i, i, 0);
+        }
+        ByteBuffer out = ByteBuffer.allocate(256);
+        RtcpReporter.writeCompoundReport(out, 0xCAFEBABE, stats, "ab".getBytes());
+        out.flip();
+
+        // RR
+        assertEquals(0x81, out.get(0) & 0xFF);
+        assertEquals(201, out.get(1) & 0xFF);
+        assertEquals(7, out.getShort(2));
+        assertEquals(0xCAFEBABE, out.getInt(4));
+        assertEquals(SSRC, out.getInt(8));
+        assertEquals((1 << 8) / 9, out.get(12) & 0xFF);       // 丢包率
+        assertEquals(1, out.getInt(12) & 0xFFFFFF);            // 累计丢失
+        assertEquals(9, out.getInt(16));                       // 扩展最高序号
+        // SDES: 头 4 + SSRC 4 + CNAME(1+1+2) + END 1 → 补齐到 12
+        assertEquals(0x81, out.get(32) & 0xFF);
+        assertEquals(202, out.get(33) & 0xFF);
+        assertEquals(3, out.getShort(34));
+        assertEquals(1, out.get(40));
+        assertEquals(2, out.get(41));
+        assertEquals(32 + 16, out.limit());
+        assertEquals(0, out.get(out.limit() - 1));
+    }
+
+    @Test
+    public void pliAndFir_followPsfbLayout() {
+        ByteBuffer out = ByteBuffer.allocate(64);
+        RtcpReporter.writePli(out, 0xCAFEBABE, SSRC);
+        out.flip();
+        assertEquals(0x81, out.get(0) & 0xFF);  // V=2, FMT=1
+        assertEquals(206, out.get(1) & 0xFF);   // PSFB
+        assertEquals(2, out.getShort(2));
+        assertEquals(0xCAFEBABE, out.getInt(4));
+        assertEquals(SSRC, out.getInt(8));
+        assertEquals(12, out.limit());
+
+        out.clear();
+        RtcpReporter.writeFir(out, 0xCAFEBABE, SSRC, 7);
+        out.flip();
+        assertEquals(0x84, out.get(0) & 0xFF);  // V=2, FMT=4
+        assertEquals(206, out.get(1) & 0xFF);
+        assertEquals(4, out.getShort(2));
+        assertEquals(0, out.getInt(8));         // media SSRC 置 0
+        assertEquals(SSRC, out.getInt(12));     // FCI: 目标 SSRC
+        assertEquals(7, out.get(16));           // FCI: 序号
+        assertEquals(20, out.limit());
+    }
+
+    @Test
+    public void keyFrameRequests_areCoalescedAndRateLimited() throws Exception {
+        packet(0, 0, 0);
+        packet(1, 1, 0);
+        long interval = RtcpReporter.DEFAULT_KEY_FRAME_INTERVAL_MS * 1_000_000L;
+        try (RtcpReporter reporter = new RtcpReporter(stats, new InetSocketAddress("127.0.0.1", 9), 1000, "t")) {
+            reporter.requestKeyFrame(false);
+            reporter.requestKeyFrame(false);
+            reporter.poll(1);
+            assertEquals(1, reporter.getSentPli());
+
+            reporter.requestKeyFrame(true);
+            long wait = reporter.poll(2);                  // 间隔内不发送，返回剩余时间
+            assertEquals(0, reporter.getSentFir());
+            assertTrue(wait > 0 && wait <= interval);
+
+            reporter.poll(1 + interval);                   // FIR 优先于同时挂起的 PLI
+            assertEquals(1, reporter.getSentFir());
+            assertEquals(1, reporter.getSentPli());
+        }
+    }
+}
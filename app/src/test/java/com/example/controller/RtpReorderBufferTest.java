@@ -0,0 +1,157 @@
+package com.example.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * RtpReorderBuffer 单元测试
+ */
+public class RtpReorderBufferTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final List<Integer> output = new ArrayList<>();
+    private final List<int[]> losses = new ArrayList<>();
+    private RtpReorderBuffer buffer;
+
+    @Before
+    public void setUp() {
+        output.clear();
+        losses.clear();
+        buffer = new RtpReorderBuffer(new RtpReorderBuffer.PacketListener() {
+            @Override public void onPacket(ByteBuffer packet, long arrivalNanos) {
+                output.add(packet.getShort(packet.position() + 2) & 0xFFFF);
+            }
+            @Override public void onPacketsLost(int firstSeq, int count) {
+                losses.add(new int[]{firstSeq, count});
+            }
+        }, 8, 64, 20);
+    }
+
+    private static byte[] rtp(int seq) {
+        byte[] p = new byte[RtpH264Depacketizer.RTP_HEADER_SIZE + 1];
+        p[0] = (byte) 0x80;
+        p[2] = (byte) (seq >> 8);
+        p[3] = (byte) seq;
+        p[12] = 0x41;
+        return p;
+    }
+
+    private void push(int seq, long nowMs) {
+        byte[] p = rtp(seq);
+        buffer.push(p, 0, p.length, nowMs * MS);
+    }
+
+    @Test
+    public void inOrderPackets_passStraightThrough() {
+        for (int i = 0; i < 5; i++) push(100 + i, i);
+        assertEquals(List.of(100, 101, 102, 103, 104), output);
+        assertFalse(buffer.hasPending());
+    }
+
+    @Test
+    public void swappedPackets_areReordered() {
+        push(10, 0);
+        push(12, 1);
+        push(11, 2);
+        push(13, 3);
+
+        assertEquals(List.of(10, 11, 12, 13), output);
+        assertEquals(1, buffer.getReorderedPackets());
+        assertEquals(0, buffer.getLostPackets());
+    }
+
+    @Test
+    public void oversizedHeldPacket_isCountedSeparatelyAndReportedLost() {
+        push(10, 0);
+        byte[] big = new byte[65];                       // 槽位大小 64
+        System.arraycopy(rtp(12), 0, big, 0, RtpH264Depacketizer.RTP_HEADER_SIZE + 1);
+        buffer.push(big, 0, big.length, MS);
+        push(13, 2);
+
+        assertEquals(1, buffer.getOversizedPackets());
+        assertEquals(0, buffer.getLatePackets());
+        buffer.flushExpired(30 * MS);
+        assertEquals(List.of(10, 13), output);
+        assertEquals(2, buffer.getLostPackets());       // 11 与超长的 12 都按丢包上报
+    }
+
+    @Test
+    public void expiredGap_isSkippedAsLost() {
+        push(10, 0);
+        push(13, 1);
+        push(14, 2);
+        assertEquals(List.of(10), output);
+        assertEquals(20 * MS - MS, buffer.nanosUntilNextDeadline(2 * MS));
+
+        buffer.flushExpired(21 * MS);
+        assertEquals(List.of(10, 13, 14), output);
+        assertEquals(2, buffer.getLostPackets());
+        assertArrayEquals(new int[]{11, 2}, losses.get(0));
+
+        // 判定丢失后才到达的包被丢弃
+        push(12, 22);
+        assertEquals(3, output.size());
+        assertEquals(1, buffer.getLatePackets());
+    }
+
+    @Test
+    public void duplicates_areDropped() {
+        push(10, 0);
+        push(12, 1);
+        push(12, 2);
+        push(10, 3);
+        push(11, 4);
+
+        assertEquals(List.of(10, 11, 12), output);
+        assertEquals(1, buffer.getDuplicatePackets());
+        assertEquals(1, buffer.getLatePackets());
+    }
+
+    @Test
+    public void sequenceWraparound_keepsOrder() {
+        push(0xFFFE, 0);
+        push(0x0000, 1);
+        push(0xFFFF, 2);
+        push(0x0001, 3);
+
+        assertEquals(List.of(0xFFFE, 0xFFFF, 0x0000, 0x0001), output);
+    }
+
+    @Test
+    public void jumpBeyondWindow_flushesAndResyncs() {
+        push(10, 0);
+        push(12, 1);
+        push(500, 2);
+
+        assertEquals(List.of(10, 12, 500), output);
+        assertFalse(buffer.hasPending());
+    }
+
+    @Test
+    public void directBufferPackets_areCopiedWhenHeld() {
+        ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        for (int seq : new int[]{10, 12, 11}) {
+            direct.clear();
+            direct.put(rtp(seq));
+            direct.flip();
+            buffer.push(direct, seq * MS);
+        }
+        assertEquals(List.of(10, 11, 12), output);
+    }
+
+    @Test
+    public void zeroHold_isPassThrough() {
+        buffer.setMaxHoldMillis(0);
+        push(10, 0);
+        push(12, 1);
+        push(11, 2);
+        assertEquals(List.of(10, 12, 11), output);
+    }
+}
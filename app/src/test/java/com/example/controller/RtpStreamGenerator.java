@@ -0,0 +1,530 @@
+package com.example.controller;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * RTP/H.264 测试流生成器（RFC 6184 打包 + 网络损伤模拟），仅供测试与基准使用
+ * 不需要树莓派：回放 Annex-B .h264 文件或合成 NALU，按帧率经回环 UDP 发送，
+ * 用于在 Linux CI 上做可重复的解包吞吐量与丢包恢复测试。
+ *
+ * - 打包：能放进 MTU 的 NALU 单独成包，连续的小 NALU（SPS/PPS/SEI）聚合为 STAP-A，超长 NALU 拆为 FU-A；
+ *   每个访问单元最后一个包置 Marker 位，RTP 时间戳按帧率递增 (90kHz)
+ * - 丢包：Gilbert-Elliott 两状态模型，给定平均丢包率和平均连续丢包长度（1 即独立丢包），
+ *   或按序号精确指定
+ * - 乱序：按概率把一个包推迟到其后第 N 个包之后发送
+ * - 重复：按概率把包重复发送一次
+ * - 突发：默认一帧的包背靠背发出（与编码器输出一致），也可设置包间隔均匀发送
+ * 随机数种子固定，相同配置产生完全相同的包序列。
+ *
+ * 运行：使用单元测试 classpath 执行本类
+ *   RtpStreamGenerator <host> <port> [file.h264] [--mtu 1400] [--fps 30] [--frames 300]
+ *                      [--loss 0.02] [--burst 3] [--reorder 0.01] [--dup 0.01] [--spacing-us 0] [--seed 1]
+ */
+public final class RtpStreamGenerator {
+
+    /**
+     * 包输出（UDP 发送、直接送入解包器等）
+     */
+    public interface PacketSink {
+        void send(byte[] packet, int length) throws IOException;
+    }
+
+    private static final int RTP_HEADER_SIZE = RtpH264Depacketizer.RTP_HEADER_SIZE;
+    private static final int NAL_TYPE_STAP_A = 24;
+    private static final int NAL_TYPE_FU_A = 28;
+
+    // ========== 打包配置 ==========
+    private int mtu = 1400;
+    private int frameRate = 30;
+    private int payloadType = 96;
+    private int ssrc = 0x12345678;
+    private boolean aggregate = true;
+    private long packetSpacingNanos = 0;
+
+    // ========== 损伤配置 ==========
+    private double lossRate = 0;
+    private double meanBurstLength = 1;
+    private double reorderRate = 0;
+    private int reorderDistance = 3;
+    private double duplicateRate = 0;
+    private final Set<Integer> dropSequences = new HashSet<>();
+    private Random random = new Random(1);
+
+    // ========== 状态 ==========
+    private int sequence = 0;
+    private long rtpTimestamp = 0;
+    private boolean burstLoss = false; // Gilbert-Elliott 当前处于丢包状态
+    private byte[] heldPacket = null;  // 被推迟发送的包
+    private int heldCountdown = 0;
+
+    // ========== 统计 ==========
+    private long generatedPackets = 0;
+    private long sentPackets = 0;
+    private long lostPackets = 0;
+    private long reorderedPackets = 0;
+    private long duplicatedPackets = 0;
+
+    // ========== 配置 ==========
+
+    /** RTP 包最大字节数（含 12 字节 RTP 头） */
+    public RtpStreamGenerator mtu(int mtu) {
+        if (mtu < RTP_HEADER_SIZE + 3) throw new IllegalArgumentException("mtu too small");
+        this.mtu = mtu;
+        return this;
+    }
+
+    public RtpStreamGenerator frameRate(int fps) {
+        if (fps <= 0) throw new IllegalArgumentException("fps <= 0");
+        this.frameRate = fps;
+        return this;
+    }
+
+    public RtpStreamGenerator payloadType(int payloadType) {
+        this.payloadType = payloadType & 0x7F;
+        return this;
+    }
+
+    public RtpStreamGenerator ssrc(int ssrc) {
+        this.ssrc = ssrc;
+        return this;
+    }
+
+    /** 起始序号与 RTP 时间戳（测试 16/32 位回绕） */
+    public RtpStreamGenerator start(int sequence, long rtpTimestamp) {
+        this.sequence = sequence & 0xFFFF;
+        this.rtpTimestamp = rtpTimestamp & 0xFFFFFFFFL;
+        return this;
+    }
+
+    /** 是否把连续的小 NALU 聚合为 STAP-A（rtph264pay 默认行为） */
+    public RtpStreamGenerator aggregate(boolean aggregate) {
+        this.aggregate = aggregate;
+        return this;
+    }
+
+    /** 同一帧内的包间隔，0 表示背靠背突发 */
+    public RtpStreamGenerator packetSpacing(long time, TimeUnit unit) {
+        this.packetSpacingNanos = unit.toNanos(time);
+        return this;
+    }
+
+    /**
+     * 随机丢包
+     * @param rate            平均丢包率 (0 ~ 1)
+     * @param meanBurstLength 平均连续丢包个数 (>= 1)
+     */
+    public RtpStreamGenerator loss(double rate, double meanBurstLength) {
+        if (rate < 0 || rate >= 1 || meanBurstLength < 1) throw new IllegalArgumentException("loss");
+        this.lossRate = rate;
+        this.meanBurstLength = meanBurstLength;
+        return this;
+    }
+
+    /** 丢弃指定序号的包（在随机丢包之外） */
+    public RtpStreamGenerator drop(int... sequences) {
+        for (int seq : sequences) dropSequences.add(seq & 0xFFFF);
+        return this;
+    }
+
+    /**
+     * 乱序
+     * @param rate     包被推迟的概率
+     * @param distance 推迟到其后第几个包之后发送
+     */
+    public RtpStreamGenerator reorder(double rate, int distance) {
+        if (distance < 1) throw new IllegalArgumentException("distance < 1");
+        this.reorderRate = rate;
+        this.reorderDistance = distance;
+        return this;
+    }
+
+    public RtpStreamGenerator duplicate(double rate) {
+        this.duplicateRate = rate;
+        return this;
+    }
+
+    public RtpStreamGenerator seed(long seed) {
+        this.random = new Random(seed);
+        return this;
+    }
+
+    // ========== 打包 (RFC 6184) ==========
+
+    /**
+     * 把一个访问单元打包为 RTP 包（不经过损伤模拟），之后序号和时间戳前进一帧
+     * @param accessUnit 访问单元内的 NALU（不含起始码）
+     */
+    public List<byte[]> packetize(List<byte[]> accessUnit) {
+        List<byte[]> packets = new ArrayList<>();
+        int maxPayload = mtu - RTP_HEADER_SIZE;
+        int i = 0;
+        while (i < accessUnit.size()) {
+            // 尽量把连续的小 NALU 聚合进一个 STAP-A
+            int aggregated = 0;
+            int stapSize = 1;
+            while (aggregate && i + aggregated < accessUnit.size()
+                    && stapSize + 2 + accessUnit.get(i + aggregated).length <= maxPayload) {
+                stapSize += 2 + accessUnit.get(i + aggregated).length;
+                aggregated++;
+            }
+            if (aggregated >= 2) {
+                packets.add(stapA(accessUnit.subList(i, i + aggregated), stapSize));
+                i += aggregated;
+                continue;
+            }
+
+            byte[] nalu = accessUnit.get(i++);
+            if (nalu.length <= maxPayload) {
+                packets.add(rtp(nalu, 0, nalu.length));
+            } else {
+                fuA(nalu, maxPayload - 2, packets);
+            }
+        }
+        if (!packets.isEmpty()) {
+            packets.get(packets.size() - 1)[1] |= (byte) 0x80; // Marker：访问单元最后一个包
+        }
+        rtpTimestamp = (rtpTimestamp + 90000 / frameRate) & 0xFFFFFFFFL;
+        return packets;
+    }
+
+    private byte[] stapA(List<byte[]> nalus, int size) {
+        byte[] payload = new byte[size];
+        int nri = 0;
+        int pos = 1;
+        for (byte[] nalu : nalus) {
+            nri = Math.max(nri, nalu[0] & 0x60);
+            payload[pos] = (byte) (nalu.length >> 8);
+            payload[pos + 1] = (byte) nalu.length;
+            System.arraycopy(nalu, 0, payload, pos + 2, nalu.length);
+            pos += 2 + nalu.length;
+        }
+        payload[0] = (byte) (nri | NAL_TYPE_STAP_A);
+        return rtp(payload, 0, payload.length);
+    }
+
+    private void fuA(byte[] nalu, int maxFragment, List<byte[]> packets) {
+        byte indicator = (byte) ((nalu[0] & 0xE0) | NAL_TYPE_FU_A);
+        int type = nalu[0] & 0x1F;
+        for (int pos = 1; pos < nalu.length; pos += maxFragment) {
+            int size = Math.min(maxFragment, nalu.length - pos);
+            byte[] payload = new byte[2 + size];
+            payload[0] = indicator;
+            payload[1] = (byte) ((pos == 1 ? 0x80 : 0) | (pos + size == nalu.length ? 0x40 : 0) | type);
+            System.arraycopy(nalu, pos, payload, 2, size);
+            packets.add(rtp(payload, 0, payload.length));
+        }
+    }
+
+    private byte[] rtp(byte[] payload, int offset, int length) {
+        byte[] p = new byte[RTP_HEADER_SIZE + length];
+        p[0] = (byte) 0x80;
+        p[1] = (byte) payloadType;
+        p[2] = (byte) (sequence >> 8);
+        p[3] = (byte) sequence;
+        p[4] = (byte) (rtpTimestamp >> 24);
+        p[5] = (byte) (rtpTimestamp >> 16);
+        p[6] = (byte) (rtpTimestamp >> 8);
+        p[7] = (byte) rtpTimestamp;
+        p[8] = (byte) (ssrc >> 24);
+        p[9] = (byte) (ssrc >> 16);
+        p[10] = (byte) (ssrc >> 8);
+        p[11] = (byte) ssrc;
+        System.arraycopy(payload, offset, p, RTP_HEADER_SIZE, length);
+        sequence = (sequence + 1) & 0xFFFF;
+        return p;
+    }
+
+    // ========== 发送 + 损伤模拟 ==========
+
+    /**
+     * 打包一个访问单元，经损伤模拟后输出
+     */
+    public void send(List<byte[]> accessUnit, PacketSink sink) throws IOException {
+        List<byte[]> packets = packetize(accessUnit);
+        for (int i = 0; i < packets.size(); i++) {
+            if (i > 0 && packetSpacingNanos > 0) {
+                LockSupport.parkNanos(packetSpacingNanos);
+            }
+            impair(packets.get(i), sink);
+        }
+    }
+
+    /**
+     * 按帧率发送整个流（时间轴固定，不随发送耗时漂移），结束时输出被推迟的包
+     * @param paced false 时不等待，尽快发送（吞吐量测试）
+     */
+    public void stream(List<List<byte[]>> accessUnits, PacketSink sink, boolean paced) throws IOException {
+        long frameNanos = TimeUnit.SECONDS.toNanos(1) / frameRate;
+        long start = System.nanoTime();
+        for (int i = 0; i < accessUnits.size(); i++) {
+            if (paced) {
+                long wait = start + i * frameNanos - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+            }
+            send(accessUnits.get(i), sink);
+        }
+        flush(sink);
+    }
+
+    /**
+     * 输出仍被推迟的包
+     */
+    public void flush(PacketSink sink) throws IOException {
+        if (heldPacket != null) {
+            byte[] held = heldPacket;
+            heldPacket = null;
+            reorderedPackets++;
+            deliver(held, sink);
+        }
+    }
+
+    private void impair(byte[] packet, PacketSink sink) throws IOException {
+        generatedPackets++;
+        int seq = ((packet[2] & 0xFF) << 8) | (packet[3] & 0xFF);
+        if (nextLoss() || dropSequences.contains(seq)) {
+            lostPackets++;
+            return;
+        }
+        if (heldPacket == null && reorderRate > 0 && random.nextDouble() < reorderRate) {
+            heldPacket = packet;
+            heldCountdown = reorderDistance;
+            return;
+        }
+        deliver(packet, sink);
+        if (heldPacket != null && --heldCountdown <= 0) {
+            flush(sink);
+        }
+    }
+
+    /**
+     * Gilbert-Elliott：丢包状态停留概率 1 - 1/L，稳态丢包率 = lossRate
+     */
+    private boolean nextLoss() {
+        if (lossRate <= 0) return false;
+        if (burstLoss) {
+            burstLoss = random.nextDouble() >= 1.0 / meanBurstLength;
+        } else {
+            burstLoss = random.nextDouble() < lossRate / (meanBurstLength * (1 - lossRate));
+        }
+        return burstLoss;
+    }
+
+    private void deliver(byte[] packet, PacketSink sink) throws IOException {
+        sink.send(packet, packet.length);
+        sentPackets++;
+        if (duplicateRate > 0 && random.nextDouble() < duplicateRate) {
+            sink.send(packet, packet.length);
+            duplicatedPackets++;
+        }
+    }
+
+    /**
+     * 经 UDP 发送到 target
+     */
+    public static PacketSink udpSink(DatagramSocket socket, InetSocketAddress target) {
+        DatagramPacket datagram = new DatagramPacket(new byte[0], 0, target);
+        return (packet, length) -> {
+            datagram.setData(packet, 0, length);
+            socket.send(datagram);
+        };
+    }
+
+    // ========== 统计 ==========
+
+    /** 打包产生的包数（损伤前） */
+    public long getGeneratedPackets() {
+        return generatedPackets;
+    }
+
+    /** 实际输出的包数（不含重复） */
+    public long getSentPackets() {
+        return sentPackets;
+    }
+
+    public long getLostPackets() {
+        return lostPackets;
+    }
+
+    public long getReorderedPackets() {
+        return reorderedPackets;
+    }
+
+    public long getDuplicatedPackets() {
+        return duplicatedPackets;
+    }
+
+    // ========== Annex-B ==========
+
+    /**
+     * 按起始码 (00 00 01 / 00 00 00 01) 拆分 Annex-B 码流，返回不含起始码的 NALU
+     */
+    public static List<byte[]> splitAnnexB(byte[] stream) {
+        List<byte[]> nalus = new ArrayList<>();
+        int naluStart = -1;
+        int i = 0;
+        while (i + 3 <= stream.length) {
+            if (stream[i] == 0 && stream[i + 1] == 0 && stream[i + 2] == 1) {
+                if (naluStart >= 0) {
+                    addNalu(nalus, stream, naluStart, i);
+                }
+                i += 3;
+                naluStart = i;
+            } else {
+                i++;
+            }
+        }
+        if (naluStart >= 0) {
+            addNalu(nalus, stream, naluStart, stream.length);
+        }
+        return nalus;
+    }
+
+    private static void addNalu(List<byte[]> nalus, byte[] stream, int start, int end) {
+        while (end > start && stream[end - 1] == 0) end--; // 4 字节起始码的前导 0 / trailing_zero
+        if (end > start) {
+            byte[] nalu = new byte[end - start];
+            System.arraycopy(stream, start, nalu, 0, nalu.length);
+            nalus.add(nalu);
+        }
+    }
+
+    /**
+     * 按 H.264 7.4.1.2.3 把 NALU 分组为访问单元：
+     * 已有 VCL 之后出现 AUD/SPS/PPS/SEI，或 first_mb_in_slice == 0 的新 slice，即开始新的访问单元
+     */
+    public static List<List<byte[]>> groupAccessUnits(List<byte[]> nalus) {
+        List<List<byte[]>> accessUnits = new ArrayList<>();
+        List<byte[]> current = new ArrayList<>();
+        boolean hasVcl = false;
+        for (byte[] nalu : nalus) {
+            int type = nalu[0] & 0x1F;
+            boolean vcl = type >= 1 && type <= 5;
+            boolean firstSlice = vcl && nalu.length > 1 && (nalu[1] & 0x80) != 0; // ue(v) == 0
+            boolean startsNew = type == 9 || type == 7 || type == 8 || type == 6 || firstSlice;
+            if (hasVcl && startsNew) {
+                accessUnits.add(current);
+                current = new ArrayList<>();
+                hasVcl = false;
+            }
+            current.add(nalu);
+            hasVcl |= vcl;
+        }
+        if (!current.isEmpty()) {
+            accessUnits.add(current);
+        }
+        return accessUnits;
+    }
+
+    /**
+     * 读取 Annex-B .h264 文件并分组为访问单元
+     */
+    public static List<List<byte[]>> readAnnexB(String path) throws IOException {
+        return groupAccessUnits(splitAnnexB(Files.readAllBytes(Paths.get(path))));
+    }
+
+    // ========== 合成码流 ==========
+
+    /** Constrained Baseline@3.0, 320x240, VUI 20fps */
+    static final byte[] SYNTHETIC_SPS = bytes(
+        0x67, 0x42, 0xC0, 0x1E, 0xDA, 0x05, 0x07, 0xE8, 0x40, 0x00,
+        0x00, 0x03, 0x00, 0x40, 0x00, 0x00, 0x0A, 0x21);
+    static final byte[] SYNTHETIC_PPS = bytes(0x68, 0xCE, 0x38, 0x80);
+
+    /**
+     * 合成码流：每个 GOP 以 SPS + PPS + IDR 开始，其余为 P 帧
+     * slice header 合法（first_mb_in_slice = 0，IDR 为 I slice、P 帧为 P slice），
+     * 其后填充不含 0x00 的随机字节，不会出现伪起始码
+     */
+    public static List<List<byte[]>> synthetic(int frames, int gopLength, int keyFrameSize, int frameSize, long seed) {
+        Random random = new Random(seed);
+        List<List<byte[]>> accessUnits = new ArrayList<>(frames);
+        for (int i = 0; i < frames; i++) {
+            List<byte[]> au = new ArrayList<>(3);
+            if (i % gopLength == 0) {
+                au.add(SYNTHETIC_SPS.clone());
+                au.add(SYNTHETIC_PPS.clone());
+                au.add(slice(0x65, 0x88, keyFrameSize, random)); // IDR, slice_type = 7 (I)
+            } else {
+                au.add(slice(0x41, 0x98, frameSize, random));    // nal_ref_idc = 2, slice_type = 5 (P)
+            }
+            accessUnits.add(au);
+        }
+        return accessUnits;
+    }
+
+    private static byte[] slice(int header, int sliceHeader, int size, Random random) {
+        byte[] nalu = new byte[Math.max(2, size)];
+        nalu[0] = (byte) header;
+        nalu[1] = (byte) sliceHeader;
+        for (int i = 2; i < nalu.length; i++) {
+            nalu[i] = (byte) (1 + random.nextInt(255));
+        }
+        return nalu;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] data = new byte[values.length];
+        for (int i = 0; i < values.length; i++) data[i] = (byte) values[i];
+        return data;
+    }
+
+    // ========== 命令行 ==========
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("用法: RtpStreamGenerator <host> <port> [file.h264] [--mtu N] [--fps N] [--frames N]"
+                + " [--loss P] [--burst L] [--reorder P] [--dup P] [--spacing-us N] [--seed N]");
+            System.exit(1);
+        }
+        InetSocketAddress target = new InetSocketAddress(args[0], Integer.parseInt(args[1]));
+        RtpStreamGenerator generator = new RtpStreamGenerator();
+        String file = null;
+        int frames = 300;
+        double loss = 0, burst = 1;
+        for (int i = 2; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                file = arg;
+                continue;
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--mtu": generator.mtu(Integer.parseInt(value)); break;
+                case "--fps": generator.frameRate(Integer.parseInt(value)); break;
+                case "--frames": frames = Integer.parseInt(value); break;
+                case "--loss": loss = Double.parseDouble(value); break;
+                case "--burst": burst = Double.parseDouble(value); break;
+                case "--reorder": generator.reorder(Double.parseDouble(value), 3); break;
+                case "--dup": generator.duplicate(Double.parseDouble(value)); break;
+                case "--spacing-us": generator.packetSpacing(Long.parseLong(value), TimeUnit.MICROSECONDS); break;
+                case "--seed": generator.seed(Long.parseLong(value)); break;
+                default: throw new IllegalArgumentException("未知参数: " + arg);
+            }
+        }
+        generator.loss(loss, burst);
+
+        List<List<byte[]>> accessUnits = file != null
+            ? readAnnexB(file)
+            : synthetic(frames, 30, 20000, 3000, 1);
+        try (DatagramSocket socket = new DatagramSocket()) {
+            long start = System.nanoTime();
+            generator.stream(accessUnits, udpSink(socket, target), true);
+            System.out.printf("发送 %d 帧, %d 包 (丢弃 %d, 乱序 %d, 重复 %d), 用时 %.1f s%n",
+                accessUnits.size(), generator.getSentPackets(), generator.getLostPackets(),
+                generator.getReorderedPackets(), generator.getDuplicatedPackets(),
+                (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
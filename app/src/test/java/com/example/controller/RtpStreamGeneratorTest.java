@@ -0,0 +1,195 @@
+package com.example.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * RtpStreamGenerator 单元测试：打包 → 损伤 → 重排 / 解包 / 访问单元聚合全链路
+ */
+public class RtpStreamGeneratorTest {
+
+    private final List<byte[]> accessUnits = new ArrayList<>();
+    private NaluBufferPool pool;
+    private AccessUnitAssembler assembler;
+    private RtpH264Depacketizer depacketizer;
+    private int lossEvents;
+
+    @Before
+    public void setUp() {
+        accessUnits.clear();
+        lossEvents = 0;
+        pool = new NaluBufferPool(4, 64 * 1024);
+        assembler = new AccessUnitAssembler(pool, au -> {
+            accessUnits.add(Arrays.copyOf(au.data, au.length));
+            pool.release(au);
+        });
+        depacketizer = new RtpH264Depacketizer(new RtpDepacketizer.NaluListener() {
+            @Override public void onNalu(byte[] data, int offset, int length, long rtpTimestamp, boolean marker) {
+                assembler.onNalu(data, offset, length, rtpTimestamp, marker, 0);
+            }
+            @Override public void onPacketLoss(int expectedSeq, int receivedSeq, int lost) {
+                lossEvents++;
+                assembler.discardCurrent();
+            }
+        });
+    }
+
+    /** 访问单元的 Annex-B 形式（4 字节起始码） */
+    private static byte[] annexB(List<byte[]> accessUnit) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] nalu : accessUnit) {
+            out.write(0);
+            out.write(0);
+            out.write(0);
+            out.write(1);
+            out.write(nalu, 0, nalu.length);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void roundTrip_fragmentsAndReassemblesEveryFrame() throws Exception {
+        List<List<byte[]>> stream = RtpStreamGenerator.synthetic(20, 10, 5000, 400, 7);
+        RtpStreamGenerator generator = new RtpStreamGenerator().mtu(200).start(0xFFF0, 0xFFFFF000L);
+        int[] maxSize = new int[1];
+        generator.stream(stream, (packet, length) -> {
+            maxSize[0] = Math.max(maxSize[0], length);
+            depacketizer.process(packet, 0, length);
+        }, false);
+
+        assertTrue(maxSize[0] <= 200);
+        assertEquals(0, lossEvents);
+        assertEquals(20, accessUnits.size());
+        for (int i = 0; i < stream.size(); i++) {
+            assertArrayEquals("frame " + i, annexB(stream.get(i)), accessUnits.get(i));
+        }
+    }
+
+    @Test
+    public void parameterSets_areAggregatedIntoStapA() {
+        List<byte[]> idr = RtpStreamGenerator.synthetic(1, 1, 3000, 0, 1).get(0);
+        List<byte[]> packets = new RtpStreamGenerator().mtu(1400).packetize(idr);
+
+        assertEquals(4, packets.size());                     // STAP-A(SPS+PPS) + 3 个 FU-A
+        assertEquals(24, packets.get(0)[12] & 0x1F);
+        assertEquals(28, packets.get(1)[12] & 0x1F);
+        assertEquals(0x80, packets.get(3)[1] & 0x80);        // Marker 只在最后一个包
+        assertEquals(0, packets.get(0)[1] & 0x80);
+    }
+
+    @Test
+    public void annexB_isSplitAndGroupedIntoAccessUnits() {
+        List<List<byte[]>> stream = RtpStreamGenerator.synthetic(4, 2, 50, 20, 3);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        for (List<byte[]> au : stream) {
+            for (byte[] nalu : au) {
+                file.write(0);
+                file.write(0);
+                if (nalu[0] != 0x41) file.write(0); // 混用 3 / 4 字节起始码
+                file.write(1);
+                file.write(nalu, 0, nalu.length);
+            }
+        }
+
+        List<List<byte[]>> parsed = RtpStreamGenerator.groupAccessUnits(
+            RtpStreamGenerator.splitAnnexB(file.toByteArray()));
+
+        assertEquals(4, parsed.size());
+        assertEquals(3, parsed.get(0).size());
+        assertEquals(1, parsed.get(1).size());
+        for (int i = 0; i < stream.size(); i++) {
+            assertArrayEquals(annexB(stream.get(i)), annexB(parsed.get(i)));
+        }
+    }
+
+    @Test
+    public void burstLoss_matchesConfiguredRateAndBurstLength() throws Exception {
+        RtpStreamGenerator generator = new RtpStreamGenerator().mtu(100).loss(0.05, 4).seed(42);
+        List<Integer> received = new ArrayList<>();
+        generator.stream(RtpStreamGenerator.synthetic(2000, 30, 200, 200, 1),
+            (packet, length) -> received.add(((packet[2] & 0xFF) << 8) | (packet[3] & 0xFF)), false);
+
+        double rate = (double) generator.getLostPackets() / generator.getGeneratedPackets();
+        assertEquals(0.05, rate, 0.01);
+
+        int gaps = 0;
+        for (int i = 1; i < received.size(); i++) {
+            if (((received.get(i) - received.get(i - 1)) & 0xFFFF) != 1) gaps++;
+        }
+        double meanBurst = (double) generator.getLostPackets() / gaps;
+        assertEquals(4.0, meanBurst, 0.8);
+    }
+
+    @Test
+    public void droppedSequence_triggersLossAndDiscardsFrame() throws Exception {
+        RtpStreamGenerator generator = new RtpStreamGenerator().mtu(200).drop(3);
+        generator.stream(RtpStreamGenerator.synthetic(3, 10, 1000, 100, 1),
+            (packet, length) -> depacketizer.process(packet, 0, length), false);
+
+        assertEquals(1, lossEvents);
+        assertEquals(2, accessUnits.size()); // IDR 的 FU-A 缺一片，整帧丢弃
+    }
+
+    @Test
+    public void reorderAndDuplicates_areRepairedByReorderBuffer() throws Exception {
+        RtpReorderBuffer reorderBuffer = new RtpReorderBuffer(
+            (packet, arrivalNanos) -> depacketizer.process(packet), 64, 2048, 1000);
+        List<List<byte[]>> stream = RtpStreamGenerator.synthetic(100, 30, 3000, 500, 5);
+        RtpStreamGenerator generator = new RtpStreamGenerator().mtu(300).reorder(0.1, 3).duplicate(0.05).seed(9);
+        generator.stream(stream, (packet, length) -> reorderBuffer.push(packet, 0, length, System.nanoTime()), false);
+
+        assertTrue(generator.getReorderedPackets() > 0);
+        assertTrue(generator.getDuplicatedPackets() > 0);
+        assertEquals(0, lossEvents);
+        assertEquals(100, accessUnits.size());
+        assertTrue(reorderBuffer.getReorderedPackets() >= generator.getReorderedPackets());
+        // 重复包在原包输出前到达计为 duplicate，之后到达计为 late
+        assertEquals(generator.getDuplicatedPackets(),
+            reorderBuffer.getDuplicatePackets() + reorderBuffer.getLatePackets());
+    }
+
+    @Test
+    public void loopbackUdp_deliversPacedStream() throws Exception {
+        RtpUdpReceiver receiver = new RtpUdpReceiver(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2048, 1 << 20);
+        Thread thread = new Thread(() -> {
+            try {
+                receiver.run((packet, arrivalNanos) -> depacketizer.process(packet));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+
+        RtpStreamGenerator generator = new RtpStreamGenerator().frameRate(200);
+        long start = System.nanoTime();
+        try (DatagramSocket socket = new DatagramSocket()) {
+            InetSocketAddress target = new InetSocketAddress(InetAddress.getLoopbackAddress(), receiver.getLocalPort());
+            generator.stream(RtpStreamGenerator.synthetic(40, 20, 4000, 600, 2),
+                RtpStreamGenerator.udpSink(socket, target), true);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (receiver.getReceivedPackets() < generator.getSentPackets() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        receiver.close();
+        thread.join(1000);
+
+        assertTrue("39 帧间隔 @200fps 约 195ms, 实际 " + elapsedMs, elapsedMs >= 190);
+        assertEquals(generator.getSentPackets(), receiver.getReceivedPackets());
+        assertEquals(40, accessUnits.size());
+    }
+}
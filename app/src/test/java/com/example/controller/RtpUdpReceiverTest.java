@@ -0,0 +1,96 @@
+package com.example.controller;
+
+import org.junit.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * RtpUdpReceiver 回环地址测试：NIO 接收 → 解包器
+ */
+public class RtpUdpReceiverTest {
+
+    @Test
+    public void loopbackPackets_reachDepacketizer() throws Exception {
+        List<byte[]> nalus = Collections.synchronizedList(new ArrayList<>());
+        RtpH264Depacketizer depacketizer = new RtpH264Depacketizer(
+            (data, offset, length, rtpTimestamp, marker) ->
+                nalus.add(Arrays.copyOfRange(data, offset, offset + length)));
+
+        RtpUdpReceiver receiver = new RtpUdpReceiver(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2048, 65536);
+        Thread thread = new Thread(() -> {
+            try {
+                receiver.run((packet, arrivalNanos) -> depacketizer.process(packet));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+
+        try (DatagramSocket sender = new DatagramSocket()) {
+            InetSocketAddress target = new InetSocketAddress(InetAddress.getLoopbackAddress(), receiver.getLocalPort());
+            byte[][] packets = {
+                RtpH264DepacketizerTest.rtp(1, 0x67, 0x42),
+                RtpH264DepacketizerTest.rtp(2, 0x7C, 0x85, 1, 2),
+                RtpH264DepacketizerTest.rtp(3, 0x7C, 0x45, 3),
+            };
+            for (byte[] p : packets) {
+                sender.send(new DatagramPacket(p, p.length, target));
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (nalus.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(2, nalus.size());
+        assertArrayEquals(new byte[]{0x67, 0x42}, nalus.get(0));
+        assertArrayEquals(new byte[]{0x65, 1, 2, 3}, nalus.get(1));
+        assertEquals(3, receiver.getReceivedPackets());
+
+        receiver.close();
+        thread.join(1000);
+        assertFalse("close() should stop run()", thread.isAlive());
+    }
+
+    @Test
+    public void close_wakesIdleReceiverImmediately() throws Exception {
+        RtpUdpReceiver receiver = new RtpUdpReceiver(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2048, 65536);
+        int[] wakeups = new int[1];
+        Thread thread = new Thread(() -> {
+            try {
+                receiver.run(new RtpUdpReceiver.PacketHandler() {
+                    @Override public void onPacket(ByteBuffer packet, long arrivalNanos) {
+                    }
+                    @Override public long onWakeup(long nowNanos) {
+                        wakeups[0]++;
+                        return -1;
+                    }
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+
+        Thread.sleep(300);
+        receiver.close();
+        thread.join(1000);
+
+        assertFalse(thread.isAlive());
+        assertEquals("idle receiver should not poll", 1, wakeups[0]);
+    }
+}
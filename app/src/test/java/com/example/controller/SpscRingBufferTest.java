@@ -0,0 +1,135 @@
+package com.example.controller;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * SpscRingBuffer 单元测试
+ */
+public class SpscRingBufferTest {
+
+    @Test
+    public void offerAndPoll_preserveFifoOrder() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(3);
+        assertTrue(ring.offer(1));
+        assertTrue(ring.offer(2));
+        assertTrue(ring.offer(3));
+        assertFalse(ring.offer(4));
+
+        assertEquals(Integer.valueOf(1), ring.poll());
+        assertEquals(Integer.valueOf(2), ring.poll());
+        assertEquals(Integer.valueOf(3), ring.poll());
+        assertNull(ring.poll());
+    }
+
+    @Test
+    public void offerDropOldest_returnsEvictedElement() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(3);
+        assertNull(ring.offerDropOldest(1));
+        assertNull(ring.offerDropOldest(2));
+        assertNull(ring.offerDropOldest(3));
+
+        assertEquals(Integer.valueOf(1), ring.offerDropOldest(4));
+        assertEquals(3, ring.size());
+        assertEquals(Integer.valueOf(2), ring.poll());
+        assertEquals(Integer.valueOf(3), ring.poll());
+        assertEquals(Integer.valueOf(4), ring.poll());
+    }
+
+    @Test
+    public void offerEvictOldest_rejectsIncomingWhenPolicyRefuses() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(2);
+        SpscRingBuffer.EvictionPolicy<Integer> evictOdd = (oldest, incoming) -> oldest % 2 != 0;
+        assertNull(ring.offerEvictOldest(2, evictOdd));
+        assertNull(ring.offerEvictOldest(3, evictOdd));
+
+        assertEquals(Integer.valueOf(5), ring.offerEvictOldest(5, evictOdd)); // 最旧的 2 不可淘汰
+        assertEquals(2, ring.size());
+        assertEquals(Integer.valueOf(2), ring.poll());
+
+        assertNull(ring.offerEvictOldest(6, evictOdd));                       // 有空位直接入队
+        assertEquals(Integer.valueOf(3), ring.offerEvictOldest(7, evictOdd)); // 最旧的 3 可淘汰
+        assertEquals(Integer.valueOf(6), ring.poll());
+        assertEquals(Integer.valueOf(7), ring.poll());
+    }
+
+    @Test
+    public void loweredLimit_excessIsReturnedByPollOverLimit() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(4);
+        for (int i = 1; i <= 4; i++) assertNull(ring.offerDropOldest(i));
+        ring.setLimit(2);
+
+        assertFalse(ring.offer(5));
+        assertEquals(Integer.valueOf(1), ring.pollOverLimit());
+        assertEquals(Integer.valueOf(2), ring.pollOverLimit());
+        assertNull(ring.pollOverLimit());
+        assertEquals(2, ring.size());
+
+        assertEquals(Integer.valueOf(3), ring.offerDropOldest(5));
+        assertEquals(Integer.valueOf(4), ring.poll());
+        assertEquals(Integer.valueOf(5), ring.poll());
+    }
+
+    @Test
+    public void timedPoll_returnsNullWhenEmpty() throws InterruptedException {
+        for (SpscRingBuffer.WaitStrategy strategy : SpscRingBuffer.WaitStrategy.values()) {
+            SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(2, strategy);
+            assertNull(ring.poll(5, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void blockingConsumer_isWokenByProducer() throws Exception {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(2, SpscRingBuffer.WaitStrategy.BLOCKING);
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ignored) {
+            }
+            ring.offer(42);
+        });
+        producer.start();
+
+        long start = System.nanoTime();
+        Integer value = ring.poll(5, TimeUnit.SECONDS);
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        producer.join();
+
+        assertEquals(Integer.valueOf(42), value);
+        assertTrue("consumer should wake up promptly, waited " + waitedMs + "ms", waitedMs < 1000);
+    }
+
+    @Test
+    public void concurrentDropOldest_neverDuplicatesOrReorders() throws Exception {
+        final int count = 200000;
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(3, SpscRingBuffer.WaitStrategy.YIELDING);
+        final long[] droppedCount = new long[1];
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                if (ring.offerDropOldest(i) != null) droppedCount[0]++;
+            }
+            ring.offerDropOldest(-1); // 结束标记
+        });
+        producer.start();
+
+        int last = -1;
+        long received = 0;
+        for (;;) {
+            Integer v = ring.poll(1, TimeUnit.SECONDS);
+            assertNotNull("consumer starved", v);
+            if (v == -1) break;
+            assertTrue("out of order: " + v + " after " + last, v > last);
+            last = v;
+            received++;
+        }
+        producer.join();
+
+        // 结束标记本身也可能挤掉一个元素
+        assertTrue(received + droppedCount[0] >= count - 1);
+        assertTrue(received + droppedCount[0] <= count);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.controller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * UdpControlChannel + UdpControlReceiver 单元测试：回环发送 / newest-wins 过滤
+ */
+public class UdpControlChannelTest {
+
+    private final List<float[]> frames = new ArrayList<>();
+    private final List<Integer> sequences = new ArrayList<>();
+    private final UdpControlReceiver.Listener listener = (seq, timestampMs, vx, vy, vz, yawRate) -> {
+        synchronized (frames) {
+            sequences.add(seq);
+            frames.add(new float[]{vx, vy, vz, yawRate, timestampMs});
+        }
+    };
+    private UdpControlReceiver receiver;
+
+    @Before
+    public void setUp() throws Exception {
+        receiver = new UdpControlReceiver(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        receiver.close();
+    }
+
+    private static ByteBuffer frame(ControlFrameEncoder encoder, float vx) {
+        int length = encoder.encodeJoystick(vx, 0, 0, 0, 0);
+        return ByteBuffer.wrap(encoder.buffer().clone(), 0, length);
+    }
+
+    @Test
+    public void loopback_deliversLatestStateInOrder() throws Exception {
+        Thread thread = new Thread(() -> {
+            try {
+                receiver.run(listener);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+
+        UdpControlChannel channel = new UdpControlChannel("127.0.0.1", receiver.getLocalPort());
+        try {
+            for (int i = 1; i <= 500; i++) {
+                channel.send(i * 0.001f, -0.1f, 0.2f, 0.3f, i);
+                if (i % 50 == 0) Thread.sleep(2);
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (System.nanoTime() < deadline) {
+                synchronized (frames) {
+                    if (!frames.isEmpty() && frames.get(frames.size() - 1)[4] == 500) break;
+                }
+                Thread.sleep(5);
+            }
+        } finally {
+            channel.close();
+        }
+
+        // 发送线程跟不上时旧值被合并，但最后一个状态一定送达
+        assertEquals(500, channel.getSentPackets() + channel.getCoalescedUpdates());
+        assertEquals(0, channel.getSendErrors());
+        synchronized (frames) {
+            assertEquals(channel.getSentPackets(), frames.size());
+            float[] last = frames.get(frames.size() - 1);
+            assertEquals(0.5f, last[0], 0.0005f);
+            assertEquals(-0.1f, last[1], 0.0005f);
+            assertEquals(500f, last[4], 0f);
+            for (int i = 0; i < sequences.size(); i++) {
+                assertEquals(i, (int) sequences.get(i));
+            }
+        }
+        assertEquals(0, receiver.getStale());
+        assertEquals(0, receiver.getLost());
+    }
+
+    @Test
+    public void staleAndDuplicateDatagrams_areDiscarded() {
+        ControlFrameEncoder encoder = new ControlFrameEncoder(true);
+        ByteBuffer f0 = frame(encoder, 0.1f);
+        ByteBuffer f1 = frame(encoder, 0.2f);
+        ByteBuffer f2 = frame(encoder, 0.3f);
+        ByteBuffer f3 = frame(encoder, 0.4f);
+        InetSocketAddress from = new InetSocketAddress(InetAddress.getLoopbackAddress(), 40000);
+        long now = 1_000_000_000L;
+
+        receiver.handle(from, f0, now, listener);
+        receiver.handle(from, f2, now + 1, listener);
+        receiver.handle(from, f1, now + 2, listener);           // 迟到：比已接受的 seq 2 旧
+        f2.rewind();
+        receiver.handle(from, f2, now + 3, listener);           // 重复
+        receiver.handle(from, f3, now + 4, listener);
+
+        assertEquals(3, receiver.getReceived());
+        assertEquals(2, receiver.getStale());
+        assertEquals(1, receiver.getLost());                    // seq 1 视为丢失（迟到后也不再使用）
+        assertEquals(0.4f, frames.get(frames.size() - 1)[0], 0.0005f);
+    }
+
+    @Test
+    public void sequenceWraparound_andIdleReset() {
+        ControlFrameEncoder encoder = new ControlFrameEncoder(true);
+        for (int i = 0; i < 0xFFFE; i++) encoder.encodeJoystick(0, 0, 0, 0, 0);
+        InetSocketAddress from = new InetSocketAddress(InetAddress.getLoopbackAddress(), 40000);
+        long now = 1_000_000_000L;
+
+        receiver.handle(from, frame(encoder, 0.1f), now, listener);     // 0xFFFE
+        receiver.handle(from, frame(encoder, 0.1f), now + 1, listener); // 0xFFFF
+        receiver.handle(from, frame(encoder, 0.1f), now + 2, listener); // 0 回绕后仍是更新的
+        assertEquals(3, receiver.getReceived());
+        assertEquals(0, receiver.getStale());
+
+        // 客户端重连后序号从 0 开始：空闲超过阈值后接受
+        ControlFrameEncoder restarted = new ControlFrameEncoder(true);
+        receiver.handle(from, frame(restarted, 0.2f), now + 3, listener);
+        assertEquals(1, receiver.getStale());
+        receiver.handle(from, frame(restarted, 0.2f), now + 2 + UdpControlReceiver.SEQ_RESET_NANOS, listener);
+        assertEquals(4, receiver.getReceived());
+    }
+}
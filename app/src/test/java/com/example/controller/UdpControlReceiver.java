@@ -0,0 +1,170 @@
+package com.example.controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.DatagramChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * UDP 摇杆通道的本地替身接收端（与 drone_server.py 的 udp_control_loop 行为一致），
+ * 不需要飞控即可测试 UdpControlChannel：
+ * - 解码 ControlFrameEncoder 二进制帧（float16 / float32）
+ * - 按 16 位序号 newest-wins：与上一帧相同或更旧的数据报丢弃，统计丢失 / 过期
+ * - 同一来源超过 {@link #SEQ_RESET_NANOS} 没有数据报则重新开始比较（客户端重连序号归零）
+ *
+ * 命令行：java UdpControlReceiver [port]，每秒打印一次统计与最新摇杆值
+ */
+public final class UdpControlReceiver implements Closeable {
+
+    public interface Listener {
+        void onJoystick(int seq, long timestampMs, float vx, float vy, float vz, float yawRate);
+    }
+
+    static final long SEQ_RESET_NANOS = 1_000_000_000L;
+
+    private final DatagramChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(64);
+    private final Map<SocketAddress, long[]> lastSeq = new HashMap<>(); // {seq, 到达时间}
+
+    private volatile long received = 0;
+    private volatile long stale = 0;
+    private volatile long lost = 0;
+    private volatile long invalid = 0;
+
+    public UdpControlReceiver(InetSocketAddress bind) throws IOException {
+        channel = DatagramChannel.open();
+        channel.bind(bind);
+    }
+
+    public int getLocalPort() throws IOException {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * 阻塞接收直到 close()
+     */
+    public void run(Listener listener) throws IOException {
+        try {
+            while (true) {
+                buffer.clear();
+                SocketAddress from = channel.receive(buffer);
+                buffer.flip();
+                handle(from, buffer, System.nanoTime(), listener);
+            }
+        } catch (AsynchronousCloseException e) {
+            // close() 结束接收
+        }
+    }
+
+    void handle(SocketAddress from, ByteBuffer b, long nowNanos, Listener listener) {
+        int length = b.remaining();
+        if (length < ControlFrameEncoder.HEADER_SIZE) {
+            invalid++;
+            return;
+        }
+        int type = b.get() & 0xFF;
+        boolean half = type == ControlFrameEncoder.TYPE_JOYSTICK_F16 && length == ControlFrameEncoder.JOYSTICK_F16_SIZE;
+        boolean single = type == ControlFrameEncoder.TYPE_JOYSTICK_F32 && length == ControlFrameEncoder.JOYSTICK_F32_SIZE;
+        if (!half && !single) {
+            invalid++;
+            return;
+        }
+        int seq = b.getShort() & 0xFFFF;
+        long timestampMs = b.getInt() & 0xFFFFFFFFL;
+
+        long[] prev = lastSeq.get(from);
+        if (prev != null && nowNanos - prev[1] < SEQ_RESET_NANOS) {
+            int delta = (seq - (int) prev[0]) & 0xFFFF;
+            if (delta == 0 || delta >= 0x8000) {
+                stale++;
+                return;
+            }
+            lost += delta - 1;
+        }
+        if (prev == null) {
+            prev = new long[2];
+            lastSeq.put(from, prev);
+        }
+        prev[0] = seq;
+        prev[1] = nowNanos;
+        received++;
+
+        float vx, vy, vz, yaw;
+        if (half) {
+            vx = ControlFrameEncoder.halfToFloat(b.getShort() & 0xFFFF);
+            vy = ControlFrameEncoder.halfToFloat(b.getShort() & 0xFFFF);
+            vz = ControlFrameEncoder.halfToFloat(b.getShort() & 0xFFFF);
+            yaw = ControlFrameEncoder.halfToFloat(b.getShort() & 0xFFFF);
+        } else {
+            vx = b.getFloat();
+            vy = b.getFloat();
+            vz = b.getFloat();
+            yaw = b.getFloat();
+        }
+        listener.onJoystick(seq, timestampMs, vx, vy, vz, yaw);
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    /** 与上一帧相同或更旧而被丢弃的数据报 */
+    public long getStale() {
+        return stale;
+    }
+
+    /** 序号跳跃推算的丢包数（发送端合并掉的更新不占用序号） */
+    public long getLost() {
+        return lost;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // ========== 命令行 ==========
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : UdpControlChannel.DEFAULT_PORT;
+        UdpControlReceiver receiver = new UdpControlReceiver(new InetSocketAddress(port));
+        float[] latest = new float[4];
+        long[] latestSeq = {-1};
+        Thread printer = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                synchronized (latest) {
+                    System.out.printf("seq=%d vx=%.3f vy=%.3f vz=%.3f yaw=%.3f | received=%d stale=%d lost=%d invalid=%d%n",
+                        latestSeq[0], latest[0], latest[1], latest[2], latest[3],
+                        receiver.getReceived(), receiver.getStale(), receiver.getLost(), receiver.getInvalid());
+                }
+            }
+        }, "printer");
+        printer.setDaemon(true);
+        printer.start();
+
+        System.out.println("UDP control receiver on port " + port);
+        receiver.run((seq, timestampMs, vx, vy, vz, yawRate) -> {
+            synchronized (latest) {
+                latestSeq[0] = seq;
+                latest[0] = vx;
+                latest[1] = vy;
+                latest[2] = vz;
+                latest[3] = yawRate;
+            }
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.controller;
+
+import java.util.List;
+
+/**
+ * ULPFEC 参考编码器 (RFC 5109 XOR，Level 0)，仅供测试使用
+ * 对一组媒体 RTP 包生成一个 FEC RTP 包，用于验证 UlpfecReceiver 以及在
+ * 测试环境中模拟发送端。
+ */
+final class UlpfecEncoder {
+
+    private static final int RTP_HEADER_SIZE = RtpH264Depacketizer.RTP_HEADER_SIZE;
+
+    private UlpfecEncoder() {
+    }
+
+    /**
+     * @param media  受保护的媒体包（完整 RTP 包，序号需在 SN base 之后 48 个以内）
+     * @param fecSeq FEC 包自身的 RTP 序号
+     * @param fecPt  FEC 包的 Payload Type
+     * @param ssrc   FEC 包的 SSRC
+     */
+    static byte[] encode(List<byte[]> media, int fecSeq, int fecPt, int ssrc) {
+        int snBase = seq(media.get(0));
+        for (byte[] p : media) {
+            if ((short) (seq(p) - snBase) < 0) snBase = seq(p);
+        }
+
+        int protectionLength = 0;
+        long mask = 0;
+        boolean longMask = false;
+        for (byte[] p : media) {
+            protectionLength = Math.max(protectionLength, p.length - RTP_HEADER_SIZE);
+            int offset = (seq(p) - snBase) & 0xFFFF;
+            if (offset >= 48) throw new IllegalArgumentException("sequence span too large");
+            if (offset >= 16) longMask = true;
+        }
+        int maskBits = longMask ? 48 : 16;
+        for (byte[] p : media) {
+            mask |= 1L << (maskBits - 1 - ((seq(p) - snBase) & 0xFFFF));
+        }
+
+        int ulpHeader = longMask ? 8 : 4;
+        int fecHeader = RTP_HEADER_SIZE;
+        int payload = fecHeader + 10 + ulpHeader;
+        byte[] fec = new byte[payload + protectionLength];
+
+        // RTP 头
+        fec[0] = (byte) 0x80;
+        fec[1] = (byte) fecPt;
+        fec[2] = (byte) (fecSeq >> 8);
+        fec[3] = (byte) fecSeq;
+        fec[8] = (byte) (ssrc >> 24);
+        fec[9] = (byte) (ssrc >> 16);
+        fec[10] = (byte) (ssrc >> 8);
+        fec[11] = (byte) ssrc;
+
+        // FEC 头：各恢复字段为受保护包对应字段的异或
+        int b0 = 0, b1 = 0, length = 0;
+        byte[] ts = new byte[4];
+        for (byte[] p : media) {
+            b0 ^= p[0] & 0x3F;
+            b1 ^= p[1] & 0xFF;
+            for (int i = 0; i < 4; i++) ts[i] ^= p[4 + i];
+            length ^= p.length - RTP_HEADER_SIZE;
+            for (int i = RTP_HEADER_SIZE; i < p.length; i++) {
+                fec[payload + i - RTP_HEADER_SIZE] ^= p[i];
+            }
+        }
+        fec[fecHeader] = (byte) ((longMask ? 0x40 : 0) | b0);
+        fec[fecHeader + 1] = (byte) b1;
+        fec[fecHeader + 2] = (byte) (snBase >> 8);
+        fec[fecHeader + 3] = (byte) snBase;
+        System.arraycopy(ts, 0, fec, fecHeader + 4, 4);
+        fec[fecHeader + 8] = (byte) (length >> 8);
+        fec[fecHeader + 9] = (byte) length;
+
+        // ULP Level 0 头
+        fec[fecHeader + 10] = (byte) (protectionLength >> 8);
+        fec[fecHeader + 11] = (byte) protectionLength;
+        for (int i = 0; i < ulpHeader - 2; i++) {
+            fec[fecHeader + 12 + i] = (byte) (mask >> (8 * (ulpHeader - 3 - i)));
+        }
+        return fec;
+    }
+
+    private static int seq(byte[] packet) {
+        return ((packet[2] & 0xFF) << 8) | (packet[3] & 0xFF);
+    }
+}
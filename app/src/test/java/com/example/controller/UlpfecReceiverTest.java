@@ -0,0 +1,157 @@
+package com.example.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * UlpfecReceiver 单元测试（用 UlpfecEncoder 生成 FEC 包）
+ */
+public class UlpfecReceiverTest {
+
+    private static final int FEC_PT = UlpfecReceiver.DEFAULT_PAYLOAD_TYPE;
+    private static final int SSRC = 0x0BADF00D;
+
+    private final List<byte[]> recovered = new ArrayList<>();
+    private UlpfecReceiver receiver;
+    private int fecSeq = 0;
+
+    @Before
+    public void setUp() {
+        recovered.clear();
+        receiver = new UlpfecReceiver((packet, arrivalNanos) -> {
+            byte[] copy = new byte[packet.remaining()];
+            packet.get(copy);
+            recovered.add(copy);
+        }, 2048);
+        // 激活：首个 FEC 包只用于开启媒体缓存
+        receiver.onFecPacket(ByteBuffer.wrap(UlpfecEncoder.encode(List.of(media(0, 1)), fecSeq++, FEC_PT, SSRC)), 0);
+    }
+
+    /** 媒体包：长度、Marker、时间戳随序号变化，便于验证头部恢复 */
+    private static byte[] media(int seq, int payloadLength) {
+        byte[] p = new byte[RtpH264Depacketizer.RTP_HEADER_SIZE + payloadLength];
+        p[0] = (byte) 0x80;
+        p[1] = (byte) (96 | (seq % 3 == 0 ? 0x80 : 0));
+        p[2] = (byte) (seq >> 8);
+        p[3] = (byte) seq;
+        int ts = 3000 * (seq / 3);
+        p[4] = (byte) (ts >> 24);
+        p[5] = (byte) (ts >> 16);
+        p[6] = (byte) (ts >> 8);
+        p[7] = (byte) ts;
+        p[8] = (byte) (SSRC >> 24);
+        p[9] = (byte) (SSRC >> 16);
+        p[10] = (byte) (SSRC >> 8);
+        p[11] = (byte) SSRC;
+        for (int i = RtpH264Depacketizer.RTP_HEADER_SIZE; i < p.length; i++) {
+            p[i] = (byte) (seq * 31 + i);
+        }
+        return p;
+    }
+
+    private void receiveMedia(byte[] packet) {
+        receiver.onMediaPacket(ByteBuffer.wrap(packet), 0);
+    }
+
+    private void receiveFec(List<byte[]> group) {
+        receiver.onFecPacket(ByteBuffer.wrap(UlpfecEncoder.encode(group, fecSeq++, FEC_PT, SSRC)), 0);
+    }
+
+    @Test
+    public void singleLoss_isRecoveredBitExact() {
+        List<byte[]> group = List.of(media(10, 100), media(11, 37), media(12, 250), media(13, 8));
+        receiveMedia(group.get(0));
+        receiveMedia(group.get(1));
+        receiveMedia(group.get(3)); // 12 丢失
+        receiveFec(group);
+
+        assertEquals(1, recovered.size());
+        assertArrayEquals(group.get(2), recovered.get(0));
+        assertEquals(1, receiver.getRecoveredPackets());
+    }
+
+    @Test
+    public void fecBeforeLastMedia_recoversWhenGroupCompletesToOneMissing() {
+        List<byte[]> group = List.of(media(20, 40), media(21, 41), media(22, 42));
+        receiveMedia(group.get(0));
+        receiveFec(group);           // 此时缺 21、22
+        assertTrue(recovered.isEmpty());
+
+        receiveMedia(group.get(2));  // 只剩 21
+        assertEquals(1, recovered.size());
+        assertArrayEquals(group.get(1), recovered.get(0));
+    }
+
+    @Test
+    public void twoLosses_inOneGroup_areNotRecovered() {
+        List<byte[]> group = List.of(media(30, 50), media(31, 50), media(32, 50));
+        receiveMedia(group.get(0));
+        receiveFec(group);
+
+        assertTrue(recovered.isEmpty());
+        assertEquals(0, receiver.getRecoveredPackets());
+    }
+
+    @Test
+    public void recoveredPacket_enablesCascadedRecovery() {
+        byte[] a = media(40, 60), b = media(41, 61), c = media(42, 62);
+        receiveMedia(a);
+        receiveFec(List.of(a, b, c)); // 缺 b、c
+        receiveFec(List.of(a, b));    // 缺 b → 恢复 b → 上一组只缺 c → 恢复 c
+
+        assertEquals(2, recovered.size());
+        assertArrayEquals(b, recovered.get(0));
+        assertArrayEquals(c, recovered.get(1));
+    }
+
+    @Test
+    public void interleavedLongMask_isSupported() {
+        List<byte[]> group = new ArrayList<>();
+        for (int seq = 100; seq < 140; seq += 8) group.add(media(seq, 20 + seq % 7));
+        for (int seq = 100; seq < 140; seq++) {
+            if (seq != 124) receiveMedia(media(seq, 20 + seq % 7));
+        }
+        receiveFec(group);
+
+        assertEquals(1, recovered.size());
+        assertTrue(Arrays.equals(media(124, 20 + 124 % 7), recovered.get(0)));
+    }
+
+    @Test
+    public void recoveryContinues_pastSequenceWraparound() {
+        // 连续运行超过 65536 个序号（两次回绕），每组 4 个包丢 1 个
+        int groups = 0;
+        for (int base = 200; base < 200 + 140_000; base += 4) {
+            List<byte[]> group = new ArrayList<>();
+            for (int i = 0; i < 4; i++) group.add(media((base + i) & 0xFFFF, 30));
+            int lost = (groups + 1) % 4; // 首组不丢首包：缓存起点之前的序号无法判断
+            for (int i = 0; i < 4; i++) {
+                if (i != lost) receiveMedia(group.get(i));
+            }
+            receiveFec(group);
+            groups++;
+            assertEquals("group " + groups, groups, recovered.size());
+            assertArrayEquals(group.get(lost), recovered.get(recovered.size() - 1));
+        }
+        assertEquals(groups, receiver.getRecoveredPackets());
+        assertEquals(0, receiver.getUnrecoverableGroups());
+    }
+
+    @Test
+    public void allReceived_discardsFecSilently() {
+        List<byte[]> group = List.of(media(50, 10), media(51, 10));
+        receiveMedia(group.get(0));
+        receiveMedia(group.get(1));
+        receiveFec(group);
+
+        assertTrue(recovered.isEmpty());
+        assertEquals(0, receiver.getUnrecoverableGroups());
+    }
+}
@@ -7,7 +7,9 @@
 #   - HTTP /api/status 获取基础状态
 #   - WebSocket:
 #       /ws/control   接收控制指令 (arm / disarm / mode / takeoff / land / joystick)
+#                     客户端协商子协议 drone-control.bin.v1 后, 摇杆改为二进制帧 (见 decode_control_frame)
 #       /ws/telemetry 推送遥测 (mode / armed / altitude / groundspeed / heading / battery / 延迟等)
+#   - UDP 摇杆通道 (默认 14600): 每个数据报是一帧二进制摇杆帧, 按序号只保留最新, 避免 TCP 队头阻塞
 #   - 简单速度控制: 发送 NED 速度指令 (GUIDED 模式)
 #   - takeoff: 使用 simple_takeoff + watcher
 #   - 失败调试: ensure_mode / arm 失败时打印可能阻塞信息 + 最近 STATUSTEXT
@@ -26,6 +28,7 @@
 # 环境变量:
 #   DRONE_CONN (例如 /dev/ttyUSB0 或 udp:127.0.0.1:14550)
 #   DRONE_BAUD (默认 921600, 仅串口)
+#   DRONE_UDP_CONTROL_PORT (默认 14600, 0 关闭 UDP 摇杆通道)
 #
 # 注意安全:
 #   仅在测试与可控环境使用；请依据实际飞行法规与安全规范操作。
@@ -35,6 +38,8 @@ import os
 import time
 import json
 import math
+import socket
+import struct
 import threading
 import collections
 
@@ -75,6 +80,16 @@ TELEM_INTERVAL = 0.5  # s
 # 默认起飞高度
 DEFAULT_TAKEOFF_ALT = 1.5
 
+# 二进制摇杆帧 (与 ControlFrameEncoder.java 对应)
+CONTROL_SUBPROTOCOL = "drone-control.bin.v1"
+FRAME_JOYSTICK_F32 = 0x10
+FRAME_JOYSTICK_F16 = 0x11
+
+# UDP 摇杆通道
+UDP_CONTROL_PORT = int(os.environ.get("DRONE_UDP_CONTROL_PORT", "14600"))
+UDP_SEQ_RESET = 1.0  # s, 超过该时间没有数据报则不再比较序号 (客户端重连后序号从 0 开始)
+udp_control_stats = {"received": 0, "stale": 0, "lost": 0, "invalid": 0, "rejected": 0}
+
 # ========== 工具函数 ==========
 
 def log(msg):
@@ -288,6 +303,62 @@ def disarm_vehicle():
     print("上锁失败")
     return False
 
+def half_to_float(h):
+    """IEEE 754 binary16 -> float (Python 2.7 的 struct 不支持 'e')"""
+    sign = -1.0 if h & 0x8000 else 1.0
+    exp = (h >> 10) & 0x1F
+    mant = h & 0x3FF
+    if exp == 0x1F:
+        return sign * float("inf") if mant == 0 else float("nan")
+    if exp == 0:
+        return sign * mant * (2.0 ** -24)
+    return sign * (1.0 + mant / 1024.0) * (2.0 ** (exp - 15))
+
+def decode_control_frame(data):
+    """
+    解析二进制控制帧 (大端):
+      type:uint8  seq:uint16  timestamp_ms:uint32  vx,vy,vz,yaw_rate: 4 x float16 (type 0x11) / float32 (type 0x10)
+    返回 dict, 无法识别时返回 None
+    """
+    data = bytearray(data)
+    if len(data) < 7:
+        return None
+    typ, seq, ts = struct.unpack(">BHI", bytes(data[:7]))
+    if typ == FRAME_JOYSTICK_F16 and len(data) == 15:
+        axes = [half_to_float(h) for h in struct.unpack(">4H", bytes(data[7:15]))]
+    elif typ == FRAME_JOYSTICK_F32 and len(data) == 23:
+        axes = list(struct.unpack(">4f", bytes(data[7:23])))
+    else:
+        return None
+    return {"type": "joystick", "seq": seq, "timestamp": ts,
+            "vx": axes[0], "vy": axes[1], "vz": axes[2], "yaw_rate": axes[3]}
+
+def apply_joystick(data):
+    """
+    更新最近一次速度指令 (WebSocket / UDP 共用)
+    返回 (ok, msg); LOITER 模式下拒绝
+    """
+    global last_velocity_cmd, last_joystick_time
+    # 检查当前模式
+    current_mode = ""
+    try:
+        current_mode = vehicle.mode.name if vehicle else None
+    except:
+        pass
+
+    # 如果在 LOITER 模式，拒绝操作
+    if current_mode == "LOITER":
+        return False, "当前在 LOITER 模式，请切换到 GUIDED 模式以启用摇杆控制"
+
+    # 正常处理摇杆数据（在可控模式下）
+    vx = float(data.get("vx", 0.0))
+    vy = float(data.get("vy", 0.0))
+    vz = float(data.get("vz", 0.0))
+    yaw_rate = float(data.get("yaw_rate", 0.0))
+    last_velocity_cmd = {"vx": vx, "vy": vy, "vz": vz, "yaw_rate": yaw_rate}
+    last_joystick_time = time.time()
+    return True, ""
+
 def _statustext_listener(self, name, msg):
     txt = getattr(msg, 'text', '').replace('\x00', '')
     recent_statustext.append((time.time(), getattr(msg, 'severity', None), txt))
@@ -375,12 +446,42 @@ def do_takeoff(target_alt):
 # ========== WebSocket / HTTP 处理 ==========
 
 class ControlWS(tornado.websocket.WebSocketHandler):
+    def select_subprotocol(self, subprotocols):
+        # 客户端请求二进制摇杆帧时选中; 否则不回应子协议, 继续 JSON
+        if CONTROL_SUBPROTOCOL in subprotocols:
+            return CONTROL_SUBPROTOCOL
+        return None
+
     def open(self):
         control_clients.add(self)
-        log("Control client connected (%d)" % len(control_clients))
+        self.binary_frames = 0
+        log("Control client connected (%d) subprotocol=%s" % (len(control_clients), self.selected_subprotocol))
+
+    def handle_joystick(self, data, ack):
+        """JSON 摇杆每条回 ack, 二进制摇杆只在拒绝时回复"""
+        ok, msg = apply_joystick(data)
+        if not ok:
+            log("[JOYSTICK] 检测到摇杆操作，但当前在 LOITER 模式，拒绝操作")
+            self.write_message(json.dumps({"type":"ack","cmd":"joystick","ok":False,"msg":msg}))
+            return
+        if ack:
+            self.write_message(json.dumps({"type":"ack","cmd":"joystick","ok":True}))
 
     def on_message(self, message):
         global last_velocity_cmd, last_joystick_time
+        # 二进制帧 (tornado 对文本帧给出 unicode/str, 对二进制帧给出 bytes)
+        # 客户端的摇杆 JSON 也以二进制帧发送 (UTF-8), 以 '{' 开头时按 JSON 处理
+        if isinstance(message, bytes) and message[:1] != b"{" \
+                and self.selected_subprotocol == CONTROL_SUBPROTOCOL:
+            data = decode_control_frame(message)
+            if data is None:
+                self.write_message(json.dumps({"type":"error","msg":"invalid binary frame","len":len(message)}))
+                return
+            self.binary_frames += 1
+            if self.binary_frames == 1:
+                log("[JOYSTICK] 收到首个二进制摇杆帧 seq=%d" % data["seq"])
+            self.handle_joystick(data, ack=False)
+            return
         try:
             data = json.loads(message)
         except Exception as e:
@@ -391,32 +492,7 @@ class ControlWS(tornado.websocket.WebSocketHandler):
 
         # 摇杆速度
         if typ == "joystick":
-            # 检查当前模式
-            current_mode = ""
-            try:
-                current_mode = vehicle.mode.name if vehicle else None
-            except:
-                pass
-            
-            # 如果在 LOITER 模式，拒绝操作
-            if current_mode == "LOITER":
-                log("[JOYSTICK] 检测到摇杆操作，但当前在 LOITER 模式，拒绝操作")
-                self.write_message(json.dumps({
-                    "type":"ack",
-                    "cmd":"joystick",
-                    "ok":False,
-                    "msg":"当前在 LOITER 模式，请切换到 GUIDED 模式以启用摇杆控制"
-                }))
-                return
-            
-            # 正常处理摇杆数据（在可控模式下）
-            vx = float(data.get("vx", 0.0))
-            vy = float(data.get("vy", 0.0))
-            vz = float(data.get("vz", 0.0))
-            yaw_rate = float(data.get("yaw_rate", 0.0))
-            last_velocity_cmd = {"vx": vx, "vy": vy, "vz": vz, "yaw_rate": yaw_rate}
-            last_joystick_time = time.time()
-            self.write_message(json.dumps({"type":"ack","cmd":"joystick","ok":True}))
+            self.handle_joystick(data, ack=True)
             return
 
         # 切模式
@@ -537,6 +613,9 @@ class StatusHandler(tornado.web.RequestHandler):
     def get(self):
         st = get_basic_status()
         st['ok'] = True
+        if UDP_CONTROL_PORT > 0:
+            st['udp_control_port'] = UDP_CONTROL_PORT
+            st['udp_control'] = udp_control_stats
         self.set_header("Content-Type","application/json")
         self.write(json.dumps(st))
 
@@ -579,6 +658,46 @@ def control_loop():
             # 避免线程退出
             time.sleep(0.5)
 
+def udp_control_loop():
+    """
+    UDP 摇杆接收: 每个数据报是完整的最新摇杆状态 (decode_control_frame 格式)
+    按 16 位序号 newest-wins: 与上一帧相同或更旧 (回绕比较) 的数据报直接丢弃, 不等待重传
+    """
+    sock = socket.socket(socket.AF_INET, socket.SOCK_DGRAM)
+    sock.bind(("0.0.0.0", UDP_CONTROL_PORT))
+    log("UDP control listening on 0.0.0.0:%d" % UDP_CONTROL_PORT)
+    last_seq = {}  # addr -> (seq, 到达时间)
+    last_reject_log = 0.0
+    while True:
+        try:
+            data, addr = sock.recvfrom(64)
+            frame = decode_control_frame(data)
+            if frame is None:
+                udp_control_stats["invalid"] += 1
+                continue
+            now = time.time()
+            prev = last_seq.get(addr)
+            if prev is not None and now - prev[1] < UDP_SEQ_RESET:
+                delta = (frame["seq"] - prev[0]) & 0xFFFF
+                if delta == 0 or delta >= 0x8000:
+                    udp_control_stats["stale"] += 1
+                    continue
+                udp_control_stats["lost"] += delta - 1
+            elif prev is None:
+                log("[UDP] 控制客户端 %s:%d" % addr)
+            last_seq[addr] = (frame["seq"], now)
+            udp_control_stats["received"] += 1
+
+            ok, msg = apply_joystick(frame)
+            if not ok:
+                udp_control_stats["rejected"] += 1
+                if now - last_reject_log > 2.0:
+                    last_reject_log = now
+                    log("[UDP] 摇杆被拒绝: %s" % msg)
+        except Exception as e:
+            log("[UDP] 接收异常: %s" % e)
+            time.sleep(0.1)
+
 def telemetry_loop():
     while True:
         try:
@@ -651,6 +770,10 @@ def main():
     tt = threading.Thread(target=telemetry_loop)
     tt.daemon = True
     tt.start()
+    if UDP_CONTROL_PORT > 0:
+        ut = threading.Thread(target=udp_control_loop)
+        ut.daemon = True
+        ut.start()
 
     app = make_app()
     port = int(os.environ.get("DRONE_SERVER_PORT","8000"))
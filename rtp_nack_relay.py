@@ -0,0 +1,186 @@
+# -*- coding: utf-8 -*-
+#
+# RTP 重传中继 (Python 2.7 兼容) —— 树莓派端 NACK 响应替身
+#
+# 功能:
+#   - 接收本机 GStreamer 发出的 RTP (默认 127.0.0.1:5004)，原样转发给 Android (端口 5000)
+#   - 按序号缓存最近 RTP 包 (默认 1024 个)
+#   - 在 RTCP 端口 (默认 5001) 上接收 Android 发回的 RTCP:
+#       RTPFB/Generic NACK (RFC 4585)  -> 从缓存中原样重发被请求的包
+#       RR (RFC 3550)                  -> 打印丢包率 / 累计丢失 / 抖动
+#       PSFB/PLI (RFC 4585), FIR (RFC 5104) -> 执行 KEYFRAME_CMD 让编码器立即输出 IDR
+#
+# 用法:
+#   1. start_h264_stream.sh 中把 udpsink 改为 host=127.0.0.1 port=5004
+#   2. python rtp_nack_relay.py <Android IP>
+#
+# 环境变量:
+#   RELAY_IN_PORT   (默认 5004)
+#   RELAY_OUT_PORT  (默认 5000)
+#   RTCP_PORT       (默认 5001)
+#   RELAY_CACHE     (默认 1024 个包)
+#   KEYFRAME_CMD    收到 PLI/FIR 时执行的命令 (默认不执行，仅打印)，例如:
+#                   v4l2-ctl -d /dev/video11 --set-ctrl=force_key_frame=1
+#   KEYFRAME_MIN_INTERVAL  两次执行 KEYFRAME_CMD 的最小间隔秒数 (默认 0.5)
+
+from __future__ import print_function
+import os
+import sys
+import time
+import select
+import socket
+import struct
+import subprocess
+
+IN_PORT = int(os.environ.get("RELAY_IN_PORT", "5004"))
+OUT_PORT = int(os.environ.get("RELAY_OUT_PORT", "5000"))
+RTCP_PORT = int(os.environ.get("RTCP_PORT", "5001"))
+CACHE_SIZE = int(os.environ.get("RELAY_CACHE", "1024"))
+KEYFRAME_CMD = os.environ.get("KEYFRAME_CMD", "")
+KEYFRAME_MIN_INTERVAL = float(os.environ.get("KEYFRAME_MIN_INTERVAL", "0.5"))
+
+PT_RR = 201
+PT_RTPFB = 205
+FMT_GENERIC_NACK = 1
+PT_PSFB = 206
+FMT_PLI = 1
+FMT_FIR = 4
+
+# ========== 统计 ==========
+stats = {"forwarded": 0, "nack_seqs": 0, "resent": 0, "missed": 0, "keyframe_requests": 0}
+last_keyframe = [0.0]
+
+
+def log(msg):
+    print("[RELAY] %s" % msg)
+
+
+class RetransmitCache(object):
+    """按序号低位索引的定长缓存，新包覆盖同槽位旧包"""
+
+    def __init__(self, size):
+        self.size = size
+        self.seqs = [-1] * size
+        self.packets = [None] * size
+
+    def put(self, packet):
+        if len(packet) < 12:
+            return
+        seq = struct.unpack("!H", packet[2:4])[0]
+        slot = seq % self.size
+        self.seqs[slot] = seq
+        self.packets[slot] = packet
+
+    def get(self, seq):
+        slot = seq % self.size
+        if self.seqs[slot] == seq:
+            return self.packets[slot]
+        return None
+
+
+def nack_seqs(fci):
+    """解析 Generic NACK FCI (PID + BLP)，返回请求的序号列表"""
+    seqs = []
+    for i in range(0, len(fci) - 3, 4):
+        pid, blp = struct.unpack("!HH", fci[i:i + 4])
+        seqs.append(pid)
+        for bit in range(16):
+            if blp & (1 << bit):
+                seqs.append((pid + 1 + bit) & 0xFFFF)
+    return seqs
+
+
+def request_keyframe(kind):
+    """收到 PLI/FIR：限速执行 KEYFRAME_CMD"""
+    stats["keyframe_requests"] += 1
+    now = time.time()
+    if now - last_keyframe[0] < KEYFRAME_MIN_INTERVAL:
+        return
+    last_keyframe[0] = now
+    if not KEYFRAME_CMD:
+        log("收到 %s (未设置 KEYFRAME_CMD，等待下一个周期性 IDR)" % kind)
+        return
+    log("收到 %s，执行: %s" % (kind, KEYFRAME_CMD))
+    try:
+        subprocess.Popen(KEYFRAME_CMD, shell=True)
+    except OSError as e:
+        log("KEYFRAME_CMD 执行失败: %s" % e)
+
+
+def handle_rtcp(data, cache, out_sock, target):
+    """处理一个 (复合) RTCP 包"""
+    pos = 0
+    while pos + 4 <= len(data):
+        first, pt, length = struct.unpack("!BBH", data[pos:pos + 4])
+        size = (length + 1) * 4
+        if (first >> 6) != 2 or pos + size > len(data):
+            return
+        body = data[pos:pos + size]
+        count = first & 0x1F
+
+        if pt == PT_RTPFB and count == FMT_GENERIC_NACK and size >= 12:
+            for seq in nack_seqs(body[12:]):
+                stats["nack_seqs"] += 1
+                packet = cache.get(seq)
+                if packet is None:
+                    stats["missed"] += 1
+                    continue
+                out_sock.sendto(packet, target)
+                stats["resent"] += 1
+
+        elif pt == PT_PSFB and count in (FMT_PLI, FMT_FIR):
+            request_keyframe("PLI" if count == FMT_PLI else "FIR")
+
+        elif pt == PT_RR and count >= 1 and size >= 32:
+            fraction = struct.unpack("!B", body[12:13])[0]
+            lost = struct.unpack("!I", b"\x00" + body[13:16])[0]
+            if lost & 0x800000:
+                lost -= 0x1000000
+            highest, jitter = struct.unpack("!II", body[16:24])
+            log("RR: 丢包率 %.1f%% | 累计丢失 %d | 最高序号 %d | 抖动 %.1fms" % (
+                fraction * 100.0 / 256, lost, highest, jitter / 90.0))
+
+        pos += size
+
+
+def main():
+    if len(sys.argv) < 2:
+        print("用法: python rtp_nack_relay.py <Android IP>")
+        sys.exit(1)
+    target = (sys.argv[1], OUT_PORT)
+
+    rtp_in = socket.socket(socket.AF_INET, socket.SOCK_DGRAM)
+    rtp_in.bind(("127.0.0.1", IN_PORT))
+    rtcp = socket.socket(socket.AF_INET, socket.SOCK_DGRAM)
+    rtcp.bind(("0.0.0.0", RTCP_PORT))
+    out_sock = socket.socket(socket.AF_INET, socket.SOCK_DGRAM)
+
+    cache = RetransmitCache(CACHE_SIZE)
+    log("RTP 127.0.0.1:%d -> %s:%d | RTCP 0.0.0.0:%d | 缓存 %d 包" % (
+        IN_PORT, target[0], target[1], RTCP_PORT, CACHE_SIZE))
+
+    last_stats = time.time()
+    try:
+        while True:
+            readable, _, _ = select.select([rtp_in, rtcp], [], [], 1.0)
+            for sock in readable:
+                data = sock.recv(2048)
+                if sock is rtp_in:
+                    cache.put(data)
+                    out_sock.sendto(data, target)
+                    stats["forwarded"] += 1
+                else:
+                    handle_rtcp(data, cache, out_sock, target)
+
+            now = time.time()
+            if now - last_stats >= 5.0:
+                log("转发 %d | NACK 请求 %d | 重发 %d | 缓存未命中 %d | 关键帧请求 %d" % (
+                    stats["forwarded"], stats["nack_seqs"], stats["resent"], stats["missed"],
+                    stats["keyframe_requests"]))
+                last_stats = now
+    except KeyboardInterrupt:
+        print("\n[RELAY] KeyboardInterrupt, exiting...")
+
+
+if __name__ == "__main__":
+    main()
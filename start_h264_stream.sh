@@ -1,5 +1,5 @@
 #!/bin/bash
-# H.264/RTP 视频流启动脚本
+# H.264/H.265 RTP 视频流启动脚本
 
 # 颜色定义
 RED='\033[0;31m'
@@ -31,7 +31,8 @@ echo "选择视频配置方案:"
 echo "1) 推荐配置 (320x240 @ 20fps, 400kbps) - 平衡延迟和画质"
 echo "2) 低码率配置 (320x240 @ 20fps, 200kbps) - 极限低带宽"
 echo "3) 高清配置 (640x480 @ 20fps, 800kbps) - 高画质"
-read -p "请选择 [1-3]: " choice
+echo "4) H.265 配置 (640x480 @ 20fps, 400kbps) - 同画质约一半码率，适合拥挤的 2.4GHz 链路"
+read -p "请选择 [1-4]: " choice
 
 case $choice in
     1)
@@ -42,7 +43,7 @@ case $choice in
               extra-controls="controls,video_bitrate=400000,h264_profile=1,h264_level=10,h264_i_frame_period=10;" \
           ! video/x-h264,stream-format=byte-stream \
           ! h264parse config-interval=1 \
-          ! rtph264pay config-interval=1 pt=96 mtu=1400 \
+          ! rtph264pay config-interval=1 pt=96 aggregate-mode=zero-latency mtu=1400 \
           ! udpsink host=$ANDROID_IP port=5000 sync=false async=false
         ;;
     2)
@@ -52,7 +53,7 @@ case $choice in
           ! v4l2h264enc \
               extra-controls="controls,video_bitrate=200000,h264_profile=1,h264_level=10;" \
           ! h264parse config-interval=1 \
-          ! rtph264pay config-interval=1 pt=96 \
+          ! rtph264pay config-interval=1 pt=96 aggregate-mode=zero-latency \
           ! udpsink host=$ANDROID_IP port=5000 sync=false async=false
         ;;
     3)
@@ -64,7 +65,20 @@ case $choice in
           ! v4l2h264enc \
               extra-controls="controls,video_bitrate=800000,h264_profile=1,h264_level=11;" \
           ! h264parse config-interval=1 \
-          ! rtph264pay config-interval=1 pt=96 \
+          ! rtph264pay config-interval=1 pt=96 aggregate-mode=zero-latency \
+          ! udpsink host=$ANDROID_IP port=5000 sync=false async=false
+        ;;
+    4)
+        # Pi 5 没有 H.265 硬件编码器，使用 x265 软件编码 (ultrafast + zerolatency)
+        # PT 97 让 Android 端自动切换到 H.265 解包 (RFC 7798) 和 video/hevc 解码器
+        echo -e "${GREEN}启动 H.265 配置...${NC}"
+        gst-launch-1.0 v4l2src device=/dev/video0 io-mode=2 \
+          ! video/x-raw,width=640,height=480,framerate=20/1 \
+          ! videoconvert \
+          ! x265enc bitrate=400 speed-preset=ultrafast tune=zerolatency key-int-max=20 \
+          ! video/x-h265,stream-format=byte-stream \
+          ! h265parse config-interval=1 \
+          ! rtph265pay config-interval=1 pt=97 mtu=1400 \
           ! udpsink host=$ANDROID_IP port=5000 sync=false async=false
         ;;
     *)